@@ -0,0 +1,81 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018-2026 Patrick Reinhart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.reini.print;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.print.Doc;
+import javax.print.DocFlavor;
+import javax.print.PrintException;
+import javax.print.SimpleDoc;
+import javax.print.attribute.HashDocAttributeSet;
+import javax.print.attribute.HashPrintRequestAttributeSet;
+import javax.print.attribute.PrintRequestAttributeSet;
+import javax.print.attribute.standard.Copies;
+import javax.print.attribute.standard.DocumentName;
+import javax.print.attribute.standard.RequestingUserName;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the creation of print jobs including the initialisation of their attribute sets.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+public class VirtualDocPrintJobBenchmark {
+  VirtualPrintService printService;
+  Doc doc;
+  PrintRequestAttributeSet attributes;
+
+  @Setup
+  public void setUp() {
+    printService = new VirtualPrintService("Benchmark", () -> {
+      // no action
+    });
+    HashDocAttributeSet docAttributes = new HashDocAttributeSet();
+    docAttributes.add(new DocumentName("Benchmark document", null));
+    doc = new SimpleDoc(new TestPage("Benchmark", null), DocFlavor.SERVICE_FORMATTED.PRINTABLE,
+        docAttributes);
+    attributes = new HashPrintRequestAttributeSet();
+    attributes.add(new Copies(2));
+    attributes.add(new RequestingUserName("benchmark", null));
+  }
+
+  @Benchmark
+  public PrintRequestAttributeSet createPrintJob() {
+    VirtualDocPrintJob job = (VirtualDocPrintJob) printService.createPrintJob();
+    PrintRequestAttributeSet requestAttributes = job.initializeAttributeSets(doc, attributes);
+    try {
+      job.cancel();
+    } catch (PrintException e) {
+      throw new IllegalStateException(e);
+    }
+    return requestAttributes;
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018-2026 Patrick Reinhart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.reini.print;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import javax.print.DocFlavor;
+import javax.print.PrintService;
+import javax.print.attribute.AttributeSet;
+import javax.print.attribute.HashAttributeSet;
+import javax.print.attribute.standard.PrinterName;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the print service lookup through the {@link VirtualPrintServiceLookup} depending on the
+ * number of printers registered in its {@link VirtualPrinterRegistry}.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+public class VirtualPrinterRegistryBenchmark {
+  @Param({"1", "10", "100", "1000"})
+  int printerCount;
+
+  VirtualPrintServiceLookup lookup;
+  String[] printerNames;
+  AttributeSet byName;
+
+  @Setup
+  public void setUp() {
+    lookup = new VirtualPrintServiceLookup();
+    printerNames =
+        IntStream.range(0, printerCount).mapToObj(i -> "Printer" + i).toArray(String[]::new);
+    VirtualPrintServiceLookup.getPrinterRegistry().addPrinters(printerNames);
+    byName = new HashAttributeSet(new PrinterName("Printer" + printerCount / 2, null));
+  }
+
+  @TearDown
+  public void tearDown() {
+    VirtualPrintServiceLookup.getPrinterRegistry().removePrinters(printerNames);
+  }
+
+  @Benchmark
+  public PrintService[] lookupAll() {
+    return lookup.getPrintServices();
+  }
+
+  @Benchmark
+  public PrintService[] lookupByFlavor() {
+    return lookup.getPrintServices(DocFlavor.SERVICE_FORMATTED.PAGEABLE, null);
+  }
+
+  @Benchmark
+  public PrintService[] lookupByName() {
+    return lookup.getPrintServices(null, byName);
+  }
+
+  @Benchmark
+  public PrintService lookupDefault() {
+    return lookup.getDefaultPrintService();
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018-2026 Patrick Reinhart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.reini.print;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Records latencies in logarithmic buckets with linear sub buckets, keeping the relative error of
+ * the reported percentiles below 1/{@value #HALF_SUB_BUCKETS} independent of the number of recorded
+ * values.
+ */
+final class LatencyHistogram {
+  private static final int SUB_BUCKET_BITS = 5;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+
+  private final AtomicLongArray counts;
+  private final AtomicLong count;
+  private final AtomicLong max;
+
+  LatencyHistogram() {
+    counts = new AtomicLongArray(index(Long.MAX_VALUE) + 1);
+    count = new AtomicLong();
+    max = new AtomicLong();
+  }
+
+  static int index(long value) {
+    int shift = Math.max(0, Long.SIZE - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS);
+    if (shift == 0) {
+      return (int) value;
+    }
+    return SUB_BUCKETS + (shift - 1) * HALF_SUB_BUCKETS + (int) (value >>> shift)
+        - HALF_SUB_BUCKETS;
+  }
+
+  static long lowestValue(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int shift = (index - SUB_BUCKETS) / HALF_SUB_BUCKETS + 1;
+    return (long) ((index - SUB_BUCKETS) % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS) << shift;
+  }
+
+  /**
+   * Records the given latency.
+   *
+   * @param nanos the latency in nanoseconds
+   */
+  void record(long nanos) {
+    long value = Math.max(0, nanos);
+    counts.incrementAndGet(index(value));
+    count.incrementAndGet();
+    max.accumulateAndGet(value, Math::max);
+  }
+
+  long count() {
+    return count.get();
+  }
+
+  long max() {
+    return max.get();
+  }
+
+  /**
+   * Returns the latency below or at which the given percentage of the recorded values are.
+   *
+   * @param percentile the percentile between {@code 0} and {@code 100}
+   * @return the latency in nanoseconds
+   */
+  long percentile(double percentile) {
+    long total = count.get();
+    if (total == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+    long seen = 0;
+    for (int i = 0; i < counts.length(); i++) {
+      seen += counts.get(i);
+      if (seen >= rank) {
+        return Math.min(lowestValue(i + 1) - 1, max.get());
+      }
+    }
+    return max.get();
+  }
+
+  String summary() {
+    return String.format("p50=%.3fms p90=%.3fms p99=%.3fms p99.9=%.3fms max=%.3fms",
+        millis(percentile(50)), millis(percentile(90)), millis(percentile(99)),
+        millis(percentile(99.9)), millis(max()));
+  }
+
+  private static double millis(long nanos) {
+    return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+  }
+}
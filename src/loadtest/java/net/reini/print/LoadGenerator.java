@@ -0,0 +1,309 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018-2026 Patrick Reinhart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.reini.print;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+import javax.print.Doc;
+import javax.print.DocFlavor;
+import javax.print.PrintService;
+import javax.print.PrintServiceLookup;
+import javax.print.SimpleDoc;
+import javax.print.attribute.HashPrintRequestAttributeSet;
+
+/**
+ * Submits {@link TestPage} jobs at a fixed rate to the virtual printers found using the
+ * {@link PrintServiceLookup} and reports the throughput, latency percentiles and errors.
+ * <p>
+ * The load is generated open-loop: the jobs are scheduled at the target rate independent of the
+ * completion of previous jobs and the latency of each job is measured from its scheduled start
+ * time, so that a slow printer is not hiding its queueing time (coordinated omission).
+ * <p>
+ * Supported arguments:
+ * <ul>
+ * <li>{@code --rate=<jobs per second>} the target rate (default 100)</li>
+ * <li>{@code --duration=<seconds>} the measured duration (default 60)</li>
+ * <li>{@code --warmup=<seconds>} the duration not being measured before (default 10)</li>
+ * <li>{@code --clients=<count>} the number of concurrent clients (default 16)</li>
+ * <li>{@code --printers=<name>,...} the virtual printers to be used (default all)</li>
+ * <li>{@code --report=<seconds>} the interval of the intermediate reports (default 10)</li>
+ * <li>{@code --ipp=<port>} submits PostScript jobs using IPP requests to the local port, instead
+ * of printing in-process, requiring the printers to support the {@code POSTSCRIPT} flavor</li>
+ * </ul>
+ */
+public final class LoadGenerator {
+  private final double rate;
+  private final long durationNanos;
+  private final long warmupNanos;
+  private final int clients;
+  private final Set<String> printerNames;
+  private final long reportNanos;
+  private final int ippPort;
+  private final AtomicLong outstanding;
+
+  /**
+   * Holds the results of the jobs scheduled within either the warm up or measuring phase.
+   */
+  static final class Phase {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    final LongAdder completed = new LongAdder();
+    final LongAdder failed = new LongAdder();
+  }
+
+  LoadGenerator(String... args) {
+    double targetRate = 100;
+    long duration = 60;
+    long warmup = 10;
+    int clientCount = 16;
+    Set<String> names = new HashSet<>();
+    long report = 10;
+    int port = 0;
+    for (String arg : args) {
+      int separator = arg.indexOf('=');
+      if (!arg.startsWith("--") || separator < 0) {
+        throw new IllegalArgumentException("Invalid argument: " + arg);
+      }
+      String value = arg.substring(separator + 1);
+      switch (arg.substring(2, separator)) {
+        case "rate":
+          targetRate = Double.parseDouble(value);
+          break;
+        case "duration":
+          duration = Long.parseLong(value);
+          break;
+        case "warmup":
+          warmup = Long.parseLong(value);
+          break;
+        case "clients":
+          clientCount = Integer.parseInt(value);
+          break;
+        case "printers":
+          names.addAll(Arrays.asList(value.split(",")));
+          break;
+        case "report":
+          report = Long.parseLong(value);
+          break;
+        case "ipp":
+          port = Integer.parseInt(value);
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown argument: " + arg);
+      }
+    }
+    if (targetRate <= 0 || clientCount <= 0 || duration <= 0 || warmup < 0 || report <= 0) {
+      throw new IllegalArgumentException("Rate, clients, duration and report must be positive");
+    }
+    rate = targetRate;
+    durationNanos = TimeUnit.SECONDS.toNanos(duration);
+    warmupNanos = TimeUnit.SECONDS.toNanos(warmup);
+    clients = clientCount;
+    printerNames = names;
+    reportNanos = TimeUnit.SECONDS.toNanos(report);
+    ippPort = port;
+    outstanding = new AtomicLong();
+  }
+
+  /**
+   * Runs the load generator.
+   *
+   * @param args the arguments
+   * @throws InterruptedException if interrupted while waiting for the jobs to complete
+   */
+  public static void main(String[] args) throws InterruptedException {
+    new LoadGenerator(args).run();
+  }
+
+  List<PrintService> printers() {
+    DocFlavor flavor =
+        ippPort > 0 ? DocFlavor.INPUT_STREAM.POSTSCRIPT : DocFlavor.SERVICE_FORMATTED.PRINTABLE;
+    List<PrintService> printers = Arrays
+        .stream(PrintServiceLookup.lookupPrintServices(flavor, null))
+        .filter(VirtualPrintService.class::isInstance)
+        .filter(ps -> printerNames.isEmpty() || printerNames.contains(ps.getName()))
+        .collect(Collectors.toList());
+    if (printers.isEmpty()) {
+      throw new IllegalStateException("No virtual printers found");
+    }
+    return printers;
+  }
+
+  void run() throws InterruptedException {
+    List<PrintService> printers = printers();
+    List<Doc> docs = printers.stream()
+        .map(ps -> new SimpleDoc(new TestPage(ps.getName(), null),
+            DocFlavor.SERVICE_FORMATTED.PRINTABLE, null))
+        .collect(Collectors.toList());
+    System.out.printf(Locale.ROOT, "Printing %.1f jobs/s using %d clients on %s%n", rate, clients,
+        printers.stream().map(PrintService::getName).collect(Collectors.toList()));
+
+    // IPP clients mostly wait for responses, so that thousands of them are run on virtual threads
+    ExecutorService executor = ippPort > 0
+        ? Executors.newFixedThreadPool(clients, Thread.ofVirtual().name("ipp-client-", 0).factory())
+        : Executors.newFixedThreadPool(clients);
+    HttpClient httpClient =
+        ippPort > 0 ? HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build() : null;
+    List<HttpRequest> requests = ippPort > 0 ? printers.stream()
+        .map(ps -> HttpRequest
+            .newBuilder(URI.create("http://localhost:" + ippPort + "/printers/" + ps.getName()))
+            .header("Content-Type", "application/ipp")
+            .POST(HttpRequest.BodyPublishers.ofByteArray(printJobRequest(ps.getName()))).build())
+        .collect(Collectors.toList()) : List.of();
+    long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+    long start = System.nanoTime();
+    long measureStart = start + warmupNanos;
+    long end = measureStart + durationNanos;
+    long nextReport = measureStart + reportNanos;
+    Phase phase = new Phase();
+    boolean measuring = warmupNanos == 0;
+    long reportedCompleted = 0;
+    for (long i = 0;; i++) {
+      long intended = start + i * intervalNanos;
+      if (intended >= end) {
+        break;
+      }
+      long now;
+      while ((now = System.nanoTime()) < intended) {
+        LockSupport.parkNanos(intended - now);
+      }
+      if (!measuring && intended >= measureStart) {
+        measuring = true;
+        phase = new Phase();
+      }
+      if (now >= nextReport) {
+        long total = phase.completed.sum();
+        System.out.printf(Locale.ROOT, "%6.1fs: %.1f jobs/s, %d outstanding, %d failed, %s%n",
+            (now - measureStart) / 1e9, (total - reportedCompleted) * 1e9 / reportNanos,
+            outstanding.get(), phase.failed.sum(), phase.histogram.summary());
+        reportedCompleted = total;
+        nextReport += reportNanos;
+      }
+      int printerIndex = (int) (i % printers.size());
+      PrintService printer = printers.get(printerIndex);
+      Doc doc = docs.get(printerIndex);
+      Phase jobPhase = phase;
+      outstanding.incrementAndGet();
+      if (httpClient != null) {
+        HttpRequest request = requests.get(printerIndex);
+        executor.execute(() -> print(httpClient, request, intended, jobPhase));
+      } else {
+        executor.execute(() -> print(printer, doc, intended, jobPhase));
+      }
+    }
+    executor.shutdown();
+    if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+      System.out.printf(Locale.ROOT, "%d jobs did not complete%n", outstanding.get());
+      executor.shutdownNow();
+    }
+    long total = phase.completed.sum();
+    System.out.printf(Locale.ROOT, "Completed %d jobs (%.1f jobs/s), %d failed%n", total,
+        total * 1e9 / durationNanos, phase.failed.sum());
+    System.out.printf(Locale.ROOT, "Latency: %s%n", phase.histogram.summary());
+  }
+
+  private void print(HttpClient httpClient, HttpRequest request, long intended, Phase phase) {
+    try {
+      byte[] response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray()).body();
+      // the status code follows the version
+      if (response.length >= 4 && response[2] == 0 && response[3] == 0) {
+        phase.completed.increment();
+      } else {
+        phase.failed.increment();
+      }
+    } catch (IOException | InterruptedException e) {
+      phase.failed.increment();
+    } finally {
+      phase.histogram.record(System.nanoTime() - intended);
+      outstanding.decrementAndGet();
+    }
+  }
+
+  /**
+   * Encodes an IPP Print-Job request containing a small PostScript document.
+   */
+  static byte[] printJobRequest(String printerName) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeShort(0x0101);
+      out.writeShort(IppServer.PRINT_JOB);
+      out.writeInt(1);
+      out.write(IppRequest.OPERATION_ATTRIBUTES_TAG);
+      attribute(out, IppRequest.CHARSET_TAG, "attributes-charset", "utf-8");
+      attribute(out, IppRequest.NATURAL_LANGUAGE_TAG, "attributes-natural-language", "en");
+      attribute(out, IppRequest.URI_TAG, "printer-uri", "ipp://localhost/printers/" + printerName);
+      attribute(out, IppRequest.NAME_TAG, "requesting-user-name", "load-generator");
+      attribute(out, IppRequest.MIME_MEDIA_TYPE_TAG, "document-format", "application/postscript");
+      out.write(IppRequest.END_OF_ATTRIBUTES_TAG);
+      out.write("%!PS-Adobe-3.0\n".getBytes(UTF_8));
+      for (int i = 0; i < 64; i++) {
+        out.write(("newpath 72 " + (72 + i * 10) + " moveto 540 0 rlineto stroke\n")
+            .getBytes(UTF_8));
+      }
+      out.write("showpage\n%%EOF\n".getBytes(UTF_8));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static void attribute(DataOutputStream out, int tag, String name, String value)
+      throws IOException {
+    byte[] nameBytes = name.getBytes(UTF_8);
+    byte[] valueBytes = value.getBytes(UTF_8);
+    out.write(tag);
+    out.writeShort(nameBytes.length);
+    out.write(nameBytes);
+    out.writeShort(valueBytes.length);
+    out.write(valueBytes);
+  }
+
+  private void print(PrintService printer, Doc doc, long intended, Phase phase) {
+    try {
+      printer.createPrintJob().print(doc, new HashPrintRequestAttributeSet());
+      phase.completed.increment();
+    } catch (Exception e) {
+      phase.failed.increment();
+    } finally {
+      phase.histogram.record(System.nanoTime() - intended);
+      outstanding.decrementAndGet();
+    }
+  }
+}
@@ -0,0 +1,194 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018-2026 Patrick Reinhart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.reini.print;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+import javax.print.PrintException;
+
+/**
+ * Controls the admission of print jobs to be printed by one virtual printer. A job is only
+ * admitted while the printer is accepting jobs and neither the number of jobs being printed nor
+ * their output bytes exceed the configured limits. Depending on the configuration, a job not being
+ * admitted either waits or is rejected.
+ */
+final class AdmissionControl {
+  private final int maxConcurrentJobs;
+  private final long maxInFlightBytes;
+  private final boolean reject;
+  private final ReentrantLock lock;
+  private final Condition admissible;
+  private final AtomicLong inFlightBytes;
+  private final LongAdder rejected;
+
+  private int inFlightJobs;
+  private boolean accepting;
+
+  AdmissionControl(PrinterConfiguration configuration) {
+    maxConcurrentJobs = configuration.maxConcurrentJobs();
+    maxInFlightBytes = configuration.maxInFlightBytes();
+    reject = configuration.admission() == PrinterConfiguration.Admission.REJECT;
+    lock = new ReentrantLock(true);
+    admissible = lock.newCondition();
+    inFlightBytes = new AtomicLong();
+    rejected = new LongAdder();
+    accepting = true;
+  }
+
+  private String unavailableReason() {
+    if (!accepting) {
+      return "printer is not accepting jobs";
+    }
+    if (maxConcurrentJobs > 0 && inFlightJobs >= maxConcurrentJobs) {
+      return "printer is printing " + inFlightJobs + " jobs";
+    }
+    if (maxInFlightBytes > 0 && inFlightBytes.get() >= maxInFlightBytes) {
+      return "printer is processing " + inFlightBytes.get() + " bytes";
+    }
+    return null;
+  }
+
+  /**
+   * Admits a job to be printed, waiting until the printer is able to print it unless configured
+   * to reject the job. A waiting job stops waiting as soon as it has been canceled and
+   * {@link #wakeUp()} is called.
+   *
+   * @param canceled tells whether the job has been canceled
+   * @throws PrintException if the job is canceled, rejected or interrupted while waiting
+   */
+  void acquire(BooleanSupplier canceled) throws PrintException {
+    lock.lock();
+    try {
+      String reason;
+      while ((reason = unavailableReason()) != null) {
+        if (reject) {
+          rejected.increment();
+          throw new PrintException("job rejected: " + reason);
+        }
+        if (canceled.getAsBoolean()) {
+          throw new PrintException("printing canceled");
+        }
+        admissible.await();
+      }
+      inFlightJobs++;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new PrintException("interrupted while waiting for admission", e);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Admits a job to be printed if the printer is able to print it right now, without waiting.
+   *
+   * @return {@code true} if the job was admitted, {@code false} if it has to try again later
+   * @throws PrintException if the job is rejected
+   */
+  boolean tryAcquire() throws PrintException {
+    lock.lock();
+    try {
+      String reason = unavailableReason();
+      if (reason == null) {
+        inFlightJobs++;
+        return true;
+      }
+      if (reject) {
+        rejected.increment();
+        throw new PrintException("job rejected: " + reason);
+      }
+      return false;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Accounts output bytes written by an admitted job.
+   *
+   * @param bytes the number of written bytes
+   */
+  void bytesWritten(long bytes) {
+    inFlightBytes.addAndGet(bytes);
+  }
+
+  /**
+   * Releases the admission acquired by {@link #acquire(BooleanSupplier)} after the job has been
+   * printed.
+   *
+   * @param writtenBytes the bytes accounted for the job using {@link #bytesWritten(long)}
+   */
+  void release(long writtenBytes) {
+    inFlightBytes.addAndGet(-writtenBytes);
+    lock.lock();
+    try {
+      inFlightJobs--;
+      admissible.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Defines whether the printer is accepting jobs. Waiting jobs are admitted as soon as the
+   * printer accepts jobs again.
+   *
+   * @param accepting {@code true} if jobs are accepted, {@code false} otherwise
+   */
+  void setAccepting(boolean accepting) {
+    lock.lock();
+    try {
+      this.accepting = accepting;
+      admissible.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Wakes up all jobs waiting for the admission, so that jobs canceled in the meantime stop
+   * waiting.
+   */
+  void wakeUp() {
+    lock.lock();
+    try {
+      admissible.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  long rejected() {
+    return rejected.sum();
+  }
+
+  void resetRejected() {
+    rejected.reset();
+  }
+
+  long inFlightBytes() {
+    return inFlightBytes.get();
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018-2026 Patrick Reinhart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.reini.print;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.print.PrintService;
+import javax.print.attribute.Attribute;
+import javax.print.attribute.AttributeSetUtilities;
+import javax.print.attribute.HashPrintServiceAttributeSet;
+import javax.print.attribute.PrintServiceAttributeSet;
+import javax.print.event.PrintServiceAttributeEvent;
+import javax.print.event.PrintServiceAttributeListener;
+
+/**
+ * Notifies {@link PrintServiceAttributeListener}s about changed print service attributes. All
+ * changes within one notification interval are coalesced into one single event containing the
+ * attributes having a different value than at the previous notification. The events are delivered
+ * by a shared notification thread, never by the thread causing the change.
+ */
+final class AttributeChangeNotifier {
+  private static final Logger LOG = Logger.getLogger(AttributeChangeNotifier.class.getName());
+  static final long DEFAULT_INTERVAL_MILLIS = 100;
+
+  private final PrintService source;
+  private final Supplier<PrintServiceAttributeSet> attributes;
+  private final long intervalMillis;
+  private final List<PrintServiceAttributeListener> listeners;
+  private final AtomicBoolean scheduled;
+
+  private PrintServiceAttributeSet notifiedAttributes;
+
+  private static final class Scheduler {
+    static final ScheduledExecutorService INSTANCE =
+        Executors.newSingleThreadScheduledExecutor(runnable -> {
+          Thread thread = new Thread(runnable, "virtual-printer-notifications");
+          thread.setDaemon(true);
+          return thread;
+        });
+  }
+
+  /**
+   * Constructor
+   *
+   * @param source the print service being the source of the events
+   * @param attributes supplies the current values of all attributes to be notified about
+   * @param intervalMillis the interval in milliseconds changes are coalesced
+   */
+  AttributeChangeNotifier(PrintService source, Supplier<PrintServiceAttributeSet> attributes,
+      long intervalMillis) {
+    this.source = source;
+    this.attributes = attributes;
+    this.intervalMillis = intervalMillis;
+    listeners = new CopyOnWriteArrayList<>();
+    scheduled = new AtomicBoolean();
+  }
+
+  void addListener(PrintServiceAttributeListener listener) {
+    if (listener != null) {
+      synchronized (this) {
+        if (listeners.isEmpty()) {
+          notifiedAttributes = attributes.get();
+        }
+        listeners.add(listener);
+      }
+    }
+  }
+
+  void removeListener(PrintServiceAttributeListener listener) {
+    if (listener != null) {
+      listeners.remove(listener);
+    }
+  }
+
+  /**
+   * Signals a possible attribute change. This is cheap if nobody is listening or a notification is
+   * already pending.
+   */
+  void attributesChanged() {
+    if (!listeners.isEmpty() && scheduled.compareAndSet(false, true)) {
+      Scheduler.INSTANCE.schedule(this::notifyListeners, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  private void notifyListeners() {
+    scheduled.set(false);
+    PrintServiceAttributeSet changed = new HashPrintServiceAttributeSet();
+    synchronized (this) {
+      PrintServiceAttributeSet current = attributes.get();
+      for (Attribute attribute : current.toArray()) {
+        if (!attribute.equals(notifiedAttributes.get(attribute.getCategory()))) {
+          changed.add(attribute);
+        }
+      }
+      notifiedAttributes = current;
+    }
+    if (changed.isEmpty()) {
+      return;
+    }
+    PrintServiceAttributeEvent event =
+        new PrintServiceAttributeEvent(source, AttributeSetUtilities.unmodifiableView(changed));
+    for (PrintServiceAttributeListener listener : listeners) {
+      try {
+        listener.attributeUpdate(event);
+      } catch (RuntimeException e) {
+        LOG.log(Level.WARNING, "Print service attribute listener failed", e);
+      }
+    }
+  }
+}
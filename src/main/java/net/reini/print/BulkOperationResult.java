@@ -0,0 +1,92 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018-2026 Patrick Reinhart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.reini.print;
+
+import javax.management.ConstructorParameters;
+
+/**
+ * Result of a bulk printer management operation of the {@link VirtualPrinterRegistryMXBean}.
+ */
+public final class BulkOperationResult {
+  private final int added;
+  private final int removed;
+  private final int unchanged;
+  private final long durationNanos;
+
+  /**
+   * Constructor
+   * 
+   * @param added the number of added printers
+   * @param removed the number of removed printers
+   * @param unchanged the number of requested printer names that did not change the registry
+   * @param durationNanos the time the operation took in nanoseconds
+   */
+  @ConstructorParameters({"added", "removed", "unchanged", "durationNanos"})
+  public BulkOperationResult(int added, int removed, int unchanged, long durationNanos) {
+    this.added = added;
+    this.removed = removed;
+    this.unchanged = unchanged;
+    this.durationNanos = durationNanos;
+  }
+
+  /**
+   * Returns the number of added printers.
+   * 
+   * @return added printer count
+   */
+  public int getAdded() {
+    return added;
+  }
+
+  /**
+   * Returns the number of removed printers.
+   * 
+   * @return removed printer count
+   */
+  public int getRemoved() {
+    return removed;
+  }
+
+  /**
+   * Returns the number of requested printer names that did not change the registry, either because
+   * the printer to be added was already present or the printer to be removed did not exist.
+   * 
+   * @return unchanged printer count
+   */
+  public int getUnchanged() {
+    return unchanged;
+  }
+
+  /**
+   * Returns the time the operation took, including the management bean registration.
+   * 
+   * @return the duration in nanoseconds
+   */
+  public long getDurationNanos() {
+    return durationNanos;
+  }
+
+  @Override
+  public String toString() {
+    return "added: " + added + ", removed: " + removed + ", unchanged: " + unchanged
+        + ", duration: " + durationNanos + "ns";
+  }
+}
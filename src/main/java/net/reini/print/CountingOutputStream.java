@@ -0,0 +1,175 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018-2026 Patrick Reinhart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.reini.print;
+
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.function.LongConsumer;
+
+/**
+ * Counts the bytes written to the underlying stream and reports them in chunks to a consumer, in
+ * order to keep the reporting overhead low for small writes.
+ */
+final class CountingOutputStream extends FilterOutputStream {
+  static final int REPORT_CHUNK_SIZE = 64 * 1024;
+
+  private final LongConsumer consumer;
+  private long count;
+  private long unreported;
+
+  CountingOutputStream(OutputStream out, LongConsumer consumer) {
+    super(out);
+    this.consumer = consumer;
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    out.write(b);
+    written(1);
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    out.write(b, off, len);
+    written(len);
+  }
+
+  /**
+   * Returns the position within the spool file the output is written to directly, being the start
+   * of the output to be replayed using {@link #replay(long, int)}.
+   *
+   * @return the current spool file position or {@code -1} if not writing directly to a spool file
+   * @throws IOException if the position could not be determined
+   */
+  long spoolPosition() throws IOException {
+    if (out instanceof OutputSink.SpoolFile) {
+      return ((OutputSink.SpoolFile) out).getChannel().position();
+    }
+    return -1;
+  }
+
+  /**
+   * Appends the output written to the spool file since the given position the given number of
+   * times. The output is copied within the file by {@link FileChannel#transferTo}, so it neither
+   * passes through the Java heap nor has to be kept in memory.
+   *
+   * @param start the spool file position returned by {@link #spoolPosition()}
+   * @param times the number of times the output is appended
+   * @throws IOException if the output could not be copied
+   */
+  void replay(long start, int times) throws IOException {
+    OutputSink.SpoolFile spoolFile = (OutputSink.SpoolFile) out;
+    FileChannel target = spoolFile.getChannel();
+    long length = target.position() - start;
+    try (FileChannel source = FileChannel.open(spoolFile.path, StandardOpenOption.READ)) {
+      for (int i = 0; i < times; i++) {
+        long copied = 0;
+        while (copied < length) {
+          long transferred = source.transferTo(start + copied, length - copied, target);
+          if (transferred <= 0) {
+            throw new EOFException("Spool file " + spoolFile.path + " has been truncated");
+          }
+          copied += transferred;
+        }
+        written(length);
+      }
+    }
+  }
+
+  /**
+   * Transfers the bytes currently readable from the given channel to the underlying stream. When
+   * writing directly to a file, the bytes are transferred by the file channel without passing the
+   * Java heap, otherwise they are read into the given heap buffer.
+   *
+   * @param source the channel to read from, usually in non-blocking mode
+   * @param buffer the heap buffer used if the bytes can not be transferred directly
+   * @return the number of transferred bytes or {@code -1} at the end of the source
+   * @throws IOException if the bytes could not be transferred
+   */
+  long transferFrom(ReadableByteChannel source, ByteBuffer buffer) throws IOException {
+    if (out instanceof FileOutputStream) {
+      FileChannel channel = ((FileOutputStream) out).getChannel();
+      long position = channel.position();
+      long transferred = channel.transferFrom(source, position, buffer.capacity());
+      if (transferred > 0) {
+        channel.position(position + transferred);
+        written(transferred);
+        return transferred;
+      }
+      // nothing is transferred at the end of the source as well, which only a read can tell
+    }
+    buffer.clear();
+    int read = source.read(buffer);
+    if (read > 0) {
+      write(buffer.array(), buffer.arrayOffset(), read);
+    }
+    return read;
+  }
+
+  private void written(long len) {
+    count += len;
+    unreported += len;
+    if (unreported >= REPORT_CHUNK_SIZE) {
+      report();
+    }
+  }
+
+  private void report() {
+    if (unreported > 0) {
+      consumer.accept(unreported);
+      unreported = 0;
+    }
+  }
+
+  /**
+   * Returns the bytes reported to the consumer so far.
+   *
+   * @return the reported byte count
+   */
+  long reported() {
+    return count - unreported;
+  }
+
+  /**
+   * Returns the total bytes written.
+   *
+   * @return the written byte count
+   */
+  long count() {
+    return count;
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      super.close();
+    } finally {
+      report();
+    }
+  }
+}
@@ -0,0 +1,201 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018-2026 Patrick Reinhart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.reini.print;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.print.DocFlavor;
+
+/**
+ * Counts the finished jobs of a virtual printer per document flavor. The counters of all supported
+ * flavors are allocated up front in one array and located by the position of the flavor within the
+ * supported flavors, so that recording a job needs neither a lookup structure nor any allocation.
+ * Jobs of other flavors share one additional slot.
+ * <p>
+ * The counters are striped, so that jobs finishing concurrently do not contend on the same memory
+ * location. Their sums are only computed when reading them.
+ */
+final class FlavorCounters {
+  static final String OTHER = "other";
+
+  /**
+   * Number of latency buckets: below 1ms, below 2ms, ... below 2^15ms and everything above.
+   */
+  static final int LATENCY_BUCKETS = 17;
+
+  /*
+   * Positions of the values read using read(int, long[]).
+   */
+  static final int COMPLETED = 0;
+  static final int FAILED = 1;
+  static final int CANCELED = 2;
+  static final int BYTES = 3;
+  static final int QUEUE_NANOS = 4;
+  static final int RENDER_NANOS = 5;
+  static final int LATENCY = 6;
+  static final int VALUES = LATENCY + LATENCY_BUCKETS;
+
+  private final DocFlavor[] flavors;
+  private final String[] names;
+  private final LongAdder[] values;
+
+  /**
+   * Creates the counters for the given flavors.
+   *
+   * @param flavors the flavors supported by the printer
+   */
+  FlavorCounters(DocFlavor[] flavors) {
+    this.flavors = flavors;
+    names = new String[flavors.length + 1];
+    for (int i = 0; i < names.length; i++) {
+      names[i] = i < flavors.length ? flavors[i].toString() : OTHER;
+    }
+    values = new LongAdder[names.length * VALUES];
+    Arrays.setAll(values, i -> new LongAdder());
+  }
+
+  /**
+   * Returns the slot index of the given flavor. The supported flavors are usually passed as the
+   * constants of {@link DocFlavor}, so the identity check succeeds on the first matching element.
+   */
+  private int index(DocFlavor flavor) {
+    if (flavor != null) {
+      for (int i = 0; i < flavors.length; i++) {
+        if (flavors[i] == flavor) {
+          return i;
+        }
+      }
+      for (int i = 0; i < flavors.length; i++) {
+        if (flavors[i].equals(flavor)) {
+          return i;
+        }
+      }
+    }
+    return flavors.length;
+  }
+
+  /**
+   * Returns the latency bucket of the given duration.
+   *
+   * @param nanos the latency in nanoseconds
+   * @return the bucket index
+   */
+  static int bucket(long nanos) {
+    long millis = nanos / 1_000_000;
+    return Math.min(64 - Long.numberOfLeadingZeros(millis), LATENCY_BUCKETS - 1);
+  }
+
+  /**
+   * Records the given finished job.
+   *
+   * @param job the finished job
+   */
+  void record(VirtualDocPrintJob job) {
+    int offset = index(job.flavor()) * VALUES;
+    switch (job.state()) {
+      case COMPLETED:
+        values[offset + COMPLETED].increment();
+        break;
+      case CANCELED:
+        values[offset + CANCELED].increment();
+        break;
+      default:
+        values[offset + FAILED].increment();
+        break;
+    }
+    long queueNanos = job.queueNanos();
+    long renderNanos = job.renderNanos();
+    values[offset + BYTES].add(job.writtenBytes());
+    values[offset + QUEUE_NANOS].add(queueNanos);
+    values[offset + RENDER_NANOS].add(renderNanos);
+    values[offset + LATENCY + bucket(queueNanos + renderNanos)].increment();
+  }
+
+  void reset() {
+    for (LongAdder value : values) {
+      value.reset();
+    }
+  }
+
+  /**
+   * Returns the number of slots, being the number of supported flavors plus one for the other
+   * flavors.
+   *
+   * @return the number of slots
+   */
+  int size() {
+    return names.length;
+  }
+
+  /**
+   * Returns the flavor of the given slot.
+   *
+   * @param slot the slot index
+   * @return the flavor or {@code null} for the slot of the other flavors
+   */
+  DocFlavor flavor(int slot) {
+    return slot < flavors.length ? flavors[slot] : null;
+  }
+
+  /**
+   * Returns the flavor name of the given slot.
+   *
+   * @param slot the slot index
+   * @return the flavor name or {@value #OTHER}
+   */
+  String name(int slot) {
+    return names[slot];
+  }
+
+  /**
+   * Reads the current sums of the counters of the given slot without allocating anything.
+   *
+   * @param slot the slot index
+   * @param values receives the {@value #VALUES} values at the positions defined by the constants
+   */
+  void read(int slot, long[] values) {
+    int offset = slot * VALUES;
+    for (int i = 0; i < VALUES; i++) {
+      values[i] = this.values[offset + i].sum();
+    }
+  }
+
+  /**
+   * Returns the statistics of all supported flavors and the other flavors.
+   *
+   * @return the statistics indexed by the flavor name
+   */
+  Map<String, FlavorStatistics> statistics() {
+    Map<String, FlavorStatistics> statistics = new LinkedHashMap<>();
+    long[] values = new long[VALUES];
+    for (int i = 0; i < names.length; i++) {
+      read(i, values);
+      statistics.put(names[i],
+          new FlavorStatistics(names[i], values[COMPLETED], values[FAILED], values[CANCELED],
+              values[BYTES], values[QUEUE_NANOS], values[RENDER_NANOS],
+              Arrays.copyOfRange(values, LATENCY, VALUES)));
+    }
+    return statistics;
+  }
+}
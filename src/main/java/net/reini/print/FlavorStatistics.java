@@ -0,0 +1,144 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018-2026 Patrick Reinhart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.reini.print;
+
+import javax.management.ConstructorParameters;
+
+/**
+ * Statistics of the finished jobs of one document flavor printed by a virtual printer.
+ */
+public final class FlavorStatistics {
+  private final String flavor;
+  private final long completed;
+  private final long failed;
+  private final long canceled;
+  private final long bytes;
+  private final long queueNanos;
+  private final long renderNanos;
+  private final long[] latencyHistogram;
+
+  /**
+   * Constructor
+   * 
+   * @param flavor the document flavor
+   * @param completed the number of completed jobs
+   * @param failed the number of failed jobs
+   * @param canceled the number of canceled jobs
+   * @param bytes the number of output bytes
+   * @param queueNanos the total time waiting for the admission in nanoseconds
+   * @param renderNanos the total time printing in nanoseconds
+   * @param latencyHistogram the number of jobs per latency bucket
+   */
+  @ConstructorParameters({"flavor", "completed", "failed", "canceled", "bytes", "queueNanos",
+      "renderNanos", "latencyHistogram"})
+  public FlavorStatistics(String flavor, long completed, long failed, long canceled, long bytes,
+      long queueNanos, long renderNanos, long[] latencyHistogram) {
+    this.flavor = flavor;
+    this.completed = completed;
+    this.failed = failed;
+    this.canceled = canceled;
+    this.bytes = bytes;
+    this.queueNanos = queueNanos;
+    this.renderNanos = renderNanos;
+    this.latencyHistogram = latencyHistogram;
+  }
+
+  /**
+   * Returns the document flavor or {@code other} for all flavors not supported by the printer.
+   * 
+   * @return the document flavor
+   */
+  public String getFlavor() {
+    return flavor;
+  }
+
+  /**
+   * Returns the number of completed jobs.
+   * 
+   * @return the completed jobs
+   */
+  public long getCompleted() {
+    return completed;
+  }
+
+  /**
+   * Returns the number of failed jobs.
+   * 
+   * @return the failed jobs
+   */
+  public long getFailed() {
+    return failed;
+  }
+
+  /**
+   * Returns the number of canceled jobs.
+   * 
+   * @return the canceled jobs
+   */
+  public long getCanceled() {
+    return canceled;
+  }
+
+  /**
+   * Returns the number of output bytes.
+   * 
+   * @return the output bytes
+   */
+  public long getBytes() {
+    return bytes;
+  }
+
+  /**
+   * Returns the total time the jobs were waiting for the admission.
+   * 
+   * @return the queue time in nanoseconds
+   */
+  public long getQueueNanos() {
+    return queueNanos;
+  }
+
+  /**
+   * Returns the total time the jobs were printing.
+   * 
+   * @return the render time in nanoseconds
+   */
+  public long getRenderNanos() {
+    return renderNanos;
+  }
+
+  /**
+   * Returns the number of jobs per latency bucket, where the latency is the time from the
+   * submission until the job is finished. The first bucket counts the jobs finished within one
+   * millisecond, each following bucket the jobs finished within twice the time of the previous one
+   * and the last bucket all slower jobs.
+   * 
+   * @return the latency histogram
+   */
+  public long[] getLatencyHistogram() {
+    return latencyHistogram.clone();
+  }
+
+  @Override
+  public String toString() {
+    return flavor + ": " + completed + " completed, " + failed + " failed, " + canceled
+        + " canceled, " + bytes + " bytes";
+  }
+}
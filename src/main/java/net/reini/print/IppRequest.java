@@ -0,0 +1,182 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018-2026 Patrick Reinhart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.reini.print;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The header of an IPP/1.1 request as defined by RFC 8010, consisting of the operation and its
+ * attributes. The document data following the attributes is left in the input stream.
+ */
+final class IppRequest {
+  static final int OPERATION_ATTRIBUTES_TAG = 0x01;
+  static final int JOB_ATTRIBUTES_TAG = 0x02;
+  static final int END_OF_ATTRIBUTES_TAG = 0x03;
+  static final int PRINTER_ATTRIBUTES_TAG = 0x04;
+  static final int INTEGER_TAG = 0x21;
+  static final int BOOLEAN_TAG = 0x22;
+  static final int ENUM_TAG = 0x23;
+  static final int TEXT_TAG = 0x41;
+  static final int NAME_TAG = 0x42;
+  static final int KEYWORD_TAG = 0x44;
+  static final int URI_TAG = 0x45;
+  static final int CHARSET_TAG = 0x47;
+  static final int NATURAL_LANGUAGE_TAG = 0x48;
+  static final int MIME_MEDIA_TYPE_TAG = 0x49;
+
+  private static final int MAX_ATTRIBUTES = 1024;
+
+  final int majorVersion;
+  final int minorVersion;
+  final int operation;
+  final int requestId;
+  private final Map<String, List<Object>> attributes;
+
+  private IppRequest(int majorVersion, int minorVersion, int operation, int requestId,
+      Map<String, List<Object>> attributes) {
+    this.majorVersion = majorVersion;
+    this.minorVersion = minorVersion;
+    this.operation = operation;
+    this.requestId = requestId;
+    this.attributes = attributes;
+  }
+
+  /**
+   * Reads the request header up to and including the end of attributes tag.
+   *
+   * @param in the request input stream
+   * @return the request
+   * @throws IOException if the request could not be read or is malformed
+   */
+  static IppRequest read(DataInputStream in) throws IOException {
+    int majorVersion = in.readUnsignedByte();
+    int minorVersion = in.readUnsignedByte();
+    int operation = in.readUnsignedShort();
+    int requestId = in.readInt();
+    Map<String, List<Object>> attributes = new HashMap<>();
+    List<Object> values = null;
+    int count = 0;
+    for (;;) {
+      int tag = in.readUnsignedByte();
+      if (tag == END_OF_ATTRIBUTES_TAG) {
+        break;
+      }
+      if (tag < 0x10) {
+        // the begin of another attribute group, whose attributes are merged
+        continue;
+      }
+      if (++count > MAX_ATTRIBUTES) {
+        throw new IOException("Too many attributes");
+      }
+      String name = new String(readBytes(in), UTF_8);
+      byte[] value = readBytes(in);
+      if (!name.isEmpty()) {
+        values = attributes.computeIfAbsent(name, key -> new ArrayList<>());
+      } else if (values == null) {
+        throw new IOException("Additional value without attribute");
+      }
+      values.add(decode(tag, value));
+    }
+    return new IppRequest(majorVersion, minorVersion, operation, requestId, attributes);
+  }
+
+  private static byte[] readBytes(DataInputStream in) throws IOException {
+    byte[] bytes = new byte[in.readUnsignedShort()];
+    in.readFully(bytes);
+    return bytes;
+  }
+
+  private static Object decode(int tag, byte[] value) throws IOException {
+    switch (tag) {
+      case INTEGER_TAG:
+      case ENUM_TAG:
+        if (value.length != 4) {
+          throw new IOException("Invalid integer value");
+        }
+        return Integer.valueOf((value[0] & 0xFF) << 24 | (value[1] & 0xFF) << 16
+            | (value[2] & 0xFF) << 8 | value[3] & 0xFF);
+      case BOOLEAN_TAG:
+        return Boolean.valueOf(value.length == 1 && value[0] != 0);
+      case TEXT_TAG:
+      case NAME_TAG:
+      case KEYWORD_TAG:
+      case URI_TAG:
+      case CHARSET_TAG:
+      case NATURAL_LANGUAGE_TAG:
+      case MIME_MEDIA_TYPE_TAG:
+        return new String(value, UTF_8);
+      default:
+        return value;
+    }
+  }
+
+  /**
+   * Returns the first string value of the given attribute.
+   *
+   * @param name the attribute name
+   * @return the attribute value or {@code null} if not defined
+   */
+  String string(String name) {
+    List<Object> values = attributes.get(name);
+    if (values != null && values.get(0) instanceof String) {
+      return (String) values.get(0);
+    }
+    return null;
+  }
+
+  /**
+   * Returns all string values of the given attribute.
+   *
+   * @param name the attribute name
+   * @return the attribute values, empty if not defined
+   */
+  List<String> strings(String name) {
+    List<String> strings = new ArrayList<>();
+    for (Object value : attributes.getOrDefault(name, List.of())) {
+      if (value instanceof String) {
+        strings.add((String) value);
+      }
+    }
+    return strings;
+  }
+
+  /**
+   * Returns the first integer value of the given attribute.
+   *
+   * @param name the attribute name
+   * @param defaultValue the value returned if the attribute is not defined
+   * @return the attribute value or the default value
+   */
+  int integer(String name, int defaultValue) {
+    List<Object> values = attributes.get(name);
+    if (values != null && values.get(0) instanceof Integer) {
+      return ((Integer) values.get(0)).intValue();
+    }
+    return defaultValue;
+  }
+}
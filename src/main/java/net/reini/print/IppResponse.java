@@ -0,0 +1,163 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018-2026 Patrick Reinhart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.reini.print;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Set;
+
+/**
+ * Encodes an IPP/1.1 response as defined by RFC 8010. The response starts with the operation
+ * attributes group containing the mandatory charset and natural language attributes.
+ */
+final class IppResponse {
+  private final ByteArrayOutputStream bytes;
+  private final DataOutputStream out;
+  private Set<String> requested;
+
+  /**
+   * Creates a response with the given status.
+   *
+   * @param status the status code
+   * @param requestId the id of the request being answered
+   */
+  IppResponse(int status, int requestId) {
+    bytes = new ByteArrayOutputStream(256);
+    out = new DataOutputStream(bytes);
+    try {
+      out.writeShort(0x0101);
+      out.writeShort(status);
+      out.writeInt(requestId);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    group(IppRequest.OPERATION_ATTRIBUTES_TAG);
+    string(IppRequest.CHARSET_TAG, "attributes-charset", "utf-8");
+    string(IppRequest.NATURAL_LANGUAGE_TAG, "attributes-natural-language", "en");
+  }
+
+  /**
+   * Starts a new attribute group, containing only the given requested attributes.
+   *
+   * @param tag the group tag
+   * @param requestedAttributes the names of the attributes to be contained or {@code null} for
+   *        all attributes
+   * @return this response
+   */
+  IppResponse group(int tag, Set<String> requestedAttributes) {
+    group(tag);
+    requested = requestedAttributes;
+    return this;
+  }
+
+  /**
+   * Starts a new attribute group.
+   *
+   * @param tag the group tag
+   * @return this response
+   */
+  IppResponse group(int tag) {
+    bytes.write(tag);
+    requested = null;
+    return this;
+  }
+
+  /**
+   * Adds a string attribute.
+   *
+   * @param tag the value tag
+   * @param name the attribute name
+   * @param values the attribute values
+   * @return this response
+   */
+  IppResponse string(int tag, String name, String... values) {
+    if (isRequested(name)) {
+      for (int i = 0; i < values.length; i++) {
+        value(tag, i == 0 ? name : "", values[i].getBytes(UTF_8));
+      }
+    }
+    return this;
+  }
+
+  /**
+   * Adds an integer or enum attribute.
+   *
+   * @param tag the value tag
+   * @param name the attribute name
+   * @param values the attribute values
+   * @return this response
+   */
+  IppResponse integer(int tag, String name, int... values) {
+    if (isRequested(name)) {
+      for (int i = 0; i < values.length; i++) {
+        int value = values[i];
+        value(tag, i == 0 ? name : "", new byte[] {(byte) (value >>> 24), (byte) (value >>> 16),
+            (byte) (value >>> 8), (byte) value});
+      }
+    }
+    return this;
+  }
+
+  /**
+   * Adds a boolean attribute.
+   *
+   * @param name the attribute name
+   * @param value the attribute value
+   * @return this response
+   */
+  IppResponse bool(String name, boolean value) {
+    if (isRequested(name)) {
+      value(IppRequest.BOOLEAN_TAG, name, new byte[] {(byte) (value ? 1 : 0)});
+    }
+    return this;
+  }
+
+  private boolean isRequested(String name) {
+    return requested == null || requested.contains(name);
+  }
+
+  private void value(int tag, String name, byte[] value) {
+    try {
+      byte[] nameBytes = name.getBytes(UTF_8);
+      out.write(tag);
+      out.writeShort(nameBytes.length);
+      out.write(nameBytes);
+      out.writeShort(Math.min(value.length, 0xFFFF));
+      out.write(value, 0, Math.min(value.length, 0xFFFF));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Ends the attributes and returns the encoded response.
+   *
+   * @return the encoded response
+   */
+  byte[] toByteArray() {
+    bytes.write(IppRequest.END_OF_ATTRIBUTES_TAG);
+    return bytes.toByteArray();
+  }
+}
@@ -0,0 +1,374 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018-2026 Patrick Reinhart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.reini.print;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import javax.print.DocFlavor;
+import javax.print.PrintException;
+import javax.print.PrintService;
+import javax.print.SimpleDoc;
+import javax.print.attribute.HashPrintRequestAttributeSet;
+import javax.print.attribute.PrintRequestAttributeSet;
+import javax.print.attribute.PrintServiceAttributeSet;
+import javax.print.attribute.standard.JobName;
+import javax.print.attribute.standard.PrinterIsAcceptingJobs;
+import javax.print.attribute.standard.PrinterState;
+import javax.print.attribute.standard.QueuedJobCount;
+import javax.print.attribute.standard.RequestingUserName;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Exposes the virtual printers as IPP/1.1 printers at {@code ipp://<host>:<port>/printers/<name>}
+ * for clients not running in the JVM. The server supports the Print-Job, Get-Jobs and
+ * Get-Printer-Attributes operations, passing the document data of Print-Job requests unchanged
+ * from the request body to the sink of the printer.
+ * <p>
+ * Each exchange is handled by its own virtual thread, so that a large number of concurrent clients
+ * does not need a large number of platform threads.
+ */
+final class IppServer implements Closeable {
+  private static final Logger LOG = Logger.getLogger(IppServer.class.getName());
+
+  static final String PROPERTY = "net.reini.print.ipp";
+  static final String CONTEXT = "/printers/";
+  static final String CONTENT_TYPE = "application/ipp";
+  static final int BACKLOG = 1024;
+
+  static final int PRINT_JOB = 0x0002;
+  static final int GET_JOBS = 0x000A;
+  static final int GET_PRINTER_ATTRIBUTES = 0x000B;
+
+  static final int SUCCESSFUL_OK = 0x0000;
+  static final int CLIENT_ERROR_BAD_REQUEST = 0x0400;
+  static final int CLIENT_ERROR_NOT_FOUND = 0x0406;
+  static final int CLIENT_ERROR_DOCUMENT_FORMAT_NOT_SUPPORTED = 0x040A;
+  static final int SERVER_ERROR_INTERNAL_ERROR = 0x0500;
+  static final int SERVER_ERROR_OPERATION_NOT_SUPPORTED = 0x0501;
+  static final int SERVER_ERROR_VERSION_NOT_SUPPORTED = 0x0503;
+  static final int SERVER_ERROR_NOT_ACCEPTING_JOBS = 0x0506;
+
+  private static final String DEFAULT_FORMAT = DocFlavor.INPUT_STREAM.AUTOSENSE.getMimeType();
+
+  private final Function<String, PrintService> printServices;
+  private final ExecutorService executor;
+  private final HttpServer server;
+  private final long startMillis;
+
+  /**
+   * Creates and starts a server for the printers returned by the given lookup function.
+   *
+   * @param printServices returns the print service of a printer name or {@code null}
+   * @param address the local address to bind to
+   * @throws IOException if the server could not be bound
+   */
+  IppServer(Function<String, PrintService> printServices, InetSocketAddress address)
+      throws IOException {
+    this.printServices = printServices;
+    executor = Executors.newVirtualThreadPerTaskExecutor();
+    server = HttpServer.create(address, BACKLOG);
+    server.setExecutor(executor);
+    server.createContext(CONTEXT, this::handle);
+    startMillis = System.currentTimeMillis();
+    // the dispatcher thread inherits the daemon state of the starting thread
+    Thread starter = new Thread(server::start, "virtual-printer-ipp-start");
+    starter.setDaemon(true);
+    starter.start();
+    try {
+      starter.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Returns the server defined by the {@value #PROPERTY} system property, being either a port or
+   * a host and port separated by a colon. A port only binds to the loopback address.
+   *
+   * @param printServices returns the print service of a printer name or {@code null}
+   * @return the started server or {@code null} if not or wrongly defined
+   */
+  static IppServer fromSystemProperty(Function<String, PrintService> printServices) {
+    String value = System.getProperty(PROPERTY);
+    if (value == null || value.isBlank()) {
+      return null;
+    }
+    try {
+      int separator = value.lastIndexOf(':');
+      InetSocketAddress address = separator < 0
+          ? new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(value.trim()))
+          : new InetSocketAddress(value.substring(0, separator).trim(),
+              Integer.parseInt(value.substring(separator + 1).trim()));
+      IppServer ippServer = new IppServer(printServices, address);
+      LOG.log(Level.INFO, () -> "Serving virtual printers using IPP at " + ippServer.address());
+      return ippServer;
+    } catch (IOException | RuntimeException e) {
+      LOG.log(Level.SEVERE, e, () -> "Unable to start IPP server at " + value);
+      return null;
+    }
+  }
+
+  /**
+   * Returns the address the server is bound to.
+   *
+   * @return the bound address
+   */
+  InetSocketAddress address() {
+    return server.getAddress();
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.shutdown();
+    try {
+      executor.awaitTermination(1, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try (exchange) {
+      if (!"POST".equals(exchange.getRequestMethod())) {
+        exchange.getResponseHeaders().set("Allow", "POST");
+        exchange.sendResponseHeaders(405, -1);
+        return;
+      }
+      String printerName = exchange.getRequestURI().getPath().substring(CONTEXT.length());
+      PrintService printService = printServices.apply(printerName);
+      DataInputStream in =
+          new DataInputStream(new BufferedInputStream(exchange.getRequestBody(), 8192));
+      IppRequest request;
+      try {
+        request = IppRequest.read(in);
+      } catch (IOException e) {
+        exchange.sendResponseHeaders(400, -1);
+        return;
+      }
+      String printerUri = "ipp://" + host(exchange) + CONTEXT
+          + URLEncoder.encode(printerName, StandardCharsets.UTF_8).replace("+", "%20");
+      IppResponse response;
+      if (request.majorVersion != 1 && request.majorVersion != 2) {
+        response = status(SERVER_ERROR_VERSION_NOT_SUPPORTED, request, "IPP/1.1 required");
+      } else if (!(printService instanceof VirtualPrintService)) {
+        response = status(CLIENT_ERROR_NOT_FOUND, request, "No such printer: " + printerName);
+      } else {
+        response = process((VirtualPrintService) printService, printerUri, request, in);
+      }
+      byte[] body = response.toByteArray();
+      exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+      exchange.sendResponseHeaders(200, body.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(body);
+      }
+    } catch (IOException | RuntimeException e) {
+      LOG.log(Level.FINE, "IPP request failed", e);
+      throw e;
+    }
+  }
+
+  private static String host(HttpExchange exchange) {
+    String host = exchange.getRequestHeaders().getFirst("Host");
+    if (host != null && !host.isBlank()) {
+      return host;
+    }
+    InetSocketAddress address = exchange.getLocalAddress();
+    return address.getHostString() + ":" + address.getPort();
+  }
+
+  private static IppResponse status(int status, IppRequest request, String message) {
+    return new IppResponse(status, request.requestId).string(IppRequest.TEXT_TAG,
+        "status-message", message);
+  }
+
+  IppResponse process(VirtualPrintService printService, String printerUri, IppRequest request,
+      DataInputStream in) {
+    switch (request.operation) {
+      case PRINT_JOB:
+        return printJob(printService, printerUri, request, in);
+      case GET_JOBS:
+        return getJobs(printService, printerUri, request);
+      case GET_PRINTER_ATTRIBUTES:
+        return getPrinterAttributes(printService, printerUri, request);
+      default:
+        return status(SERVER_ERROR_OPERATION_NOT_SUPPORTED, request,
+            "Unsupported operation: " + request.operation);
+    }
+  }
+
+  private static IppResponse printJob(VirtualPrintService printService, String printerUri,
+      IppRequest request, DataInputStream in) {
+    String format = request.string("document-format");
+    DocFlavor flavor;
+    try {
+      flavor = new DocFlavor.INPUT_STREAM(format == null ? DEFAULT_FORMAT : format);
+    } catch (IllegalArgumentException e) {
+      return status(CLIENT_ERROR_BAD_REQUEST, request, "Invalid document format: " + format);
+    }
+    if (!printService.isDocFlavorSupported(flavor)) {
+      return status(CLIENT_ERROR_DOCUMENT_FORMAT_NOT_SUPPORTED, request,
+          "Unsupported document format: " + flavor.getMimeType());
+    }
+    PrintRequestAttributeSet attributes = new HashPrintRequestAttributeSet();
+    String jobName = request.string("job-name");
+    if (jobName != null) {
+      attributes.add(new JobName(jobName, null));
+    }
+    String userName = request.string("requesting-user-name");
+    if (userName != null) {
+      attributes.add(new RequestingUserName(userName, null));
+    }
+    VirtualDocPrintJob job = (VirtualDocPrintJob) printService.createPrintJob();
+    IppResponse response;
+    try {
+      job.print(new SimpleDoc(in, flavor, null), attributes);
+      response = new IppResponse(SUCCESSFUL_OK, request.requestId);
+    } catch (PrintException e) {
+      response = status(printService.isAcceptingJobs() ? SERVER_ERROR_INTERNAL_ERROR
+          : SERVER_ERROR_NOT_ACCEPTING_JOBS, request, String.valueOf(e.getMessage()));
+    }
+    return response.group(IppRequest.JOB_ATTRIBUTES_TAG)
+        .string(IppRequest.URI_TAG, "job-uri", printerUri + "/jobs/" + job.id())
+        .integer(IppRequest.INTEGER_TAG, "job-id", (int) job.id())
+        .integer(IppRequest.ENUM_TAG, "job-state", jobState(job.state()))
+        .string(IppRequest.KEYWORD_TAG, "job-state-reasons", "none");
+  }
+
+  private IppResponse getJobs(VirtualPrintService printService, String printerUri,
+      IppRequest request) {
+    String whichJobs = request.string("which-jobs");
+    int limit = request.integer("limit", Integer.MAX_VALUE);
+    IppResponse response = new IppResponse(SUCCESSFUL_OK, request.requestId);
+    if (!"completed".equals(whichJobs)) {
+      // jobs are printed synchronously, so that only finished jobs are known
+      return response;
+    }
+    Set<String> requested = requested(request, Set.of("job-id", "job-uri"));
+    int count = 0;
+    List<JobRecord> jobs = List.copyOf(printService.getJobHistory().values());
+    for (int i = jobs.size() - 1; i >= 0 && count < limit; i--, count++) {
+      JobRecord job = jobs.get(i);
+      response.group(IppRequest.JOB_ATTRIBUTES_TAG, requested)
+          .string(IppRequest.URI_TAG, "job-uri", printerUri + "/jobs/" + job.getId())
+          .integer(IppRequest.INTEGER_TAG, "job-id", (int) job.getId())
+          .string(IppRequest.NAME_TAG, "job-name", String.valueOf(job.getName()))
+          .string(IppRequest.NAME_TAG, "job-originating-user-name", String.valueOf(job.getUser()))
+          .integer(IppRequest.ENUM_TAG, "job-state",
+              jobState(VirtualDocPrintJob.State.valueOf(job.getOutcome())))
+          .integer(IppRequest.INTEGER_TAG, "job-k-octets",
+              (int) Math.min(Integer.MAX_VALUE, (job.getBytes() + 1023) / 1024))
+          .integer(IppRequest.INTEGER_TAG, "time-at-completed",
+              (int) ((job.getFinished() - startMillis) / 1000));
+    }
+    return response;
+  }
+
+  private IppResponse getPrinterAttributes(VirtualPrintService printService, String printerUri,
+      IppRequest request) {
+    PrintServiceAttributeSet attributes = printService.getAttributes();
+    PrinterState printerState = (PrinterState) attributes.get(PrinterState.class);
+    QueuedJobCount queuedJobCount = (QueuedJobCount) attributes.get(QueuedJobCount.class);
+    boolean accepting =
+        attributes.get(PrinterIsAcceptingJobs.class) == PrinterIsAcceptingJobs.ACCEPTING_JOBS;
+    return new IppResponse(SUCCESSFUL_OK, request.requestId)
+        .group(IppRequest.PRINTER_ATTRIBUTES_TAG, requested(request, null))
+        .string(IppRequest.URI_TAG, "printer-uri-supported", printerUri)
+        .string(IppRequest.KEYWORD_TAG, "uri-security-supported", "none")
+        .string(IppRequest.KEYWORD_TAG, "uri-authentication-supported", "none")
+        .string(IppRequest.NAME_TAG, "printer-name", printService.getName())
+        .integer(IppRequest.ENUM_TAG, "printer-state", printerState.getValue())
+        .string(IppRequest.KEYWORD_TAG, "printer-state-reasons", accepting ? "none" : "paused")
+        .bool("printer-is-accepting-jobs", accepting)
+        .integer(IppRequest.INTEGER_TAG, "queued-job-count", queuedJobCount.getValue())
+        .string(IppRequest.KEYWORD_TAG, "ipp-versions-supported", "1.0", "1.1")
+        .integer(IppRequest.ENUM_TAG, "operations-supported", PRINT_JOB, GET_JOBS,
+            GET_PRINTER_ATTRIBUTES)
+        .string(IppRequest.CHARSET_TAG, "charset-configured", "utf-8")
+        .string(IppRequest.CHARSET_TAG, "charset-supported", "utf-8")
+        .string(IppRequest.NATURAL_LANGUAGE_TAG, "natural-language-configured", "en")
+        .string(IppRequest.NATURAL_LANGUAGE_TAG, "generated-natural-language-supported", "en")
+        .string(IppRequest.MIME_MEDIA_TYPE_TAG, "document-format-default", DEFAULT_FORMAT)
+        .string(IppRequest.MIME_MEDIA_TYPE_TAG, "document-format-supported",
+            documentFormats(printService))
+        .string(IppRequest.KEYWORD_TAG, "pdl-override-supported", "not-attempted")
+        .string(IppRequest.KEYWORD_TAG, "compression-supported", "none")
+        .integer(IppRequest.INTEGER_TAG, "printer-up-time",
+            (int) ((System.currentTimeMillis() - startMillis) / 1000));
+  }
+
+  private static String[] documentFormats(PrintService printService) {
+    return Stream.of(printService.getSupportedDocFlavors()) //
+        .filter(VirtualDocPrintJob::isRaw) //
+        .map(DocFlavor::getMimeType) //
+        .distinct() //
+        .toArray(String[]::new);
+  }
+
+  private static Set<String> requested(IppRequest request, Set<String> defaults) {
+    List<String> names = request.strings("requested-attributes");
+    if (names.isEmpty()) {
+      return defaults;
+    }
+    if (names.contains("all")) {
+      return null;
+    }
+    return new HashSet<>(names);
+  }
+
+  /**
+   * Returns the IPP job state of the given job state.
+   */
+  static int jobState(VirtualDocPrintJob.State state) {
+    switch (state) {
+      case PRINTING:
+        return 5;
+      case COMPLETED:
+        return 9;
+      case FAILED:
+        return 8;
+      case CANCELED:
+        return 7;
+      default:
+        return 3;
+    }
+  }
+}
@@ -0,0 +1,187 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018-2026 Patrick Reinhart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.reini.print;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Locale;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.print.DocFlavor;
+
+/**
+ * Keeps the records of the most recently finished jobs of one printer in a fixed size ring.
+ * <p>
+ * Recording a job claims the next sequence number and writes the job data into a preallocated
+ * slot without taking a lock or allocating memory. Each slot is guarded by a version, being odd
+ * while the slot is written, so that readers can detect and skip slots being overwritten
+ * concurrently.
+ */
+final class JobHistory {
+  private static final VarHandle VERSION;
+
+  static {
+    try {
+      VERSION = MethodHandles.lookup().findVarHandle(Slot.class, "version", long.class);
+    } catch (ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  static final class Slot {
+    volatile long version; // updated using the VERSION var handle
+    long id;
+    String name;
+    String user;
+    DocFlavor flavor;
+    long bytes;
+    int pages;
+    long queueNanos;
+    long renderNanos;
+    VirtualDocPrintJob.State outcome;
+    long finished;
+  }
+
+  private final Slot[] slots;
+  private final int mask;
+  private final AtomicLong sequence;
+
+  /**
+   * Creates a job history keeping at least the given number of jobs, the size is rounded up to the
+   * next power of two.
+   *
+   * @param size the minimal number of jobs to be kept
+   */
+  JobHistory(int size) {
+    int capacity = size <= 1 ? size : Integer.highestOneBit(size - 1) << 1;
+    slots = new Slot[capacity];
+    for (int i = 0; i < capacity; i++) {
+      slots[i] = new Slot();
+    }
+    mask = capacity - 1;
+    sequence = new AtomicLong();
+  }
+
+  int capacity() {
+    return slots.length;
+  }
+
+  /**
+   * Records the given finished job, overwriting the oldest record if the history is full.
+   *
+   * @param job the finished job
+   */
+  void record(VirtualDocPrintJob job) {
+    if (slots.length == 0) {
+      return;
+    }
+    long ticket = sequence.getAndIncrement();
+    Slot slot = slots[(int) (ticket & mask)];
+    long writing = 2 * ticket + 1;
+    for (;;) {
+      long version = slot.version;
+      if (version >= writing) {
+        // a newer job has already been recorded in the slot
+        return;
+      }
+      if ((version & 1) == 0 && VERSION.compareAndSet(slot, version, writing)) {
+        break;
+      }
+      Thread.onSpinWait();
+    }
+    slot.id = job.id();
+    slot.name = job.jobName();
+    slot.user = job.userName();
+    slot.flavor = job.flavor();
+    slot.bytes = job.writtenBytes();
+    slot.pages = job.renderedPages();
+    slot.queueNanos = job.queueNanos();
+    slot.renderNanos = job.renderNanos();
+    slot.outcome = job.state();
+    slot.finished = System.currentTimeMillis();
+    VERSION.setRelease(slot, writing + 1);
+  }
+
+  /**
+   * Returns the recorded jobs matching the given filters.
+   *
+   * @param outcome the final state of the jobs or {@code null} for all jobs
+   * @param from the earliest finish time in milliseconds since the epoch or {@code 0}
+   * @param until the latest finish time in milliseconds since the epoch or {@code 0}
+   * @return the matching jobs indexed by their sequence number
+   */
+  SortedMap<Long, JobRecord> jobs(VirtualDocPrintJob.State outcome, long from, long until) {
+    SortedMap<Long, JobRecord> jobs = new TreeMap<>();
+    long last = sequence.get();
+    for (long ticket = Math.max(0, last - slots.length); ticket < last; ticket++) {
+      Slot slot = slots[(int) (ticket & mask)];
+      long version = (long) VERSION.getAcquire(slot);
+      if (version != 2 * ticket + 2) {
+        // not yet written or already overwritten
+        continue;
+      }
+      long id = slot.id;
+      String name = slot.name;
+      String user = slot.user;
+      DocFlavor flavor = slot.flavor;
+      long bytes = slot.bytes;
+      int pages = slot.pages;
+      long queueNanos = slot.queueNanos;
+      long renderNanos = slot.renderNanos;
+      VirtualDocPrintJob.State state = slot.outcome;
+      long finished = slot.finished;
+      VarHandle.acquireFence();
+      if (slot.version != version || (outcome != null && outcome != state)
+          || (from > 0 && finished < from) || (until > 0 && finished > until)) {
+        continue;
+      }
+      jobs.put(Long.valueOf(ticket),
+          new JobRecord(id, name, user, flavor == null ? null : flavor.toString(), bytes, pages,
+              queueNanos, renderNanos, state.name(), finished));
+    }
+    return jobs;
+  }
+
+  /**
+   * Parses the given job outcome filter.
+   *
+   * @param outcome the name of the final job state, or {@code null} or empty for all jobs
+   * @return the job state or {@code null} for all jobs
+   * @throws IllegalArgumentException if the outcome is no final job state
+   */
+  static VirtualDocPrintJob.State outcome(String outcome) {
+    if (outcome == null || outcome.isBlank()) {
+      return null;
+    }
+    VirtualDocPrintJob.State state =
+        VirtualDocPrintJob.State.valueOf(outcome.trim().toUpperCase(Locale.ROOT));
+    switch (state) {
+      case COMPLETED:
+      case FAILED:
+      case CANCELED:
+        return state;
+      default:
+        throw new IllegalArgumentException("Not a final job state: " + outcome);
+    }
+  }
+}
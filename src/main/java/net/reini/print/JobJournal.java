@@ -0,0 +1,274 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018-2026 Patrick Reinhart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.reini.print;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import javax.print.event.PrintJobAdapter;
+import javax.print.event.PrintJobEvent;
+
+/**
+ * Appends the life cycle events of the print jobs as fixed size binary records to memory-mapped
+ * journal segment files.
+ * <p>
+ * Each segment starts with a header record, followed by records of {@value #RECORD_SIZE} bytes:
+ *
+ * <pre>
+ *  0  int   event, the ordinal of the job state plus one, written last
+ *  4  int   length of the printer name bytes
+ *  8  long  event time in milliseconds since the epoch
+ * 16  long  job id
+ * 24  long  written bytes
+ * 32  long  queue and render time in nanoseconds
+ * 40  byte  up to 24 bytes of the UTF-8 encoded printer name
+ * </pre>
+ *
+ * Appending claims the next record slot of the current segment without taking a lock, writes the
+ * record data and publishes it by writing its event. A new segment is created once the current
+ * one is full, removing the oldest segments exceeding the maximum number of segments. The records
+ * survive a crash of the JVM, as they are kept by the operating system page cache.
+ */
+final class JobJournal {
+  private static final Logger LOG = Logger.getLogger(JobJournal.class.getName());
+  private static final VarHandle EVENT =
+      MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+  static final String PROPERTY = "net.reini.print.journal";
+  static final String SEGMENT_SIZE_PROPERTY = PROPERTY + ".segmentSize";
+  static final String SEGMENTS_PROPERTY = PROPERTY + ".segments";
+  static final long MAGIC = 0x4C4E524A5350564EL; // NVPSJRNL
+  static final int RECORD_SIZE = 64;
+  static final int NAME_SIZE = 24;
+  static final String SUFFIX = ".journal";
+  static final long DEFAULT_SEGMENT_SIZE = 16L << 20;
+  static final int DEFAULT_SEGMENTS = 8;
+
+  private final Path directory;
+  private final long segmentSize;
+  private final int maxSegments;
+  private final Map<String, byte[]> printerNames;
+  private final PrintJobAdapter jobListener;
+
+  private volatile Segment current;
+
+  /**
+   * A mapped journal segment, whose record slots are claimed using its position.
+   */
+  private static final class Segment {
+    final long sequence;
+    final MappedByteBuffer buffer;
+    final AtomicLong position;
+
+    Segment(long sequence, MappedByteBuffer buffer) {
+      this.sequence = sequence;
+      this.buffer = buffer;
+      this.position = new AtomicLong(RECORD_SIZE);
+    }
+  }
+
+  /**
+   * Creates a journal writing segments of the given size into the given directory. Existing
+   * segments are kept and new records are appended to a new segment.
+   *
+   * @param directory the journal directory, created if needed
+   * @param segmentSize the size of one segment in bytes
+   * @param maxSegments the maximum number of segments kept
+   * @throws IOException if the first segment could not be created
+   */
+  JobJournal(Path directory, long segmentSize, int maxSegments) throws IOException {
+    if (segmentSize < 2 * RECORD_SIZE || segmentSize > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Invalid journal segment size: " + segmentSize);
+    }
+    if (maxSegments < 1) {
+      throw new IllegalArgumentException("Invalid number of journal segments: " + maxSegments);
+    }
+    this.directory = Files.createDirectories(directory);
+    this.segmentSize = segmentSize - segmentSize % RECORD_SIZE;
+    this.maxSegments = maxSegments;
+    printerNames = new ConcurrentHashMap<>();
+    jobListener = new PrintJobAdapter() {
+      @Override
+      public void printJobNoMoreEvents(PrintJobEvent pje) {
+        VirtualDocPrintJob job = (VirtualDocPrintJob) pje.getPrintJob();
+        append(job, job.writtenBytes(), job.queueNanos() + job.renderNanos());
+      }
+    };
+    List<Path> segments = segments(directory);
+    current = newSegment(segments.isEmpty() ? 1 : sequence(segments.get(segments.size() - 1)) + 1);
+  }
+
+  /**
+   * Returns the journal defined by the {@value #PROPERTY} system property.
+   *
+   * @return the journal or {@code null} if not or wrongly defined
+   */
+  static JobJournal fromSystemProperties() {
+    String directory = System.getProperty(PROPERTY);
+    if (directory == null || directory.isBlank()) {
+      return null;
+    }
+    try {
+      String segmentSize = System.getProperty(SEGMENT_SIZE_PROPERTY);
+      String segments = System.getProperty(SEGMENTS_PROPERTY);
+      return new JobJournal(Path.of(directory.trim()),
+          segmentSize == null ? DEFAULT_SEGMENT_SIZE : PrinterConfiguration.parseSize(segmentSize),
+          segments == null ? DEFAULT_SEGMENTS : Integer.parseInt(segments.trim()));
+    } catch (IOException | RuntimeException e) {
+      LOG.log(Level.SEVERE, e, () -> "Unable to open job journal " + directory);
+      return null;
+    }
+  }
+
+  /**
+   * Records the creation of the given job and its final state, once the job is finished.
+   *
+   * @param job the created job
+   */
+  void jobCreated(VirtualDocPrintJob job) {
+    append(job, 0, 0);
+    job.addPrintJobListener(jobListener);
+  }
+
+  private void append(VirtualDocPrintJob job, long bytes, long nanos) {
+    byte[] printerName =
+        printerNames.computeIfAbsent(job.getPrintService().getName(), JobJournal::encode);
+    long time = System.currentTimeMillis();
+    for (;;) {
+      Segment segment = current;
+      long position = segment.position.getAndAdd(RECORD_SIZE);
+      if (position < segmentSize) {
+        int offset = (int) position;
+        ByteBuffer buffer = segment.buffer;
+        buffer.putInt(offset + 4, printerName.length);
+        buffer.putLong(offset + 8, time);
+        buffer.putLong(offset + 16, job.id());
+        buffer.putLong(offset + 24, bytes);
+        buffer.putLong(offset + 32, nanos);
+        buffer.put(offset + 40, printerName);
+        EVENT.setRelease(buffer, offset, job.state().ordinal() + 1);
+        return;
+      }
+      if (!rotate(segment)) {
+        return;
+      }
+    }
+  }
+
+  private static byte[] encode(String printerName) {
+    byte[] bytes = printerName.getBytes(UTF_8);
+    int length = Math.min(bytes.length, NAME_SIZE);
+    // do not cut a multi byte character
+    while (length < bytes.length && (bytes[length] & 0xC0) == 0x80) {
+      length--;
+    }
+    return length == bytes.length ? bytes : Arrays.copyOf(bytes, length);
+  }
+
+  private synchronized boolean rotate(Segment full) {
+    if (current != full) {
+      return true;
+    }
+    try {
+      current = newSegment(full.sequence + 1);
+      return true;
+    } catch (IOException e) {
+      LOG.log(Level.SEVERE, "Unable to create job journal segment, dropping record", e);
+      return false;
+    }
+  }
+
+  private Segment newSegment(long sequence) throws IOException {
+    Path file = directory.resolve(String.format("%016d%s", Long.valueOf(sequence), SUFFIX));
+    MappedByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+        StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+    }
+    buffer.order(ByteOrder.LITTLE_ENDIAN);
+    buffer.putLong(0, MAGIC);
+    buffer.putInt(8, RECORD_SIZE);
+    List<Path> segments = segments(directory);
+    for (int i = 0; i < segments.size() - maxSegments; i++) {
+      Path segment = segments.get(i);
+      try {
+        Files.deleteIfExists(segment);
+      } catch (IOException e) {
+        LOG.log(Level.WARNING, e, () -> "Unable to remove job journal segment " + segment);
+      }
+    }
+    return new Segment(sequence, buffer);
+  }
+
+  /**
+   * Flushes the records of the current segment to the storage device.
+   */
+  void flush() {
+    current.buffer.force();
+  }
+
+  /**
+   * Returns the segment files of the given journal directory in the order they have been written.
+   *
+   * @param directory the journal directory
+   * @return the segment files
+   * @throws IOException if the directory could not be read
+   */
+  static List<Path> segments(Path directory) throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      List<Path> segments = new ArrayList<>();
+      files.filter(file -> file.getFileName().toString().endsWith(SUFFIX)).sorted()
+          .forEach(segments::add);
+      return segments;
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  private static long sequence(Path segment) {
+    String fileName = segment.getFileName().toString();
+    try {
+      return Long.parseLong(fileName.substring(0, fileName.length() - SUFFIX.length()));
+    } catch (NumberFormatException e) {
+      return 0;
+    }
+  }
+}
@@ -0,0 +1,202 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018-2026 Patrick Reinhart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.reini.print;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Reads the records of a job journal written by {@link JobJournal}, either once or by following
+ * the journal while new records are appended.
+ * <p>
+ * Usage: {@code java net.reini.print.JobJournalReader [-f] <directory>}
+ */
+final class JobJournalReader {
+  private static final VarHandle EVENT =
+      MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+  private static final VirtualDocPrintJob.State[] EVENTS = VirtualDocPrintJob.State.values();
+  private static final long POLL_MILLIS = 100;
+
+  private final Path directory;
+
+  /**
+   * A journal record.
+   */
+  static final class Entry {
+    final VirtualDocPrintJob.State event;
+    final String printerName;
+    final long time;
+    final long jobId;
+    final long bytes;
+    final long nanos;
+
+    Entry(VirtualDocPrintJob.State event, String printerName, long time, long jobId, long bytes,
+        long nanos) {
+      this.event = event;
+      this.printerName = printerName;
+      this.time = time;
+      this.jobId = jobId;
+      this.bytes = bytes;
+      this.nanos = nanos;
+    }
+
+    @Override
+    public String toString() {
+      return Instant.ofEpochMilli(time) + " " + event + " printer=" + printerName + " job=" + jobId
+          + " bytes=" + bytes + " nanos=" + nanos;
+    }
+  }
+
+  JobJournalReader(Path directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * Reads all records currently contained in the journal.
+   *
+   * @param consumer the consumer of the records
+   * @throws IOException if the journal could not be read
+   */
+  void scan(Consumer<Entry> consumer) throws IOException {
+    for (Path segment : JobJournal.segments(directory)) {
+      read(map(segment), JobJournal.RECORD_SIZE, true, consumer);
+    }
+  }
+
+  /**
+   * Reads all records of the journal and waits for new records being appended, until the current
+   * thread is interrupted.
+   *
+   * @param consumer the consumer of the records
+   * @throws IOException if the journal could not be read
+   * @throws InterruptedException if the current thread was interrupted
+   */
+  void follow(Consumer<Entry> consumer) throws IOException, InterruptedException {
+    List<Path> segments = JobJournal.segments(directory);
+    while (segments.isEmpty()) {
+      Thread.sleep(POLL_MILLIS);
+      segments = JobJournal.segments(directory);
+    }
+    for (Path segment : segments.subList(0, segments.size() - 1)) {
+      read(map(segment), JobJournal.RECORD_SIZE, true, consumer);
+    }
+    Path segment = segments.get(segments.size() - 1);
+    ByteBuffer buffer = map(segment);
+    int position = JobJournal.RECORD_SIZE;
+    for (;;) {
+      position = read(buffer, position, false, consumer);
+      Path next = next(segment);
+      if (next != null) {
+        // the writer continues on the next segment, any unwritten slots are left behind
+        read(buffer, position, true, consumer);
+        segment = next;
+        buffer = map(segment);
+        position = JobJournal.RECORD_SIZE;
+      } else {
+        Thread.sleep(POLL_MILLIS);
+      }
+    }
+  }
+
+  private Path next(Path segment) throws IOException {
+    for (Path candidate : JobJournal.segments(directory)) {
+      if (candidate.getFileName().compareTo(segment.getFileName()) > 0) {
+        return candidate;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Reads the records of the given segment starting at the given position.
+   *
+   * @param buffer the mapped segment
+   * @param position the position of the first record to be read
+   * @param skipUnwritten {@code true} to skip unwritten record slots, {@code false} to stop at the
+   *        first unwritten slot
+   * @param consumer the consumer of the records
+   * @return the position of the first unread record
+   */
+  static int read(ByteBuffer buffer, int position, boolean skipUnwritten,
+      Consumer<Entry> consumer) {
+    byte[] name = new byte[JobJournal.NAME_SIZE];
+    for (; position + JobJournal.RECORD_SIZE <= buffer.limit();
+        position += JobJournal.RECORD_SIZE) {
+      int event = (int) EVENT.getAcquire(buffer, position);
+      if (event <= 0 || event > EVENTS.length) {
+        if (skipUnwritten) {
+          continue;
+        }
+        break;
+      }
+      int nameLength = Math.min(buffer.getInt(position + 4), JobJournal.NAME_SIZE);
+      buffer.get(position + 40, name, 0, nameLength);
+      consumer.accept(new Entry(EVENTS[event - 1], new String(name, 0, nameLength, UTF_8),
+          buffer.getLong(position + 8), buffer.getLong(position + 16),
+          buffer.getLong(position + 24), buffer.getLong(position + 32)));
+    }
+    return position;
+  }
+
+  /**
+   * Maps the given journal segment read-only.
+   *
+   * @param segment the segment file
+   * @return the mapped segment
+   * @throws IOException if the segment could not be mapped or is no journal segment
+   */
+  static ByteBuffer map(Path segment) throws IOException {
+    ByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(segment)) {
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    buffer.order(ByteOrder.LITTLE_ENDIAN);
+    if (buffer.limit() < JobJournal.RECORD_SIZE || buffer.getLong(0) != JobJournal.MAGIC
+        || buffer.getInt(8) != JobJournal.RECORD_SIZE) {
+      throw new IOException("Not a job journal segment: " + segment);
+    }
+    return buffer;
+  }
+
+  public static void main(String[] args) throws IOException, InterruptedException {
+    boolean follow = args.length == 2 && "-f".equals(args[0]);
+    if (args.length != (follow ? 2 : 1)) {
+      System.err.println("Usage: JobJournalReader [-f] <directory>");
+      System.exit(2);
+    }
+    JobJournalReader reader = new JobJournalReader(Path.of(args[args.length - 1]));
+    if (follow) {
+      reader.follow(System.out::println);
+    } else {
+      reader.scan(System.out::println);
+    }
+  }
+}
@@ -0,0 +1,165 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018-2026 Patrick Reinhart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.reini.print;
+
+import javax.management.ConstructorParameters;
+
+/**
+ * Record of a finished job kept in the job history of a virtual printer.
+ */
+public final class JobRecord {
+  private final long id;
+  private final String name;
+  private final String user;
+  private final String flavor;
+  private final long bytes;
+  private final int pages;
+  private final long queueNanos;
+  private final long renderNanos;
+  private final String outcome;
+  private final long finished;
+
+  /**
+   * Constructor
+   * 
+   * @param id the job id
+   * @param name the job name
+   * @param user the originating user name
+   * @param flavor the document flavor
+   * @param bytes the number of output bytes
+   * @param pages the number of rendered pages or {@code -1} if unknown
+   * @param queueNanos the time waiting for the admission in nanoseconds
+   * @param renderNanos the time printing in nanoseconds
+   * @param outcome the final job state
+   * @param finished the finish time in milliseconds since the epoch
+   */
+  @ConstructorParameters({"id", "name", "user", "flavor", "bytes", "pages", "queueNanos",
+      "renderNanos", "outcome", "finished"})
+  public JobRecord(long id, String name, String user, String flavor, long bytes, int pages,
+      long queueNanos, long renderNanos, String outcome, long finished) {
+    this.id = id;
+    this.name = name;
+    this.user = user;
+    this.flavor = flavor;
+    this.bytes = bytes;
+    this.pages = pages;
+    this.queueNanos = queueNanos;
+    this.renderNanos = renderNanos;
+    this.outcome = outcome;
+    this.finished = finished;
+  }
+
+  /**
+   * Returns the job id.
+   * 
+   * @return the job id
+   */
+  public long getId() {
+    return id;
+  }
+
+  /**
+   * Returns the job name.
+   * 
+   * @return the job name
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Returns the name of the user having submitted the job.
+   * 
+   * @return the originating user name
+   */
+  public String getUser() {
+    return user;
+  }
+
+  /**
+   * Returns the flavor of the printed document.
+   * 
+   * @return the document flavor or {@code null} if the job has not been printed
+   */
+  public String getFlavor() {
+    return flavor;
+  }
+
+  /**
+   * Returns the number of output bytes written to the sink.
+   * 
+   * @return the output bytes
+   */
+  public long getBytes() {
+    return bytes;
+  }
+
+  /**
+   * Returns the number of rendered pages.
+   * 
+   * @return the rendered pages or {@code -1} if unknown
+   */
+  public int getPages() {
+    return pages;
+  }
+
+  /**
+   * Returns the time the job waited for being admitted to print.
+   * 
+   * @return the queue time in nanoseconds
+   */
+  public long getQueueNanos() {
+    return queueNanos;
+  }
+
+  /**
+   * Returns the time the job was printing.
+   * 
+   * @return the render time in nanoseconds
+   */
+  public long getRenderNanos() {
+    return renderNanos;
+  }
+
+  /**
+   * Returns the final state of the job: {@code COMPLETED}, {@code FAILED} or {@code CANCELED}.
+   * 
+   * @return the job outcome
+   */
+  public String getOutcome() {
+    return outcome;
+  }
+
+  /**
+   * Returns the time the job finished.
+   * 
+   * @return the finish time in milliseconds since the epoch
+   */
+  public long getFinished() {
+    return finished;
+  }
+
+  @Override
+  public String toString() {
+    return "#" + id + " " + name + " (" + user + ", " + flavor + "): " + outcome + ", " + bytes
+        + " bytes, " + pages + " pages, queued " + queueNanos + "ns, printed " + renderNanos + "ns";
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018-2026 Patrick Reinhart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.reini.print;
+
+import java.util.Locale;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Defines how the virtual printers are registered as management beans.
+ */
+enum ManagementMode {
+  /**
+   * Registers a management bean for each printer as soon as it is added.
+   */
+  EAGER,
+  /**
+   * Registers a management bean for a printer when it creates its first print job.
+   */
+  LAZY,
+  /**
+   * Registers no printer management beans, the printer data is only available in aggregated form
+   * through the registry management bean.
+   */
+  AGGREGATE;
+
+  static final String PROPERTY = "net.reini.print.jmx";
+
+  /**
+   * Returns the management mode defined by the {@value #PROPERTY} system property.
+   *
+   * @return the configured mode or {@link #EAGER} if not or wrongly defined
+   */
+  static ManagementMode fromSystemProperty() {
+    String value = System.getProperty(PROPERTY);
+    if (value == null || value.isBlank()) {
+      return EAGER;
+    }
+    try {
+      return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      Logger.getLogger(ManagementMode.class.getName()).log(Level.WARNING,
+          () -> "Invalid management mode '" + value + "', using " + EAGER);
+      return EAGER;
+    }
+  }
+}
@@ -0,0 +1,254 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018-2026 Patrick Reinhart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.reini.print;
+
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Limits the output bytes buffered in memory by the print jobs of all virtual printers. The
+ * memory sinks reserve the bytes before buffering them and release them once the job output is
+ * closed.
+ * <p>
+ * A reservation exceeding the budget either fails or blocks until other jobs release their memory.
+ * Blocking reservations never wait for each other: as soon as all reserved memory is held by
+ * blocked jobs, the job holding the most memory is granted its reservation beyond the budget, so
+ * that one job after the other can complete.
+ */
+final class MemoryBudget {
+  private static final Logger LOG = Logger.getLogger(MemoryBudget.class.getName());
+
+  static final String PROPERTY = "net.reini.print.memoryBudget";
+
+  private final long limit;
+  private final ReentrantLock lock;
+  private final Condition released;
+  private final List<long[]> waiters;
+  private final LongAdder blocked;
+  private final LongAdder spilled;
+  private final LongAdder rejected;
+
+  private long used;
+  private long highWaterMark;
+  private long blockedHeld;
+
+  /**
+   * Creates a memory budget of the given size.
+   *
+   * @param limit the maximum number of buffered bytes or {@code 0} if unlimited
+   */
+  MemoryBudget(long limit) {
+    if (limit < 0) {
+      throw new IllegalArgumentException("memory budget must not be negative");
+    }
+    this.limit = limit;
+    lock = new ReentrantLock(true);
+    released = lock.newCondition();
+    waiters = new ArrayList<>();
+    blocked = new LongAdder();
+    spilled = new LongAdder();
+    rejected = new LongAdder();
+  }
+
+  /**
+   * Returns the memory budget defined by the {@value #PROPERTY} system property, supporting
+   * {@code k}, {@code m} and {@code g} unit suffixes.
+   *
+   * @return the configured budget or an unlimited budget if not or wrongly defined
+   */
+  static MemoryBudget fromSystemProperty() {
+    String value = System.getProperty(PROPERTY);
+    if (value != null && !value.isBlank()) {
+      try {
+        return new MemoryBudget(PrinterConfiguration.parseSize(value));
+      } catch (IllegalArgumentException e) {
+        LOG.log(Level.WARNING, e, () -> "Invalid memory budget " + value);
+      }
+    }
+    return new MemoryBudget(0);
+  }
+
+  private boolean fits(long bytes) {
+    return limit == 0 || used + bytes <= limit;
+  }
+
+  private void reserved(long bytes) {
+    used += bytes;
+    highWaterMark = Math.max(highWaterMark, used);
+  }
+
+  /**
+   * Reserves the given number of bytes, if available without exceeding the budget.
+   *
+   * @param bytes the number of bytes to reserve
+   * @return {@code true} if reserved, {@code false} otherwise
+   */
+  boolean tryReserve(long bytes) {
+    lock.lock();
+    try {
+      if (fits(bytes)) {
+        reserved(bytes);
+        return true;
+      }
+      return false;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Reserves the given number of bytes, waiting until other jobs have released enough memory.
+   *
+   * @param bytes the number of bytes to reserve
+   * @param held the number of bytes already reserved by the calling job
+   * @throws InterruptedIOException if interrupted while waiting
+   */
+  void reserve(long bytes, long held) throws InterruptedIOException {
+    lock.lock();
+    try {
+      if (!fits(bytes)) {
+        long[] waiter = {held};
+        blocked.increment();
+        waiters.add(waiter);
+        blockedHeld += held;
+        released.signalAll();
+        try {
+          while (!fits(bytes) && (used > blockedHeld || !isLargest(waiter))) {
+            released.await();
+          }
+        } finally {
+          waiters.remove(waiter);
+          blockedHeld -= held;
+          released.signalAll();
+        }
+      }
+      reserved(bytes);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for memory");
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Checks if the given waiter holds the most memory of all waiters, being the first of them on
+   * equal amounts.
+   */
+  private boolean isLargest(long[] waiter) {
+    boolean earlier = true;
+    for (long[] other : waiters) {
+      if (other == waiter) {
+        earlier = false;
+      } else if (other[0] > waiter[0] || earlier && other[0] == waiter[0]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Releases the given number of bytes reserved before.
+   *
+   * @param bytes the number of bytes to release
+   */
+  void release(long bytes) {
+    if (bytes == 0) {
+      return;
+    }
+    lock.lock();
+    try {
+      used -= bytes;
+      released.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Records the output of a job having been moved from memory to a file.
+   */
+  void spilled() {
+    spilled.increment();
+  }
+
+  /**
+   * Records the output of a job having been failed, as it exceeded the budget.
+   */
+  void rejected() {
+    rejected.increment();
+  }
+
+  /**
+   * Returns the maximum number of buffered bytes.
+   *
+   * @return the budget size or {@code 0} if unlimited
+   */
+  long limit() {
+    return limit;
+  }
+
+  /**
+   * Returns the number of bytes currently reserved.
+   *
+   * @return the used bytes
+   */
+  long used() {
+    lock.lock();
+    try {
+      return used;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the maximum number of bytes reserved at the same time.
+   *
+   * @return the high-water mark
+   */
+  long highWaterMark() {
+    lock.lock();
+    try {
+      return highWaterMark;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  long blocked() {
+    return blocked.sum();
+  }
+
+  long spilledJobs() {
+    return spilled.sum();
+  }
+
+  long rejectedJobs() {
+    return rejected.sum();
+  }
+}
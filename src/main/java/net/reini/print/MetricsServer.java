@@ -0,0 +1,515 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018-2026 Patrick Reinhart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.reini.print;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.print.DocFlavor;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Serves the counters of the registry and all virtual printers in the Prometheus text format at
+ * {@code http://<host>:<port>/metrics}.
+ * <p>
+ * The scrapes are handled one after the other by the dispatcher thread of the server. Each scrape
+ * encodes the current values into the same growing buffer, using label bytes encoded in advance
+ * for the printers of the current registry snapshot, so that a scrape allocates nothing as long as
+ * the printers do not change. Flavors without any finished job are left out and flavors known by
+ * the {@code flavors} printer setting are labeled by their short name.
+ */
+final class MetricsServer implements Closeable {
+  private static final Logger LOG = Logger.getLogger(MetricsServer.class.getName());
+
+  static final String PROPERTY = "net.reini.print.metrics";
+  static final String CONTEXT = "/metrics";
+  static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+  private static final Family PRINTERS = new Family("printers", "gauge", "Number of printers");
+  private static final Family SNAPSHOT_VERSION =
+      new Family("snapshot_version", "gauge", "Version of the printer snapshot");
+  private static final Family SNAPSHOT_REBUILDS =
+      new Family("snapshot_rebuilds_total", "counter", "Rebuilds of the printer snapshot");
+  private static final Family MEMORY_BUDGET =
+      new Family("memory_budget_bytes", "gauge", "Memory budget, 0 if unlimited");
+  private static final Family MEMORY_USED =
+      new Family("memory_used_bytes", "gauge", "Output bytes buffered in memory");
+  private static final Family MEMORY_HIGH_WATER_MARK = new Family("memory_high_water_mark_bytes",
+      "gauge", "Maximum output bytes buffered in memory");
+  private static final Family MEMORY_BLOCKED =
+      new Family("memory_blocked_total", "counter", "Jobs having waited for memory");
+  private static final Family MEMORY_SPILLED =
+      new Family("memory_spilled_total", "counter", "Jobs having spilled their output to a file");
+  private static final Family MEMORY_REJECTED =
+      new Family("memory_rejected_total", "counter", "Jobs failed for lack of memory");
+  private static final Family USERS_TRACKED =
+      new Family("users_tracked", "gauge", "Users tracked by the user accounting");
+  private static final Family USERS_EVICTED =
+      new Family("users_evicted_total", "counter", "Users dropped by the user accounting");
+  private static final Family ACCEPTING_JOBS =
+      new Family("accepting_jobs", "gauge", "Whether the printer accepts jobs");
+  private static final Family JOBS_RUNNING =
+      new Family("jobs_running", "gauge", "Jobs queued or printing");
+  private static final Family JOBS_COMPLETED =
+      new Family("jobs_completed_total", "counter", "Completed jobs");
+  private static final Family JOBS_FAILED =
+      new Family("jobs_failed_total", "counter", "Failed jobs");
+  private static final Family JOBS_CANCELED =
+      new Family("jobs_canceled_total", "counter", "Canceled jobs");
+  private static final Family JOBS_REJECTED =
+      new Family("jobs_rejected_total", "counter", "Jobs rejected by the admission control");
+  private static final Family SKIPPED_PAGES =
+      new Family("skipped_pages_total", "counter", "Pages outside the requested page ranges");
+  private static final Family RAW_CONNECTIONS =
+      new Family("raw_connections", "gauge", "Open connections of the raw port");
+  private static final Family IDLE_TIMEOUTS =
+      new Family("idle_timeouts_total", "counter", "Raw port connections closed while idle");
+  private static final Family FLAVOR_JOBS =
+      new Family("flavor_jobs_total", "counter", "Finished jobs per flavor and outcome");
+  private static final Family FLAVOR_BYTES =
+      new Family("flavor_output_bytes_total", "counter", "Output bytes per flavor");
+  private static final Family FLAVOR_QUEUE =
+      new Family("flavor_queue_seconds_total", "counter", "Time waiting for admission per flavor");
+  private static final Family FLAVOR_RENDER =
+      new Family("flavor_render_seconds_total", "counter", "Time printing per flavor");
+  private static final Family FLAVOR_LATENCY = new Family("flavor_latency_seconds", "histogram",
+      "Time from the submission until the job is finished per flavor");
+
+  private static final byte[] CLOSE = ascii("} ");
+  private static final byte[] BUCKET = ascii("_bucket{");
+  private static final byte[] SUM = ascii("_sum{");
+  private static final byte[] COUNT = ascii("_count{");
+  private static final byte[][] OUTCOMES =
+      {ascii(",outcome=\"completed\"} "), ascii(",outcome=\"failed\"} "),
+          ascii(",outcome=\"canceled\"} ")};
+  private static final byte[][] LE = new byte[FlavorCounters.LATENCY_BUCKETS][];
+
+  static {
+    for (int i = 0; i < LE.length - 1; i++) {
+      LE[i] = ascii(",le=\"" + BigDecimal.valueOf(1L << i, 3).toPlainString() + "\"} ");
+    }
+    LE[LE.length - 1] = ascii(",le=\"+Inf\"} ");
+  }
+
+  private final VirtualPrinterRegistry registry;
+  private final HttpServer server;
+
+  private long snapshotVersion;
+  private Target[] targets;
+  private byte[] buffer;
+  private int length;
+
+  /**
+   * Encoded help and type lines as well as the name of one metric family.
+   */
+  private static final class Family {
+    final byte[] header;
+    final byte[] name;
+
+    Family(String name, String type, String help) {
+      String metric = "virtual_printer_" + name;
+      header = ascii("# HELP " + metric + ' ' + help + "\n# TYPE " + metric + ' ' + type + '\n');
+      this.name = ascii(metric);
+    }
+  }
+
+  /**
+   * Label bytes and value buffers of one printer, valid for one registry snapshot.
+   */
+  private static final class Target {
+    final VirtualPrintService printService;
+    final byte[] printer;
+    final byte[][] flavors;
+    final long[][] values;
+
+    Target(VirtualPrintService printService) {
+      this.printService = printService;
+      String printer = "printer=\"" + escape(printService.getName()) + '"';
+      this.printer = printer.getBytes(UTF_8);
+      FlavorCounters counters = printService.flavorCounters();
+      flavors = new byte[counters.size()][];
+      values = new long[counters.size()][FlavorCounters.VALUES];
+      for (int i = 0; i < flavors.length; i++) {
+        DocFlavor flavor = counters.flavor(i);
+        String name =
+            flavor == null ? FlavorCounters.OTHER : PrinterConfiguration.flavorName(flavor);
+        flavors[i] = (printer + ",flavor=\"" + escape(name) + '"').getBytes(UTF_8);
+      }
+    }
+  }
+
+  /**
+   * Creates and starts a server for the given registry.
+   *
+   * @param registry the registry of the exported printers
+   * @param address the local address to bind to
+   * @throws IOException if the server could not be bound
+   */
+  MetricsServer(VirtualPrinterRegistry registry, InetSocketAddress address) throws IOException {
+    this.registry = registry;
+    snapshotVersion = -1;
+    targets = new Target[0];
+    buffer = new byte[64 * 1024];
+    server = HttpServer.create(address, 0);
+    server.createContext(CONTEXT, this::handle);
+    // the dispatcher thread inherits the daemon state of the starting thread
+    Thread starter = new Thread(server::start, "virtual-printer-metrics-start");
+    starter.setDaemon(true);
+    starter.start();
+    try {
+      starter.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Returns the server defined by the {@value #PROPERTY} system property, being either a port or
+   * a host and port separated by a colon. A port only binds to the loopback address.
+   *
+   * @param registry the registry of the exported printers
+   * @return the started server or {@code null} if not or wrongly defined
+   */
+  static MetricsServer fromSystemProperty(VirtualPrinterRegistry registry) {
+    String value = System.getProperty(PROPERTY);
+    if (value == null || value.isBlank()) {
+      return null;
+    }
+    try {
+      MetricsServer metricsServer =
+          new MetricsServer(registry, PrinterConfiguration.parseAddress(value));
+      LOG.log(Level.INFO, () -> "Serving metrics at " + metricsServer.address());
+      return metricsServer;
+    } catch (IOException | RuntimeException e) {
+      LOG.log(Level.SEVERE, e, () -> "Unable to start metrics server at " + value);
+      return null;
+    }
+  }
+
+  /**
+   * Returns the address the server is bound to.
+   *
+   * @return the bound address
+   */
+  InetSocketAddress address() {
+    return server.getAddress();
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try (exchange) {
+      String method = exchange.getRequestMethod();
+      if (!"GET".equals(method) && !"HEAD".equals(method)) {
+        exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+        exchange.sendResponseHeaders(405, -1);
+        return;
+      }
+      exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+      if ("HEAD".equals(method)) {
+        exchange.sendResponseHeaders(200, -1);
+        return;
+      }
+      synchronized (this) {
+        int size = scrape();
+        exchange.sendResponseHeaders(200, size);
+        try (OutputStream out = exchange.getResponseBody()) {
+          out.write(buffer, 0, size);
+        }
+      }
+    }
+  }
+
+  /**
+   * Encodes the current values of all counters into the buffer.
+   *
+   * @return the number of encoded bytes
+   */
+  synchronized int scrape() {
+    VirtualPrinterRegistry.Snapshot snapshot = registry.snapshot();
+    if (snapshot.version != snapshotVersion) {
+      targets = Arrays.stream(snapshot.printServices)
+          .filter(VirtualPrintService.class::isInstance)
+          .map(printService -> new Target((VirtualPrintService) printService))
+          .toArray(Target[]::new);
+      snapshotVersion = snapshot.version;
+    }
+    length = 0;
+    gauge(PRINTERS, snapshot.printServices.length);
+    gauge(SNAPSHOT_VERSION, snapshot.version);
+    gauge(SNAPSHOT_REBUILDS, registry.getSnapshotRebuilds());
+    gauge(MEMORY_BUDGET, registry.getMemoryBudget());
+    gauge(MEMORY_USED, registry.getMemoryUsed());
+    gauge(MEMORY_HIGH_WATER_MARK, registry.getMemoryHighWaterMark());
+    gauge(MEMORY_BLOCKED, registry.getMemoryBlocked());
+    gauge(MEMORY_SPILLED, registry.getMemorySpilled());
+    gauge(MEMORY_REJECTED, registry.getMemoryRejected());
+    gauge(USERS_TRACKED, registry.getTrackedUsers());
+    gauge(USERS_EVICTED, registry.getEvictedUsers());
+
+    put(ACCEPTING_JOBS.header);
+    for (Target target : targets) {
+      sample(ACCEPTING_JOBS, target.printer, target.printService.isAcceptingJobs() ? 1 : 0);
+    }
+    put(JOBS_RUNNING.header);
+    for (Target target : targets) {
+      sample(JOBS_RUNNING, target.printer, target.printService.getRunning());
+    }
+    put(JOBS_COMPLETED.header);
+    for (Target target : targets) {
+      sample(JOBS_COMPLETED, target.printer, target.printService.getCompleted());
+    }
+    put(JOBS_FAILED.header);
+    for (Target target : targets) {
+      sample(JOBS_FAILED, target.printer, target.printService.getFailed());
+    }
+    put(JOBS_CANCELED.header);
+    for (Target target : targets) {
+      sample(JOBS_CANCELED, target.printer, target.printService.getCanceled());
+    }
+    put(JOBS_REJECTED.header);
+    for (Target target : targets) {
+      sample(JOBS_REJECTED, target.printer, target.printService.getRejected());
+    }
+    put(SKIPPED_PAGES.header);
+    for (Target target : targets) {
+      sample(SKIPPED_PAGES, target.printer, target.printService.getSkippedPages());
+    }
+    put(RAW_CONNECTIONS.header);
+    for (Target target : targets) {
+      RawPortListener rawPortListener = target.printService.rawPortListener();
+      sample(RAW_CONNECTIONS, target.printer,
+          rawPortListener == null ? 0 : rawPortListener.openConnections());
+    }
+    put(IDLE_TIMEOUTS.header);
+    for (Target target : targets) {
+      sample(IDLE_TIMEOUTS, target.printer, target.printService.getIdleTimeouts());
+    }
+    flavors();
+    return length;
+  }
+
+  private void flavors() {
+    for (Target target : targets) {
+      FlavorCounters counters = target.printService.flavorCounters();
+      for (int i = 0; i < target.values.length; i++) {
+        counters.read(i, target.values[i]);
+      }
+    }
+    put(FLAVOR_JOBS.header);
+    for (Target target : targets) {
+      for (int i = 0; i < target.values.length; i++) {
+        long[] values = target.values[i];
+        if (jobs(values) > 0) {
+          for (int outcome = 0; outcome < OUTCOMES.length; outcome++) {
+            sample(FLAVOR_JOBS, target.flavors[i], OUTCOMES[outcome],
+                values[FlavorCounters.COMPLETED + outcome]);
+          }
+        }
+      }
+    }
+    put(FLAVOR_BYTES.header);
+    for (Target target : targets) {
+      for (int i = 0; i < target.values.length; i++) {
+        long[] values = target.values[i];
+        if (jobs(values) > 0) {
+          sample(FLAVOR_BYTES, target.flavors[i], values[FlavorCounters.BYTES]);
+        }
+      }
+    }
+    put(FLAVOR_QUEUE.header);
+    for (Target target : targets) {
+      for (int i = 0; i < target.values.length; i++) {
+        long[] values = target.values[i];
+        if (jobs(values) > 0) {
+          seconds(FLAVOR_QUEUE, target.flavors[i], values[FlavorCounters.QUEUE_NANOS]);
+        }
+      }
+    }
+    put(FLAVOR_RENDER.header);
+    for (Target target : targets) {
+      for (int i = 0; i < target.values.length; i++) {
+        long[] values = target.values[i];
+        if (jobs(values) > 0) {
+          seconds(FLAVOR_RENDER, target.flavors[i], values[FlavorCounters.RENDER_NANOS]);
+        }
+      }
+    }
+    put(FLAVOR_LATENCY.header);
+    for (Target target : targets) {
+      for (int i = 0; i < target.values.length; i++) {
+        long[] values = target.values[i];
+        if (jobs(values) > 0) {
+          histogram(target.flavors[i], values);
+        }
+      }
+    }
+  }
+
+  private static long jobs(long[] values) {
+    return values[FlavorCounters.COMPLETED] + values[FlavorCounters.FAILED]
+        + values[FlavorCounters.CANCELED];
+  }
+
+  private void histogram(byte[] labels, long[] values) {
+    long count = 0;
+    for (int bucket = 0; bucket < LE.length; bucket++) {
+      count += values[FlavorCounters.LATENCY + bucket];
+      put(FLAVOR_LATENCY.name);
+      put(BUCKET);
+      put(labels);
+      put(LE[bucket]);
+      putLong(count);
+      put((byte) '\n');
+    }
+    put(FLAVOR_LATENCY.name);
+    put(SUM);
+    put(labels);
+    put(CLOSE);
+    putSeconds(values[FlavorCounters.QUEUE_NANOS] + values[FlavorCounters.RENDER_NANOS]);
+    put((byte) '\n');
+    put(FLAVOR_LATENCY.name);
+    put(COUNT);
+    put(labels);
+    put(CLOSE);
+    putLong(jobs(values));
+    put((byte) '\n');
+  }
+
+  /**
+   * Returns the encoded bytes of the last scrape.
+   *
+   * @return the encoded metrics
+   */
+  synchronized String text() {
+    return new String(buffer, 0, length, UTF_8);
+  }
+
+  private static byte[] ascii(String value) {
+    return value.getBytes(UTF_8);
+  }
+
+  private static String escape(String value) {
+    return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+  }
+
+  private void gauge(Family family, long value) {
+    put(family.header);
+    put(family.name);
+    put((byte) ' ');
+    putLong(value);
+    put((byte) '\n');
+  }
+
+  private void sample(Family family, byte[] labels, long value) {
+    sample(family, labels, CLOSE, value);
+  }
+
+  private void sample(Family family, byte[] labels, byte[] suffix, long value) {
+    put(family.name);
+    put((byte) '{');
+    put(labels);
+    put(suffix);
+    putLong(value);
+    put((byte) '\n');
+  }
+
+  private void seconds(Family family, byte[] labels, long nanos) {
+    put(family.name);
+    put((byte) '{');
+    put(labels);
+    put(CLOSE);
+    putSeconds(nanos);
+    put((byte) '\n');
+  }
+
+  private void ensure(int bytes) {
+    if (length + bytes > buffer.length) {
+      buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + bytes));
+    }
+  }
+
+  private void put(byte value) {
+    ensure(1);
+    buffer[length++] = value;
+  }
+
+  private void put(byte[] bytes) {
+    put(bytes, 0, bytes.length);
+  }
+
+  private void put(byte[] bytes, int offset, int count) {
+    ensure(count);
+    System.arraycopy(bytes, offset, buffer, length, count);
+    length += count;
+  }
+
+  private void putLong(long value) {
+    ensure(20);
+    if (value >= 0 && value < 10) {
+      // most counters of idle printers
+      buffer[length++] = (byte) ('0' + value);
+      return;
+    }
+    if (value < 0) {
+      if (value == Long.MIN_VALUE) {
+        put(ascii(Long.toString(value)));
+        return;
+      }
+      buffer[length++] = '-';
+      value = -value;
+    }
+    int digits = 1;
+    for (long limit = 10; digits < 19 && value >= limit; limit *= 10) {
+      digits++;
+    }
+    for (int i = length + digits - 1; i >= length; i--) {
+      buffer[i] = (byte) ('0' + value % 10);
+      value /= 10;
+    }
+    length += digits;
+  }
+
+  private void putSeconds(long nanos) {
+    putLong(nanos / 1_000_000_000);
+    ensure(10);
+    buffer[length++] = '.';
+    long fraction = Math.abs(nanos % 1_000_000_000);
+    for (int i = length + 8; i >= length; i--) {
+      buffer[i] = (byte) ('0' + fraction % 10);
+      fraction /= 10;
+    }
+    length += 9;
+  }
+}
@@ -0,0 +1,411 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018-2026 Patrick Reinhart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.reini.print;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Supplies the output streams the print jobs of one virtual printer write their rendered output
+ * to. The stream composition is derived once from the {@link PrinterConfiguration}, so opening a
+ * stream for a job does not need to evaluate any configuration.
+ */
+final class OutputSink implements Supplier<OutputStream> {
+  private final Opener opener;
+  private final long captureBudget;
+  private final long bytesPerSecond;
+  private final MemoryBudget memoryBudget;
+  private final PrinterConfiguration.MemoryPressure memoryPressure;
+
+  @FunctionalInterface
+  interface Opener {
+    OutputStream open(boolean blocking) throws IOException;
+  }
+
+  OutputSink(String printerName, PrinterConfiguration configuration) {
+    this(printerName, configuration, null);
+  }
+
+  /**
+   * Creates the sink of a printer, accounting the output buffered in memory in the given budget.
+   *
+   * @param printerName the name of the printer
+   * @param configuration the printer configuration
+   * @param memoryBudget the memory budget shared by all printers or {@code null} if unlimited
+   */
+  OutputSink(String printerName, PrinterConfiguration configuration, MemoryBudget memoryBudget) {
+    opener = opener(printerName, configuration, memoryBudget);
+    captureBudget = configuration.captureBudget();
+    bytesPerSecond = configuration.bytesPerSecond();
+    this.memoryBudget = memoryBudget;
+    memoryPressure = configuration.memoryPressure();
+  }
+
+  private static Opener opener(String printerName, PrinterConfiguration configuration,
+      MemoryBudget memoryBudget) {
+    switch (configuration.sinkType()) {
+      case NULL:
+        return blocking -> OutputStream.nullOutputStream();
+      case FILE:
+        Path directory = configuration.sinkDirectory();
+        String prefix = fileNamePrefix(printerName);
+        return blocking -> {
+          Files.createDirectories(directory);
+          return new SpoolFile(Files.createTempFile(directory, prefix, ".ps"));
+        };
+      case MEMORY:
+      default:
+        if (memoryBudget == null) {
+          return blocking -> new ByteArrayOutputStream();
+        }
+        PrinterConfiguration.MemoryPressure memoryPressure = configuration.memoryPressure();
+        // callers not allowed to block spill instead
+        return blocking -> new BudgetedOutputStream(memoryBudget,
+            blocking || memoryPressure != PrinterConfiguration.MemoryPressure.BLOCK
+                ? memoryPressure
+                : PrinterConfiguration.MemoryPressure.SPILL);
+    }
+  }
+
+  /**
+   * Returns the printer name reduced to characters being valid in file names on all platforms.
+   */
+  static String fileNamePrefix(String printerName) {
+    return printerName.replaceAll("[^A-Za-z0-9._-]", "_") + '-';
+  }
+
+  @Override
+  public OutputStream get() {
+    return open(true);
+  }
+
+  /**
+   * Opens the output without simulating the output speed of the printer, for callers pacing their
+   * input themselves instead of blocking while writing. For the same reason the output spills to a
+   * file instead of blocking when the memory budget is exhausted.
+   *
+   * @return the output stream
+   */
+  OutputStream getUnthrottled() {
+    return open(false);
+  }
+
+  /**
+   * Opens a buffer for output being replayed to the given job output, as for multiple copies of a
+   * job. The buffered bytes are accounted in the memory budget and the memory pressure handling of
+   * the printer applies, regardless of the sink type. If the job output is buffered in memory as
+   * well, the reservations of both are accounted to the job, so that a job waiting for memory is
+   * never blocked by the memory it is holding itself.
+   *
+   * @param out the job output stream supplied by this sink
+   * @return the buffer
+   */
+  BudgetedOutputStream buffer(OutputStream out) {
+    out = target(out);
+    if (out instanceof BudgetedOutputStream) {
+      return new BudgetedOutputStream((BudgetedOutputStream) out);
+    }
+    return new BudgetedOutputStream(memoryBudget == null ? new MemoryBudget(0) : memoryBudget,
+        memoryPressure);
+  }
+
+  private OutputStream open(boolean blocking) {
+    boolean throttled = blocking && bytesPerSecond > 0;
+    try {
+      OutputStream out = opener.open(blocking);
+      if (captureBudget >= 0) {
+        out = new CapturingOutputStream(out, captureBudget);
+      }
+      if (throttled) {
+        out = new ThrottledOutputStream(out, bytesPerSecond);
+      }
+      return out;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to open job output", e);
+    }
+  }
+
+  /**
+   * Returns the spool file the given job output is written to.
+   *
+   * @param out the output stream supplied by a sink
+   * @return the spool file or {@code null} if the output is not written to a file
+   */
+  static Path spoolFile(OutputStream out) {
+    out = target(out);
+    return out instanceof SpoolFile ? ((SpoolFile) out).path : null;
+  }
+
+  /**
+   * Returns the stream opened by the sink type, skipping the streams capturing or throttling it.
+   */
+  private static OutputStream target(OutputStream out) {
+    if (out instanceof ThrottledOutputStream) {
+      out = ((ThrottledOutputStream) out).target();
+    }
+    if (out instanceof CapturingOutputStream) {
+      out = ((CapturingOutputStream) out).target();
+    }
+    return out;
+  }
+
+  /**
+   * Writes the output of a job to its own file.
+   */
+  static final class SpoolFile extends FileOutputStream {
+    final Path path;
+
+    SpoolFile(Path path) throws FileNotFoundException {
+      super(path.toFile());
+      this.path = path;
+    }
+  }
+
+  /**
+   * Buffers the output in memory, reserving the buffered bytes in chunks from the memory budget.
+   * If the budget is exhausted, the stream waits for memory, moves the buffered output to a
+   * temporary file or fails depending on the memory pressure handling of the printer. The memory
+   * is released and any temporary file is deleted on close.
+   */
+  static final class BudgetedOutputStream extends OutputStream {
+    static final int RESERVE_CHUNK = 64 * 1024;
+
+    private final MemoryBudget memoryBudget;
+    private final PrinterConfiguration.MemoryPressure memoryPressure;
+    private final long[] held;
+    private ByteArrayOutputStream buffer;
+    private Path spillFile;
+    private OutputStream spill;
+    private long reserved;
+    private boolean rejected;
+
+    BudgetedOutputStream(MemoryBudget memoryBudget,
+        PrinterConfiguration.MemoryPressure memoryPressure) {
+      this.memoryBudget = memoryBudget;
+      this.memoryPressure = memoryPressure;
+      held = new long[1];
+      buffer = new ByteArrayOutputStream();
+    }
+
+    /**
+     * Creates another buffer of the same job, sharing the memory budget, the memory pressure
+     * handling and the bytes held by the job with the given buffer.
+     *
+     * @param job a buffer of the same job
+     */
+    BudgetedOutputStream(BudgetedOutputStream job) {
+      memoryBudget = job.memoryBudget;
+      memoryPressure = job.memoryPressure;
+      held = job.held;
+      buffer = new ByteArrayOutputStream();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      reserve(1);
+      target().write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      reserve(len);
+      target().write(b, off, len);
+    }
+
+    private OutputStream target() {
+      return spill == null ? buffer : spill;
+    }
+
+    private void reserve(int len) throws IOException {
+      if (spill != null) {
+        return;
+      }
+      long needed = buffer.size() + (long) len - reserved;
+      if (needed <= 0) {
+        return;
+      }
+      long chunk = Math.max(needed, RESERVE_CHUNK);
+      if (memoryPressure == PrinterConfiguration.MemoryPressure.BLOCK) {
+        memoryBudget.reserve(chunk, held[0]);
+      } else if (!memoryBudget.tryReserve(chunk)) {
+        if (memoryPressure == PrinterConfiguration.MemoryPressure.SPILL) {
+          spill();
+          return;
+        }
+        if (!rejected) {
+          rejected = true;
+          memoryBudget.rejected();
+        }
+        throw new IOException("Memory budget of " + memoryBudget.limit() + " bytes exhausted");
+      }
+      reserved += chunk;
+      held[0] += chunk;
+    }
+
+    private void spill() throws IOException {
+      spillFile = Files.createTempFile("virtual-printer-", ".spill");
+      spill = new BufferedOutputStream(Files.newOutputStream(spillFile));
+      buffer.writeTo(spill);
+      buffer = null;
+      memoryBudget.release(reserved);
+      held[0] -= reserved;
+      reserved = 0;
+      memoryBudget.spilled();
+    }
+
+    /**
+     * Writes the output buffered so far to the given stream, reading it back from the temporary
+     * file if the output has been spilled.
+     *
+     * @param out the stream to write to
+     * @throws IOException if the output could not be written
+     */
+    void writeTo(OutputStream out) throws IOException {
+      if (spill == null) {
+        buffer.writeTo(out);
+      } else {
+        spill.flush();
+        Files.copy(spillFile, out);
+      }
+    }
+
+    /**
+     * Returns the number of bytes currently reserved from the memory budget.
+     *
+     * @return the reserved bytes
+     */
+    long reserved() {
+      return reserved;
+    }
+
+    /**
+     * Returns whether the output has been moved to a temporary file.
+     *
+     * @return {@code true} if spilled
+     */
+    boolean isSpilled() {
+      return spill != null;
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        if (spill != null) {
+          spill.close();
+          Files.deleteIfExists(spillFile);
+        }
+      } finally {
+        memoryBudget.release(reserved);
+        held[0] -= reserved;
+        reserved = 0;
+      }
+    }
+  }
+
+  /**
+   * Passes the output to the underlying stream until the capture budget is exhausted, all further
+   * output is discarded.
+   */
+  static final class CapturingOutputStream extends FilterOutputStream {
+    private long remaining;
+
+    CapturingOutputStream(OutputStream out, long captureBudget) {
+      super(out);
+      remaining = captureBudget;
+    }
+
+    OutputStream target() {
+      return out;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      if (remaining > 0) {
+        out.write(b);
+        remaining--;
+      }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      int captured = (int) Math.min(len, remaining);
+      if (captured > 0) {
+        out.write(b, off, captured);
+        remaining -= captured;
+      }
+    }
+  }
+
+  /**
+   * Delays the output in order to simulate a printer with a limited output speed.
+   */
+  static final class ThrottledOutputStream extends FilterOutputStream {
+    private final long nanosPerByte;
+    private final long start;
+    private long written;
+
+    ThrottledOutputStream(OutputStream out, long bytesPerSecond) {
+      super(out);
+      nanosPerByte = Math.max(1, TimeUnit.SECONDS.toNanos(1) / bytesPerSecond);
+      start = System.nanoTime();
+    }
+
+    OutputStream target() {
+      return out;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      out.write(b);
+      throttle(1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+      throttle(len);
+    }
+
+    private void throttle(int length) throws InterruptedIOException {
+      written += length;
+      long delay = start + written * nanosPerByte - System.nanoTime();
+      if (delay > 0) {
+        try {
+          TimeUnit.NANOSECONDS.sleep(delay);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new InterruptedIOException("Output interrupted");
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,214 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018-2026 Patrick Reinhart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.reini.print;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Locates the pages of PostScript output by its {@code %%Page:} DSC comments while the output is
+ * being written, so that neither the output has to be buffered nor parsed again afterwards.
+ * <p>
+ * The scanner only keeps the state of the comment being matched at the current line start. For
+ * each page the start and end offset within the output are recorded, a page ending at the next
+ * page, the {@code %%Trailer} or {@code %%EOF} comment or the end of the output.
+ */
+final class PageIndex {
+  private static final byte[] PAGE = {'%', '%', 'P', 'a', 'g', 'e', ':'};
+  private static final byte[] TRAILER = {'%', '%', 'T', 'r', 'a', 'i', 'l', 'e', 'r'};
+  private static final byte[] EOF = {'%', '%', 'E', 'O', 'F'};
+  private static final int INITIAL_CAPACITY = 16;
+
+  private long[] bounds;
+  private int pages;
+  private long position;
+  private int pageMatched;
+  private int trailerMatched;
+  private int eofMatched;
+  private boolean pageOpen;
+
+  PageIndex() {
+    bounds = new long[2 * INITIAL_CAPACITY];
+  }
+
+  /**
+   * Returns a stream scanning all bytes written to it, before passing them to the given stream.
+   *
+   * @param out the stream receiving the output
+   * @return the scanning stream
+   */
+  OutputStream scanning(OutputStream out) {
+    return new FilterOutputStream(out) {
+      @Override
+      public void write(int b) throws IOException {
+        out.write(b);
+        scan((byte) b);
+      }
+
+      @Override
+      public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+        scan(b, off, len);
+      }
+    };
+  }
+
+  /**
+   * Scans the given output bytes, following the bytes scanned before.
+   *
+   * @param b the output bytes
+   * @param off the offset of the first byte
+   * @param len the number of bytes
+   */
+  void scan(byte[] b, int off, int len) {
+    int end = off + len;
+    for (int i = off; i < end; i++) {
+      if (pageMatched < 0 && trailerMatched < 0 && eofMatched < 0) {
+        // skip the rest of the line, as no comment can start before the next line
+        int lineEnd = i;
+        while (lineEnd < end && b[lineEnd] != '\n' && b[lineEnd] != '\r') {
+          lineEnd++;
+        }
+        position += lineEnd - i;
+        if (lineEnd == end) {
+          return;
+        }
+        i = lineEnd;
+      }
+      scan(b[i]);
+    }
+  }
+
+  private void scan(byte b) {
+    pageMatched = advance(PAGE, pageMatched, b);
+    trailerMatched = advance(TRAILER, trailerMatched, b);
+    eofMatched = advance(EOF, eofMatched, b);
+    position++;
+    if (pageMatched == PAGE.length) {
+      closePage(position - PAGE.length);
+      openPage(position - PAGE.length);
+    } else if (trailerMatched == TRAILER.length) {
+      closePage(position - TRAILER.length);
+    } else if (eofMatched == EOF.length) {
+      closePage(position - EOF.length);
+    }
+    if (b == '\n' || b == '\r') {
+      pageMatched = 0;
+      trailerMatched = 0;
+      eofMatched = 0;
+    }
+  }
+
+  /**
+   * Returns the number of bytes of the given comment matched after adding the given byte, or
+   * {@code -1} if the current line does not start with the comment.
+   */
+  private static int advance(byte[] comment, int matched, byte b) {
+    return matched >= 0 && matched < comment.length && comment[matched] == b ? matched + 1 : -1;
+  }
+
+  private void openPage(long start) {
+    if (2 * pages == bounds.length) {
+      bounds = Arrays.copyOf(bounds, 2 * bounds.length);
+    }
+    bounds[2 * pages] = start;
+    pages++;
+    pageOpen = true;
+  }
+
+  private void closePage(long end) {
+    if (pageOpen) {
+      bounds[2 * pages - 1] = end;
+      pageOpen = false;
+    }
+  }
+
+  /**
+   * Ends the last page at the end of the output, unless already ended by the trailer.
+   */
+  void finish() {
+    closePage(position);
+  }
+
+  /**
+   * Repeats the pages of the scanned output for the given number of copies, the output being
+   * written once per copy.
+   *
+   * @param copies the total number of copies
+   */
+  void repeat(int copies) {
+    finish();
+    int pagesPerCopy = pages;
+    long length = position;
+    bounds = Arrays.copyOf(bounds, Math.max(bounds.length, 2 * pagesPerCopy * copies));
+    for (int copy = 1; copy < copies; copy++) {
+      long shift = copy * length;
+      for (int i = 0; i < 2 * pagesPerCopy; i++) {
+        bounds[2 * pages + i] = bounds[i] + shift;
+      }
+      pages += pagesPerCopy;
+    }
+    position = length * copies;
+  }
+
+  /**
+   * Returns the number of pages found.
+   *
+   * @return the page count
+   */
+  int pages() {
+    return pages;
+  }
+
+  /**
+   * Returns the offset of the first byte of the given page within the output.
+   *
+   * @param page the zero based page index
+   * @return the page offset
+   */
+  long offset(int page) {
+    return bounds[2 * Objects.checkIndex(page, pages)];
+  }
+
+  /**
+   * Returns the number of bytes of the given page.
+   *
+   * @param page the zero based page index
+   * @return the page size
+   */
+  long size(int page) {
+    Objects.checkIndex(page, pages);
+    long end = page == pages - 1 && pageOpen ? position : bounds[2 * page + 1];
+    return end - bounds[2 * page];
+  }
+
+  /**
+   * Returns the number of bytes scanned so far.
+   *
+   * @return the output length
+   */
+  long length() {
+    return position;
+  }
+}
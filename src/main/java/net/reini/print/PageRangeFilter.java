@@ -0,0 +1,161 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018-2026 Patrick Reinhart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.reini.print;
+
+import java.awt.Graphics;
+import java.awt.print.PageFormat;
+import java.awt.print.Pageable;
+import java.awt.print.Printable;
+import java.awt.print.PrinterException;
+
+import javax.print.attribute.standard.PageRanges;
+
+/**
+ * Presents only the pages of the requested {@link PageRanges} of a {@link Pageable} or
+ * {@link Printable} document as consecutive pages to the rendering, so that pages not being
+ * requested are never rendered at all. The requested pages are passed their original page index.
+ */
+final class PageRangeFilter implements Pageable, Printable {
+  private final int[][] ranges;
+  private final Pageable pageable;
+  private final Printable printable;
+  private volatile int lastRenderedPage;
+
+  private PageRangeFilter(PageRanges pageRanges, Pageable pageable, Printable printable) {
+    this.ranges = pageRanges.getMembers();
+    this.pageable = pageable;
+    this.printable = printable;
+    this.lastRenderedPage = -1;
+  }
+
+  static PageRangeFilter of(PageRanges pageRanges, Pageable pageable) {
+    return new PageRangeFilter(pageRanges, pageable, null);
+  }
+
+  static PageRangeFilter of(PageRanges pageRanges, Printable printable) {
+    return new PageRangeFilter(pageRanges, null, printable);
+  }
+
+  /**
+   * Returns the original zero based page index of the given filtered page index.
+   *
+   * @param pageIndex the zero based filtered page index
+   * @return the original page index or {@code -1} if not part of the requested ranges
+   */
+  int originalPageIndex(int pageIndex) {
+    long remaining = pageIndex;
+    for (int[] range : ranges) {
+      long length = (long) range[1] - range[0] + 1;
+      if (remaining < length) {
+        return (int) (range[0] - 1 + remaining);
+      }
+      remaining -= length;
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the number of requested pages before the given original page index.
+   */
+  private int requestedPagesBefore(int originalPageIndex) {
+    long count = 0;
+    for (int[] range : ranges) {
+      if (range[0] > originalPageIndex) {
+        break;
+      }
+      count += Math.min(range[1], originalPageIndex) - range[0] + 1L;
+    }
+    return (int) count;
+  }
+
+  /**
+   * Returns the number of pages of the original document not being rendered, because they have
+   * not been requested.
+   *
+   * @return the number of skipped pages
+   */
+  long skippedPages() {
+    if (pageable != null) {
+      int numberOfPages = pageable.getNumberOfPages();
+      if (numberOfPages != UNKNOWN_NUMBER_OF_PAGES) {
+        return numberOfPages - (long) requestedPagesBefore(numberOfPages);
+      }
+    }
+    int last = lastRenderedPage;
+    return last < 0 ? 0 : originalPageIndex(last) + 1L - (last + 1L);
+  }
+
+  /**
+   * Returns the number of pages rendered so far.
+   *
+   * @return the number of rendered pages
+   */
+  int renderedPages() {
+    return lastRenderedPage + 1;
+  }
+
+  @Override
+  public int getNumberOfPages() {
+    int numberOfPages = pageable.getNumberOfPages();
+    if (numberOfPages == UNKNOWN_NUMBER_OF_PAGES) {
+      return numberOfPages;
+    }
+    return requestedPagesBefore(numberOfPages);
+  }
+
+  @Override
+  public PageFormat getPageFormat(int pageIndex) {
+    return pageable.getPageFormat(requireOriginalPageIndex(pageIndex));
+  }
+
+  @Override
+  public Printable getPrintable(int pageIndex) {
+    int originalPageIndex = requireOriginalPageIndex(pageIndex);
+    Printable pagePrintable = pageable.getPrintable(originalPageIndex);
+    return (graphics, pageFormat, index) -> rendered(index,
+        pagePrintable.print(graphics, pageFormat, originalPageIndex));
+  }
+
+  private int requireOriginalPageIndex(int pageIndex) {
+    int originalPageIndex = originalPageIndex(pageIndex);
+    if (originalPageIndex < 0) {
+      throw new IndexOutOfBoundsException("Page " + pageIndex + " not within the page ranges");
+    }
+    return originalPageIndex;
+  }
+
+  @Override
+  public int print(Graphics graphics, PageFormat pageFormat, int pageIndex)
+      throws PrinterException {
+    int originalPageIndex = originalPageIndex(pageIndex);
+    if (originalPageIndex < 0) {
+      return NO_SUCH_PAGE;
+    }
+    return rendered(pageIndex, printable.print(graphics, pageFormat, originalPageIndex));
+  }
+
+  private int rendered(int pageIndex, int result) {
+    if (result == PAGE_EXISTS && pageIndex > lastRenderedPage) {
+      lastRenderedPage = pageIndex;
+    }
+    return result;
+  }
+}
@@ -0,0 +1,263 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018-2026 Patrick Reinhart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.reini.print;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.print.DocFlavor;
+import javax.print.PrintService;
+import javax.print.attribute.Attribute;
+import javax.print.attribute.AttributeSet;
+import javax.print.attribute.HashAttributeSet;
+import javax.print.attribute.PrintServiceAttribute;
+import javax.print.attribute.TextSyntax;
+import javax.print.attribute.standard.PrinterIsAcceptingJobs;
+import javax.print.attribute.standard.PrinterLocation;
+import javax.print.attribute.standard.PrinterName;
+import javax.print.attribute.standard.PrinterState;
+
+/**
+ * Index of print services by their supported {@link DocFlavor}s and a set of service attribute
+ * values, allowing filtered lookups to be resolved by set membership checks instead of querying
+ * the attributes of each print service individually.
+ */
+final class PrintServiceIndex {
+  private static final PrintService[] emptyPrintServices = new PrintService[0];
+  private static final List<Class<? extends PrintServiceAttribute>> indexedCategories =
+      List.of(PrinterName.class, PrinterLocation.class, PrinterState.class,
+          PrinterIsAcceptingJobs.class);
+
+  private final Map<DocFlavor, Set<PrintService>> servicesByFlavor;
+  private final Map<Class<?>, Map<Object, Set<PrintService>>> servicesByAttribute;
+  private final Map<PrintService, Object[]> indexedKeys;
+
+  PrintServiceIndex() {
+    servicesByFlavor = new ConcurrentHashMap<>();
+    servicesByAttribute = new ConcurrentHashMap<>();
+    indexedKeys = new ConcurrentHashMap<>();
+    for (Class<?> category : indexedCategories) {
+      servicesByAttribute.put(category, new ConcurrentHashMap<>());
+    }
+  }
+
+  /**
+   * Returns the value used to compare the given attribute. Text attributes are compared by their
+   * value only, ignoring the locale.
+   */
+  private static Object key(Attribute attribute) {
+    if (attribute instanceof TextSyntax text) {
+      return text.getValue();
+    }
+    return attribute;
+  }
+
+  private static <K> void index(Map<K, Set<PrintService>> index, K key, PrintService ps) {
+    index.compute(key, (k, services) -> {
+      Set<PrintService> result = services == null ? ConcurrentHashMap.newKeySet() : services;
+      result.add(ps);
+      return result;
+    });
+  }
+
+  private static <K> void unindex(Map<K, Set<PrintService>> index, K key, PrintService ps) {
+    index.computeIfPresent(key, (k, services) -> {
+      services.remove(ps);
+      return services.isEmpty() ? null : services;
+    });
+  }
+
+  /**
+   * Adds the given print service to the index.
+   *
+   * @param ps the print service to be added
+   */
+  void add(PrintService ps) {
+    for (DocFlavor flavor : ps.getSupportedDocFlavors()) {
+      index(servicesByFlavor, flavor, ps);
+    }
+    indexedKeys.put(ps, new Object[indexedCategories.size()]);
+    update(ps);
+  }
+
+  /**
+   * Updates the indexed attribute values of the given print service, if it is part of the index.
+   *
+   * @param ps the print service whose attributes may have changed
+   */
+  void update(PrintService ps) {
+    Object[] keys = indexedKeys.get(ps);
+    if (keys == null) {
+      return;
+    }
+    synchronized (keys) {
+      if (indexedKeys.get(ps) != keys) {
+        // concurrently removed
+        return;
+      }
+      for (int i = 0; i < keys.length; i++) {
+        Class<? extends PrintServiceAttribute> category = indexedCategories.get(i);
+        PrintServiceAttribute attribute = ps.getAttribute(category);
+        Object key = attribute == null ? null : key(attribute);
+        if (!Objects.equals(key, keys[i])) {
+          Map<Object, Set<PrintService>> index = servicesByAttribute.get(category);
+          if (keys[i] != null) {
+            unindex(index, keys[i], ps);
+          }
+          if (key != null) {
+            index(index, key, ps);
+          }
+          keys[i] = key;
+        }
+      }
+    }
+  }
+
+  /**
+   * Removes the given print service from the index.
+   *
+   * @param ps the print service to be removed
+   */
+  void remove(PrintService ps) {
+    Object[] keys = indexedKeys.get(ps);
+    if (keys == null) {
+      return;
+    }
+    synchronized (keys) {
+      indexedKeys.remove(ps);
+      for (int i = 0; i < keys.length; i++) {
+        if (keys[i] != null) {
+          unindex(servicesByAttribute.get(indexedCategories.get(i)), keys[i], ps);
+          keys[i] = null;
+        }
+      }
+    }
+    for (DocFlavor flavor : ps.getSupportedDocFlavors()) {
+      unindex(servicesByFlavor, flavor, ps);
+    }
+  }
+
+  /**
+   * Returns all print services supporting the given flavor and matching all of the given
+   * attributes.
+   *
+   * @param flavor the document flavor to be supported or {@code null} for any flavor
+   * @param attributes the attributes to be matched or {@code null} for any attributes
+   * @param allServices all currently known print services in the order they are to be returned
+   * @return the matching print services in the order of {@code allServices}
+   */
+  PrintService[] lookup(DocFlavor flavor, AttributeSet attributes, PrintService[] allServices) {
+    List<Set<PrintService>> constraints = new ArrayList<>();
+    AttributeSet residual = null;
+    if (flavor != null) {
+      Set<PrintService> services = servicesByFlavor.get(flavor);
+      if (services == null) {
+        return emptyPrintServices;
+      }
+      constraints.add(services);
+    }
+    if (attributes != null) {
+      for (Attribute attribute : attributes.toArray()) {
+        Map<Object, Set<PrintService>> index = servicesByAttribute.get(attribute.getCategory());
+        if (index == null) {
+          if (residual == null) {
+            residual = new HashAttributeSet();
+          }
+          residual.add(attribute);
+        } else {
+          Set<PrintService> services = index.get(key(attribute));
+          if (services == null) {
+            return emptyPrintServices;
+          }
+          constraints.add(services);
+        }
+      }
+    }
+    Set<PrintService> smallest = null;
+    for (Set<PrintService> services : constraints) {
+      if (smallest == null || services.size() < smallest.size()) {
+        smallest = services;
+      }
+    }
+    if (smallest != null && smallest.size() <= 1) {
+      // a single candidate has no order to be kept, typically a lookup by name
+      return filter(smallest, constraints, flavor, residual);
+    }
+    return filter(List.of(allServices), constraints, flavor, residual);
+  }
+
+  private static PrintService[] filter(Iterable<PrintService> candidates,
+      List<Set<PrintService>> constraints, DocFlavor flavor, AttributeSet residual) {
+    List<PrintService> result = new ArrayList<>();
+    for (PrintService ps : candidates) {
+      if (containedInAll(ps, constraints) && matches(ps, flavor, residual)) {
+        result.add(ps);
+      }
+    }
+    return result.toArray(emptyPrintServices);
+  }
+
+  private static boolean containedInAll(PrintService ps, List<Set<PrintService>> constraints) {
+    for (Set<PrintService> services : constraints) {
+      if (!services.contains(ps)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Checks if the given print service matches all of the given attributes. Print service
+   * attributes need to have an equal value, all other attributes need to be supported by the print
+   * service.
+   *
+   * @param ps the print service to be checked
+   * @param flavor the document flavor used to check the support of non service attributes
+   * @param attributes the attributes to be matched or {@code null} for any attributes
+   * @return {@code true} if all attributes match, {@code false} otherwise
+   */
+  static boolean matches(PrintService ps, DocFlavor flavor, AttributeSet attributes) {
+    if (attributes == null) {
+      return true;
+    }
+    AttributeSet requested = null;
+    for (Attribute attribute : attributes.toArray()) {
+      if (attribute instanceof PrintServiceAttribute) {
+        @SuppressWarnings("unchecked")
+        Attribute value = ps.getAttribute(
+            (Class<? extends PrintServiceAttribute>) attribute.getCategory());
+        if (value == null || !key(value).equals(key(attribute))) {
+          return false;
+        }
+      } else {
+        if (requested == null) {
+          requested = new HashAttributeSet();
+        }
+        requested.add(attribute);
+      }
+    }
+    return requested == null || ps.getUnsupportedAttributes(flavor, requested) == null;
+  }
+}
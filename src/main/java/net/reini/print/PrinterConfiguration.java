@@ -0,0 +1,519 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018-2026 Patrick Reinhart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.reini.print;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import javax.print.DocFlavor;
+
+/**
+ * Immutable settings of a virtual printer, parsed once from the printer definition and shared by
+ * all printers having the same settings.
+ * <p>
+ * A printer definition line consists of the printer name optionally followed by semicolon
+ * separated settings, for example:
+ *
+ * <pre>
+ * ReportPrinter; flavors=PAGEABLE; sink=file:/var/spool/virtual; maxJobs=4; admission=reject
+ * </pre>
+ */
+final class PrinterConfiguration {
+  /**
+   * The settings used by printers without explicit settings.
+   */
+  static final PrinterConfiguration DEFAULT = new Builder().build();
+
+  private static final Map<String, DocFlavor> flavorsByName =
+      Map.of("PAGEABLE", DocFlavor.SERVICE_FORMATTED.PAGEABLE, //
+          "PRINTABLE", DocFlavor.SERVICE_FORMATTED.PRINTABLE, //
+          "POSTSCRIPT", DocFlavor.INPUT_STREAM.POSTSCRIPT, //
+          "PCL", DocFlavor.INPUT_STREAM.PCL, //
+          "PDF", DocFlavor.INPUT_STREAM.PDF, //
+          "AUTOSENSE", DocFlavor.INPUT_STREAM.AUTOSENSE);
+
+  /**
+   * Defines where the rendered output of the print jobs is written to.
+   */
+  enum SinkType {
+    /** The output is discarded. */
+    NULL,
+    /** The output is buffered in memory. */
+    MEMORY,
+    /** The output is spooled to one file per job. */
+    FILE
+  }
+
+  /**
+   * Defines how jobs are handled that can not be printed immediately, either because the printer
+   * is suspended or its job or byte limits are reached.
+   */
+  enum Admission {
+    /** The job waits until it can be printed. */
+    QUEUE,
+    /** The job fails immediately with a print exception. */
+    REJECT
+  }
+
+  /**
+   * Defines what happens to a job buffering its output in memory, once the memory budget shared by
+   * all printers is exhausted.
+   */
+  enum MemoryPressure {
+    /** The job waits until other jobs have released their memory. */
+    BLOCK,
+    /** The job moves its output to a temporary file and continues writing there. */
+    SPILL,
+    /** The job fails. */
+    REJECT
+  }
+
+  private final Set<DocFlavor> supportedFlavors;
+  private final SinkType sinkType;
+  private final Path sinkDirectory;
+  private final int maxConcurrentJobs;
+  private final long maxInFlightBytes;
+  private final Admission admission;
+  private final long bytesPerSecond;
+  private final long captureBudget;
+  private final int historySize;
+  private final InetSocketAddress rawAddress;
+  private final int maxConnections;
+  private final long idleTimeoutMillis;
+  private final MemoryPressure memoryPressure;
+
+  /**
+   * Collects the settings of a printer configuration, starting with the settings of printers
+   * without explicit settings.
+   */
+  static final class Builder {
+    private Set<DocFlavor> supportedFlavors =
+        Set.of(DocFlavor.SERVICE_FORMATTED.PAGEABLE, DocFlavor.SERVICE_FORMATTED.PRINTABLE);
+    private SinkType sinkType = SinkType.MEMORY;
+    private Path sinkDirectory;
+    private int maxConcurrentJobs;
+    private long maxInFlightBytes;
+    private Admission admission = Admission.QUEUE;
+    private long bytesPerSecond;
+    private long captureBudget = -1;
+    private int historySize = 256;
+    private InetSocketAddress rawAddress;
+    private int maxConnections = 16;
+    private long idleTimeoutMillis = 30_000;
+    private MemoryPressure memoryPressure = MemoryPressure.BLOCK;
+
+    Builder supportedFlavors(Set<DocFlavor> supportedFlavors) {
+      this.supportedFlavors = supportedFlavors;
+      return this;
+    }
+
+    Builder sink(SinkType sinkType, Path sinkDirectory) {
+      this.sinkType = sinkType;
+      this.sinkDirectory = sinkDirectory;
+      return this;
+    }
+
+    Builder maxConcurrentJobs(int maxConcurrentJobs) {
+      this.maxConcurrentJobs = maxConcurrentJobs;
+      return this;
+    }
+
+    Builder maxInFlightBytes(long maxInFlightBytes) {
+      this.maxInFlightBytes = maxInFlightBytes;
+      return this;
+    }
+
+    Builder admission(Admission admission) {
+      this.admission = admission;
+      return this;
+    }
+
+    Builder bytesPerSecond(long bytesPerSecond) {
+      this.bytesPerSecond = bytesPerSecond;
+      return this;
+    }
+
+    Builder captureBudget(long captureBudget) {
+      this.captureBudget = captureBudget;
+      return this;
+    }
+
+    Builder historySize(int historySize) {
+      this.historySize = historySize;
+      return this;
+    }
+
+    Builder rawAddress(InetSocketAddress rawAddress) {
+      this.rawAddress = rawAddress;
+      return this;
+    }
+
+    Builder maxConnections(int maxConnections) {
+      this.maxConnections = maxConnections;
+      return this;
+    }
+
+    Builder idleTimeoutMillis(long idleTimeoutMillis) {
+      this.idleTimeoutMillis = idleTimeoutMillis;
+      return this;
+    }
+
+    Builder memoryPressure(MemoryPressure memoryPressure) {
+      this.memoryPressure = memoryPressure;
+      return this;
+    }
+
+    /**
+     * Creates the configuration of the collected settings.
+     *
+     * @return the printer configuration
+     * @throws IllegalArgumentException if the settings are inconsistent
+     */
+    PrinterConfiguration build() {
+      return new PrinterConfiguration(this);
+    }
+  }
+
+  private PrinterConfiguration(Builder builder) {
+    supportedFlavors = Collections.unmodifiableSet(new LinkedHashSet<>(builder.supportedFlavors));
+    sinkType = Objects.requireNonNull(builder.sinkType, "sinkType must not be null");
+    sinkDirectory = builder.sinkDirectory;
+    maxConcurrentJobs = builder.maxConcurrentJobs;
+    maxInFlightBytes = builder.maxInFlightBytes;
+    admission = Objects.requireNonNull(builder.admission, "admission must not be null");
+    bytesPerSecond = builder.bytesPerSecond;
+    captureBudget = builder.captureBudget;
+    historySize = builder.historySize;
+    rawAddress = builder.rawAddress;
+    maxConnections = builder.maxConnections;
+    idleTimeoutMillis = builder.idleTimeoutMillis;
+    memoryPressure =
+        Objects.requireNonNull(builder.memoryPressure, "memoryPressure must not be null");
+    if (historySize < 0) {
+      throw new IllegalArgumentException("history size must not be negative");
+    }
+    if (maxConnections < 1) {
+      throw new IllegalArgumentException("maximum connections must be positive");
+    }
+    if (sinkType == SinkType.FILE && sinkDirectory == null) {
+      throw new IllegalArgumentException("file sink requires a directory");
+    }
+  }
+
+  /**
+   * Parses the given semicolon separated settings. Settings not being defined keep their
+   * {@link #DEFAULT} value.
+   *
+   * @param settings the settings to be parsed, for example {@code sink=null; maxJobs=2}
+   * @return the parsed configuration
+   * @throws IllegalArgumentException if a setting is unknown or has an invalid value
+   */
+  static PrinterConfiguration parse(String settings) {
+    Builder builder = new Builder();
+    for (String setting : settings.split(";")) {
+      setting = setting.trim();
+      if (setting.isEmpty()) {
+        continue;
+      }
+      int separator = setting.indexOf('=');
+      if (separator < 0) {
+        throw new IllegalArgumentException("Missing value of setting '" + setting + "'");
+      }
+      String key = setting.substring(0, separator).trim();
+      String value = setting.substring(separator + 1).trim();
+      switch (key) {
+        case "flavors":
+          builder.supportedFlavors(parseFlavors(value));
+          break;
+        case "sink":
+          if (value.startsWith("file:")) {
+            builder.sink(SinkType.FILE, Path.of(value.substring(5)));
+          } else {
+            builder.sink(SinkType.valueOf(value.toUpperCase(Locale.ROOT)), null);
+          }
+          break;
+        case "maxJobs":
+          builder.maxConcurrentJobs(Integer.parseInt(value));
+          break;
+        case "maxBytes":
+          builder.maxInFlightBytes(parseSize(value));
+          break;
+        case "admission":
+          builder.admission(Admission.valueOf(value.toUpperCase(Locale.ROOT)));
+          break;
+        case "speed":
+          builder.bytesPerSecond(parseSize(value));
+          break;
+        case "captureBudget":
+          builder.captureBudget(parseSize(value));
+          break;
+        case "history":
+          builder.historySize(Integer.parseInt(value));
+          break;
+        case "port":
+          builder.rawAddress(parseAddress(value));
+          break;
+        case "maxConnections":
+          builder.maxConnections(Integer.parseInt(value));
+          break;
+        case "idleTimeout":
+          builder.idleTimeoutMillis(Long.parseLong(value) * 1000);
+          break;
+        case "memory":
+          builder.memoryPressure(MemoryPressure.valueOf(value.toUpperCase(Locale.ROOT)));
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown setting '" + key + "'");
+      }
+    }
+    return builder.build();
+  }
+
+  private static Set<DocFlavor> parseFlavors(String value) {
+    Set<DocFlavor> flavors = new LinkedHashSet<>();
+    for (String name : value.split(",")) {
+      DocFlavor flavor = flavorsByName.get(name.trim().toUpperCase(Locale.ROOT));
+      if (flavor == null) {
+        throw new IllegalArgumentException("Unknown flavor '" + name.trim() + "'");
+      }
+      flavors.add(flavor);
+    }
+    return flavors;
+  }
+
+  /**
+   * Parses a port, being bound to the loopback address, or a host and port separated by a colon.
+   */
+  static InetSocketAddress parseAddress(String value) {
+    int separator = value.lastIndexOf(':');
+    if (separator < 0) {
+      return new InetSocketAddress(InetAddress.getLoopbackAddress(),
+          Integer.parseInt(value.trim()));
+    }
+    return new InetSocketAddress(value.substring(0, separator).trim(),
+        Integer.parseInt(value.substring(separator + 1).trim()));
+  }
+
+  /**
+   * Returns the name of the given flavor as used by the {@code flavors} setting.
+   *
+   * @param flavor the document flavor
+   * @return the flavor name or the full flavor description for flavors without a name
+   */
+  static String flavorName(DocFlavor flavor) {
+    for (Map.Entry<String, DocFlavor> entry : flavorsByName.entrySet()) {
+      if (entry.getValue().equals(flavor)) {
+        return entry.getKey();
+      }
+    }
+    return flavor.toString();
+  }
+
+  /**
+   * Parses a byte size with an optional {@code k}, {@code m} or {@code g} unit suffix.
+   */
+  static long parseSize(String value) {
+    String size = value.trim().toLowerCase(Locale.ROOT);
+    long unit = 1;
+    if (size.endsWith("k")) {
+      unit = 1L << 10;
+    } else if (size.endsWith("m")) {
+      unit = 1L << 20;
+    } else if (size.endsWith("g")) {
+      unit = 1L << 30;
+    }
+    if (unit > 1) {
+      size = size.substring(0, size.length() - 1).trim();
+    }
+    return Long.parseLong(size) * unit;
+  }
+
+  /**
+   * Returns the document flavors supported by the printer.
+   *
+   * @return the unmodifiable set of supported flavors
+   */
+  Set<DocFlavor> supportedFlavors() {
+    return supportedFlavors;
+  }
+
+  /**
+   * Returns where the rendered job output is written to.
+   *
+   * @return the sink type
+   */
+  SinkType sinkType() {
+    return sinkType;
+  }
+
+  /**
+   * Returns the directory the job output is spooled to for {@link SinkType#FILE} sinks.
+   *
+   * @return the spool directory or {@code null} for other sink types
+   */
+  Path sinkDirectory() {
+    return sinkDirectory;
+  }
+
+  /**
+   * Returns the maximum number of jobs being printed concurrently.
+   *
+   * @return the concurrency limit or {@code 0} if unlimited
+   */
+  int maxConcurrentJobs() {
+    return maxConcurrentJobs;
+  }
+
+  /**
+   * Returns the maximum number of output bytes of all jobs being printed, new jobs are not admitted
+   * while this limit is reached.
+   *
+   * @return the in-flight byte limit or {@code 0} if unlimited
+   */
+  long maxInFlightBytes() {
+    return maxInFlightBytes;
+  }
+
+  /**
+   * Returns how jobs are handled that can not be printed immediately.
+   *
+   * @return the admission policy
+   */
+  Admission admission() {
+    return admission;
+  }
+
+  /**
+   * Returns the simulated output speed of the printer.
+   *
+   * @return the output speed in bytes per second or {@code 0} if unlimited
+   */
+  long bytesPerSecond() {
+    return bytesPerSecond;
+  }
+
+  /**
+   * Returns the maximum number of bytes captured by the sink for each job, any further output is
+   * discarded.
+   *
+   * @return the capture budget in bytes or {@code -1} if unlimited
+   */
+  long captureBudget() {
+    return captureBudget;
+  }
+
+  /**
+   * Returns the number of finished jobs kept in the job history of the printer.
+   *
+   * @return the history size or {@code 0} if no history is kept
+   */
+  int historySize() {
+    return historySize;
+  }
+
+  /**
+   * Returns the local address of the raw port, accepting print data in a printer language like
+   * a JetDirect port.
+   *
+   * @return the raw port address or {@code null} if the printer has no raw port
+   */
+  InetSocketAddress rawAddress() {
+    return rawAddress;
+  }
+
+  /**
+   * Returns the maximum number of concurrent connections of the raw port.
+   *
+   * @return the connection limit
+   */
+  int maxConnections() {
+    return maxConnections;
+  }
+
+  /**
+   * Returns the time after which an inactive connection of the raw port is closed.
+   *
+   * @return the idle timeout in milliseconds or {@code 0} if connections never time out
+   */
+  long idleTimeoutMillis() {
+    return idleTimeoutMillis;
+  }
+
+  /**
+   * Returns what happens to a job buffering its output in memory, once the memory budget is
+   * exhausted.
+   *
+   * @return the memory pressure handling
+   */
+  MemoryPressure memoryPressure() {
+    return memoryPressure;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(supportedFlavors, sinkType, sinkDirectory,
+        Integer.valueOf(maxConcurrentJobs), Long.valueOf(maxInFlightBytes), admission,
+        Long.valueOf(bytesPerSecond), Long.valueOf(captureBudget), Integer.valueOf(historySize),
+        rawAddress, Integer.valueOf(maxConnections), Long.valueOf(idleTimeoutMillis),
+        memoryPressure);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj instanceof PrinterConfiguration other) {
+      return supportedFlavors.equals(other.supportedFlavors) && sinkType == other.sinkType
+          && Objects.equals(sinkDirectory, other.sinkDirectory)
+          && maxConcurrentJobs == other.maxConcurrentJobs
+          && maxInFlightBytes == other.maxInFlightBytes && admission == other.admission
+          && bytesPerSecond == other.bytesPerSecond && captureBudget == other.captureBudget
+          && historySize == other.historySize && Objects.equals(rawAddress, other.rawAddress)
+          && maxConnections == other.maxConnections
+          && idleTimeoutMillis == other.idleTimeoutMillis
+          && memoryPressure == other.memoryPressure;
+    }
+    return false;
+  }
+
+  @Override
+  public String toString() {
+    return "flavors=" + supportedFlavors + "; sink="
+        + (sinkType == SinkType.FILE ? "file:" + sinkDirectory
+            : sinkType.name().toLowerCase(Locale.ROOT))
+        + "; maxJobs=" + maxConcurrentJobs + "; maxBytes=" + maxInFlightBytes + "; admission="
+        + admission.name().toLowerCase(Locale.ROOT) + "; speed=" + bytesPerSecond
+        + "; captureBudget=" + captureBudget + "; history=" + historySize + "; memory="
+        + memoryPressure.name().toLowerCase(Locale.ROOT)
+        + (rawAddress == null ? ""
+            : "; port=" + rawAddress.getHostString() + ":" + rawAddress.getPort()
+                + "; maxConnections=" + maxConnections + "; idleTimeout="
+                + idleTimeoutMillis / 1000);
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018-2026 Patrick Reinhart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.reini.print;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Watches a printer definition file for changes and runs a reload action after each change.
+ * Bursts of file system events, as caused by editors writing a file in several steps, are
+ * coalesced into one single reload.
+ */
+final class PrinterDefinitionWatcher implements Closeable {
+  private static final Logger LOG = Logger.getLogger(PrinterDefinitionWatcher.class.getName());
+  private static final long QUIET_PERIOD_MILLIS = 200;
+
+  private final Path file;
+  private final Runnable reloadAction;
+  private final WatchService watchService;
+  private final Thread watcherThread;
+
+  PrinterDefinitionWatcher(Path file, Runnable reloadAction) throws IOException {
+    this.file = file.toAbsolutePath();
+    this.reloadAction = reloadAction;
+    Path directory = this.file.getParent();
+    watchService = directory.getFileSystem().newWatchService();
+    directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+    watcherThread = new Thread(this::watch, "virtual-printer-definitions");
+    watcherThread.setDaemon(true);
+    watcherThread.start();
+  }
+
+  private void watch() {
+    try {
+      for (;;) {
+        boolean changed = processEvents(watchService.take());
+        WatchKey key;
+        while ((key = watchService.poll(QUIET_PERIOD_MILLIS, MILLISECONDS)) != null) {
+          changed |= processEvents(key);
+        }
+        if (changed) {
+          reload();
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ClosedWatchServiceException e) {
+      LOG.log(Level.FINE, () -> "Stopped watching " + file);
+    }
+  }
+
+  private boolean processEvents(WatchKey key) {
+    boolean changed = false;
+    for (WatchEvent<?> event : key.pollEvents()) {
+      if (event.kind() == OVERFLOW || file.getFileName().equals(event.context())) {
+        changed = true;
+      }
+    }
+    key.reset();
+    return changed;
+  }
+
+  private void reload() {
+    try {
+      reloadAction.run();
+    } catch (RuntimeException e) {
+      LOG.log(Level.SEVERE, e, () -> "Failed to reload printers from " + file);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    watchService.close();
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018-2026 Patrick Reinhart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.reini.print;
+
+import javax.management.ConstructorParameters;
+
+/**
+ * State and job statistics of one virtual printer as reported by the
+ * {@link VirtualPrinterRegistryMXBean}.
+ */
+public final class PrinterStatus {
+  private final String name;
+  private final String printerState;
+  private final boolean acceptingJobs;
+  private final int running;
+  private final long completed;
+  private final long failed;
+  private final long canceled;
+
+  /**
+   * Constructor
+   * 
+   * @param name the printer name
+   * @param printerState the printer state
+   * @param acceptingJobs whether the printer is accepting jobs
+   * @param running the number of running jobs
+   * @param completed the number of completed jobs
+   * @param failed the number of failed jobs
+   * @param canceled the number of canceled jobs
+   */
+  @ConstructorParameters({"name", "printerState", "acceptingJobs", "running", "completed", "failed",
+      "canceled"})
+  public PrinterStatus(String name, String printerState, boolean acceptingJobs, int running,
+      long completed, long failed, long canceled) {
+    this.name = name;
+    this.printerState = printerState;
+    this.acceptingJobs = acceptingJobs;
+    this.running = running;
+    this.completed = completed;
+    this.failed = failed;
+    this.canceled = canceled;
+  }
+
+  static PrinterStatus of(VirtualPrintService printService) {
+    return new PrinterStatus(printService.getName(), printService.getPrinterState(),
+        printService.isAcceptingJobs(), printService.getRunning(), printService.getCompleted(),
+        printService.getFailed(), printService.getCanceled());
+  }
+
+  /**
+   * Returns the printer name.
+   * 
+   * @return the printer name
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Returns the printer state.
+   * 
+   * @return the printer state
+   */
+  public String getPrinterState() {
+    return printerState;
+  }
+
+  /**
+   * Returns whether the printer is accepting jobs.
+   * 
+   * @return {@code true} if accepting jobs, {@code false} otherwise
+   */
+  public boolean isAcceptingJobs() {
+    return acceptingJobs;
+  }
+
+  /**
+   * Returns the number of running jobs.
+   * 
+   * @return running job count
+   */
+  public int getRunning() {
+    return running;
+  }
+
+  /**
+   * Returns the number of completed jobs.
+   * 
+   * @return completed job count
+   */
+  public long getCompleted() {
+    return completed;
+  }
+
+  /**
+   * Returns the number of failed jobs.
+   * 
+   * @return failed job count
+   */
+  public long getFailed() {
+    return failed;
+  }
+
+  /**
+   * Returns the number of canceled jobs.
+   * 
+   * @return canceled job count
+   */
+  public long getCanceled() {
+    return canceled;
+  }
+
+  @Override
+  public String toString() {
+    return name + ": " + printerState + ", accepting jobs: " + acceptingJobs + ", running: "
+        + running + ", completed: " + completed + ", failed: " + failed + ", canceled: "
+        + canceled;
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018-2026 Patrick Reinhart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.reini.print;
+
+import javax.management.ConstructorParameters;
+
+/**
+ * State and throughput of one connection of the raw port of a virtual printer as reported by the
+ * {@link VirtualPrintServiceMXBean}.
+ */
+public final class RawConnectionStatus {
+  private final String remoteAddress;
+  private final long jobId;
+  private final String state;
+  private final long bytes;
+  private final long durationMillis;
+  private final long bytesPerSecond;
+
+  /**
+   * Constructor
+   * 
+   * @param remoteAddress the address of the client
+   * @param jobId the id of the job printing the received data
+   * @param state the connection state
+   * @param bytes the number of received bytes
+   * @param durationMillis the time since the connection was accepted in milliseconds
+   * @param bytesPerSecond the average throughput since the job was admitted
+   */
+  @ConstructorParameters({"remoteAddress", "jobId", "state", "bytes", "durationMillis",
+      "bytesPerSecond"})
+  public RawConnectionStatus(String remoteAddress, long jobId, String state, long bytes,
+      long durationMillis, long bytesPerSecond) {
+    this.remoteAddress = remoteAddress;
+    this.jobId = jobId;
+    this.state = state;
+    this.bytes = bytes;
+    this.durationMillis = durationMillis;
+    this.bytesPerSecond = bytesPerSecond;
+  }
+
+  /**
+   * Returns the address of the client.
+   * 
+   * @return the remote address
+   */
+  public String getRemoteAddress() {
+    return remoteAddress;
+  }
+
+  /**
+   * Returns the id of the job printing the received data.
+   * 
+   * @return the job id
+   */
+  public long getJobId() {
+    return jobId;
+  }
+
+  /**
+   * Returns the connection state, being {@code waiting} until the job is admitted, {@code paused}
+   * while the simulated printer speed is exceeded and {@code receiving} otherwise.
+   * 
+   * @return the connection state
+   */
+  public String getState() {
+    return state;
+  }
+
+  /**
+   * Returns the number of received bytes.
+   * 
+   * @return the received byte count
+   */
+  public long getBytes() {
+    return bytes;
+  }
+
+  /**
+   * Returns the time since the connection was accepted.
+   * 
+   * @return the connection duration in milliseconds
+   */
+  public long getDurationMillis() {
+    return durationMillis;
+  }
+
+  /**
+   * Returns the average throughput since the job was admitted.
+   * 
+   * @return the throughput in bytes per second
+   */
+  public long getBytesPerSecond() {
+    return bytesPerSecond;
+  }
+
+  @Override
+  public String toString() {
+    return remoteAddress + " (job " + jobId + "): " + state + ", " + bytes + " bytes in "
+        + durationMillis + "ms, " + bytesPerSecond + " bytes/s";
+  }
+}
@@ -0,0 +1,370 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018-2026 Patrick Reinhart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.reini.print;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.print.Doc;
+import javax.print.DocFlavor;
+import javax.print.PrintException;
+import javax.print.SimpleDoc;
+import javax.print.attribute.HashPrintRequestAttributeSet;
+import javax.print.attribute.PrintRequestAttributeSet;
+import javax.print.attribute.standard.JobName;
+
+/**
+ * Accepts raw print data on a TCP port like a JetDirect port, printing the data received on each
+ * connection as one job of the {@link DocFlavor.INPUT_STREAM#AUTOSENSE} flavor.
+ * <p>
+ * All connections are served by one selector thread. A connection is only read from once its job
+ * has been admitted, and reading is paused while the simulated printer speed is exceeded, so that
+ * the clients are slowed down by TCP flow control instead of blocking the thread. The received
+ * data is transferred directly from the socket to the sink of the printer. As a waiting connection
+ * is not read from, a client disconnecting meanwhile is only noticed by the idle timeout, which
+ * therefore also applies to the time waiting for the admission.
+ */
+final class RawPortListener implements Closeable {
+  private static final Logger LOG = Logger.getLogger(RawPortListener.class.getName());
+  private static final long TICK_MILLIS = 100;
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final int BACKLOG = 128;
+
+  private final VirtualPrintService printService;
+  private final Supplier<OutputStream> sink;
+  private final int maxConnections;
+  private final long idleTimeoutNanos;
+  private final long nanosPerByte;
+  private final ServerSocketChannel serverChannel;
+  private final Selector selector;
+  private final SelectionKey acceptKey;
+  private final ByteBuffer buffer;
+  private final Set<Connection> connections;
+  private final ArrayDeque<Connection> waiting;
+  private final LongAdder idleTimeouts;
+  private final Thread selectorThread;
+
+  private volatile boolean closed;
+
+  /**
+   * A client connection and the job printing its data.
+   */
+  private final class Connection {
+    final SocketChannel channel;
+    final String remoteAddress;
+    final VirtualDocPrintJob job;
+    final long acceptedAt;
+    SelectionKey key;
+    CountingOutputStream output;
+    long printingAt;
+    long lastActivity;
+    long resumeAt;
+    volatile long bytes;
+    volatile String state;
+
+    Connection(SocketChannel channel, long now) throws IOException {
+      this.channel = channel;
+      remoteAddress = String.valueOf(channel.getRemoteAddress());
+      job = (VirtualDocPrintJob) printService.createPrintJob();
+      acceptedAt = now;
+      lastActivity = now;
+      state = "waiting";
+    }
+
+    /**
+     * Tries to start the job.
+     *
+     * @return {@code true} if started or failed, {@code false} if still waiting for the admission
+     */
+    boolean start(long now) {
+      PrintRequestAttributeSet attributes = new HashPrintRequestAttributeSet();
+      attributes.add(new JobName("Raw job from " + remoteAddress, null));
+      Doc doc = new SimpleDoc(InputStream.nullInputStream(), DocFlavor.INPUT_STREAM.AUTOSENSE,
+          null);
+      try {
+        output = job.start(doc, attributes, sink);
+      } catch (PrintException e) {
+        LOG.log(Level.FINE, e, () -> "Refusing raw job from " + remoteAddress);
+        close();
+        return true;
+      }
+      if (output == null) {
+        return false;
+      }
+      printingAt = now;
+      lastActivity = now;
+      state = "receiving";
+      key.interestOps(SelectionKey.OP_READ);
+      return true;
+    }
+
+    void read(long now) {
+      long transferred;
+      try {
+        transferred = output.transferFrom(channel, buffer);
+      } catch (IOException e) {
+        finish(e);
+        return;
+      }
+      if (transferred < 0) {
+        finish(null);
+        return;
+      }
+      bytes += transferred;
+      lastActivity = now;
+      if (nanosPerByte > 0) {
+        long delay = printingAt + bytes * nanosPerByte - now;
+        if (delay > 0) {
+          resumeAt = now + delay;
+          state = "paused";
+          key.interestOps(0);
+        }
+      }
+    }
+
+    void resume(long now) {
+      if (resumeAt != 0 && now >= resumeAt) {
+        resumeAt = 0;
+        state = "receiving";
+        key.interestOps(SelectionKey.OP_READ);
+      }
+    }
+
+    boolean isIdle(long now) {
+      return idleTimeoutNanos > 0 && resumeAt == 0 && now - lastActivity > idleTimeoutNanos;
+    }
+
+    void finish(IOException failure) {
+      job.finish(failure);
+      close();
+    }
+
+    /**
+     * Closes the connection before all data has been received, failing its job if already started
+     * or canceling it if still waiting for the admission.
+     *
+     * @param failure the reason of failing a started job
+     */
+    void abort(IOException failure) {
+      if (output != null) {
+        finish(failure);
+        return;
+      }
+      waiting.remove(this);
+      try {
+        job.cancel();
+      } catch (PrintException e) {
+        LOG.log(Level.FINE, e, () -> "Failed to cancel raw job from " + remoteAddress);
+      }
+      close();
+    }
+
+    void close() {
+      connections.remove(this);
+      try {
+        channel.close();
+      } catch (IOException e) {
+        LOG.log(Level.FINE, e, () -> "Failed to close connection from " + remoteAddress);
+      }
+    }
+
+    RawConnectionStatus status(long now) {
+      long receiving = now - (output == null ? now : printingAt);
+      long bytesPerSecond = receiving > 0 ? bytes * TimeUnit.SECONDS.toNanos(1) / receiving : 0;
+      return new RawConnectionStatus(remoteAddress, job.id(), state, bytes,
+          TimeUnit.NANOSECONDS.toMillis(now - acceptedAt), bytesPerSecond);
+    }
+  }
+
+  /**
+   * Binds the raw port of the given printer and starts serving it.
+   *
+   * @param printService the printer printing the received data
+   * @param configuration the printer configuration defining the port and its limits
+   * @param sink supplies the unthrottled output streams of the jobs
+   * @throws IOException if the port could not be bound
+   */
+  RawPortListener(VirtualPrintService printService, PrinterConfiguration configuration,
+      Supplier<OutputStream> sink) throws IOException {
+    this.printService = printService;
+    this.sink = sink;
+    maxConnections = configuration.maxConnections();
+    idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(configuration.idleTimeoutMillis());
+    long bytesPerSecond = configuration.bytesPerSecond();
+    nanosPerByte =
+        bytesPerSecond > 0 ? Math.max(1, TimeUnit.SECONDS.toNanos(1) / bytesPerSecond) : 0;
+    buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    connections = ConcurrentHashMap.newKeySet();
+    waiting = new ArrayDeque<>();
+    idleTimeouts = new LongAdder();
+    selector = Selector.open();
+    serverChannel = ServerSocketChannel.open();
+    try {
+      serverChannel.setOption(StandardSocketOptions.SO_REUSEADDR, Boolean.TRUE);
+      serverChannel.bind(configuration.rawAddress(), BACKLOG);
+      serverChannel.configureBlocking(false);
+      acceptKey = serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+    } catch (IOException e) {
+      serverChannel.close();
+      selector.close();
+      throw e;
+    }
+    selectorThread = new Thread(this::serve, "virtual-printer-raw-" + printService.getName());
+    selectorThread.setDaemon(true);
+    selectorThread.start();
+  }
+
+  /**
+   * Returns the local address the raw port is bound to.
+   *
+   * @return the bound address
+   */
+  InetSocketAddress address() {
+    try {
+      return (InetSocketAddress) serverChannel.getLocalAddress();
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Returns the currently open connections, indexed by their remote address.
+   *
+   * @return the connection states
+   */
+  Map<String, RawConnectionStatus> connections() {
+    long now = System.nanoTime();
+    Map<String, RawConnectionStatus> states = new LinkedHashMap<>();
+    for (Connection connection : connections) {
+      states.put(connection.remoteAddress, connection.status(now));
+    }
+    return states;
+  }
+
+  /**
+   * Returns the number of currently open connections.
+   *
+   * @return the open connections
+   */
+  int openConnections() {
+    return connections.size();
+  }
+
+  /**
+   * Returns the number of connections closed because no data was received within the idle
+   * timeout.
+   *
+   * @return the idle timeout count
+   */
+  long idleTimeouts() {
+    return idleTimeouts.sum();
+  }
+
+  private void serve() {
+    try {
+      while (!closed) {
+        selector.select(TICK_MILLIS);
+        long now = System.nanoTime();
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+          SelectionKey key = keys.next();
+          keys.remove();
+          if (!key.isValid()) {
+            continue;
+          }
+          if (key.isAcceptable()) {
+            accept(now);
+          } else if (key.isReadable()) {
+            ((Connection) key.attachment()).read(now);
+          }
+        }
+        while (!waiting.isEmpty() && waiting.peek().start(now)) {
+          waiting.remove();
+        }
+        for (Connection connection : connections) {
+          if (connection.isIdle(now)) {
+            idleTimeouts.increment();
+            connection.abort(new IOException("No data received within the idle timeout"));
+          } else {
+            connection.resume(now);
+          }
+        }
+        acceptKey.interestOps(connections.size() < maxConnections ? SelectionKey.OP_ACCEPT : 0);
+      }
+    } catch (IOException | RuntimeException e) {
+      LOG.log(Level.SEVERE, e, () -> "Raw port of printer " + printService.getName() + " failed");
+    } finally {
+      for (Connection connection : connections) {
+        connection.abort(new IOException("Raw port closed"));
+      }
+      try {
+        serverChannel.close();
+        selector.close();
+      } catch (IOException e) {
+        LOG.log(Level.FINE, "Failed to close raw port", e);
+      }
+    }
+  }
+
+  private void accept(long now) throws IOException {
+    SocketChannel channel;
+    while (connections.size() < maxConnections && (channel = serverChannel.accept()) != null) {
+      channel.configureBlocking(false);
+      Connection connection = new Connection(channel, now);
+      connection.key = channel.register(selector, 0, connection);
+      connections.add(connection);
+      waiting.add(connection);
+    }
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+    selector.wakeup();
+    if (Thread.currentThread() != selectorThread) {
+      try {
+        selectorThread.join(TimeUnit.SECONDS.toMillis(5));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+}
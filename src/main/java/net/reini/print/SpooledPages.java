@@ -0,0 +1,177 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018-2026 Patrick Reinhart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.reini.print;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * Retrieves single pages or ranges of pages of a spooled PostScript job, using the page index file
+ * written next to the spool file. Each page is mapped read-only directly from the spool file, so
+ * fetching a page takes the same time regardless of the size of the job.
+ * <p>
+ * The index file consists of a 16 byte header, containing a magic number and the page count,
+ * followed by the start and end offset of each page as little endian longs.
+ * <p>
+ * Usage: {@code java net.reini.print.SpooledPages <spool file> <page>[-<page>]}, writing the
+ * given pages, numbered from 1, to the standard output.
+ */
+final class SpooledPages implements Closeable {
+  static final String INDEX_SUFFIX = ".pages";
+  static final long MAGIC = 0x5844495345474150L; // "PAGESIDX" in little endian
+  static final int HEADER_SIZE = 16;
+  static final int ENTRY_SIZE = 16;
+
+  private final Path spoolFile;
+  private final ByteBuffer index;
+  private final int pages;
+  private final FileChannel channel;
+
+  /**
+   * Opens the spool file and maps its page index.
+   *
+   * @param spoolFile the spool file of the job
+   * @throws IOException if the spool file or its page index could not be opened
+   */
+  SpooledPages(Path spoolFile) throws IOException {
+    this.spoolFile = spoolFile;
+    Path indexFile = indexFile(spoolFile);
+    try (FileChannel indexChannel = FileChannel.open(indexFile)) {
+      index = indexChannel.map(FileChannel.MapMode.READ_ONLY, 0, indexChannel.size());
+    }
+    index.order(ByteOrder.LITTLE_ENDIAN);
+    if (index.limit() < HEADER_SIZE || index.getLong(0) != MAGIC
+        || index.getLong(8) != (index.limit() - HEADER_SIZE) / ENTRY_SIZE) {
+      throw new IOException("Not a page index: " + indexFile);
+    }
+    pages = (int) index.getLong(8);
+    channel = FileChannel.open(spoolFile);
+  }
+
+  /**
+   * Returns the page index file of the given spool file.
+   *
+   * @param spoolFile the spool file
+   * @return the page index file next to the spool file
+   */
+  static Path indexFile(Path spoolFile) {
+    return spoolFile.resolveSibling(spoolFile.getFileName() + INDEX_SUFFIX);
+  }
+
+  /**
+   * Writes the page index file of the given spool file.
+   *
+   * @param spoolFile the spool file containing the indexed output
+   * @param pageIndex the page index of the output
+   * @throws IOException if the page index file could not be written
+   */
+  static void write(Path spoolFile, PageIndex pageIndex) throws IOException {
+    int pages = pageIndex.pages();
+    ByteBuffer buffer =
+        ByteBuffer.allocate(HEADER_SIZE + pages * ENTRY_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    buffer.putLong(MAGIC).putLong(pages);
+    for (int page = 0; page < pages; page++) {
+      long offset = pageIndex.offset(page);
+      buffer.putLong(offset).putLong(offset + pageIndex.size(page));
+    }
+    buffer.flip();
+    try (FileChannel indexChannel = FileChannel.open(indexFile(spoolFile),
+        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+        StandardOpenOption.WRITE)) {
+      while (buffer.hasRemaining()) {
+        indexChannel.write(buffer);
+      }
+    }
+  }
+
+  /**
+   * Returns the number of pages of the spooled job.
+   *
+   * @return the page count
+   */
+  int pages() {
+    return pages;
+  }
+
+  /**
+   * Returns the given page as read-only buffer mapped from the spool file.
+   *
+   * @param page the zero based page index
+   * @return the page content
+   * @throws IOException if the page could not be mapped
+   */
+  ByteBuffer page(int page) throws IOException {
+    return pages(page, page + 1);
+  }
+
+  /**
+   * Returns the given range of pages as one read-only buffer mapped from the spool file.
+   *
+   * @param fromPage the zero based index of the first page
+   * @param toPage the zero based index after the last page
+   * @return the content of the pages
+   * @throws IOException if the pages could not be mapped, as they were not captured completely
+   */
+  ByteBuffer pages(int fromPage, int toPage) throws IOException {
+    Objects.checkFromToIndex(fromPage, toPage, pages);
+    if (fromPage == toPage) {
+      return ByteBuffer.allocate(0).asReadOnlyBuffer();
+    }
+    long start = index.getLong(HEADER_SIZE + fromPage * ENTRY_SIZE);
+    long end = index.getLong(HEADER_SIZE + (toPage - 1) * ENTRY_SIZE + 8);
+    if (end > channel.size()) {
+      throw new IOException("Pages " + fromPage + " to " + (toPage - 1) + " of " + spoolFile
+          + " were not captured completely");
+    }
+    return channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length != 2) {
+      System.err.println("Usage: SpooledPages <spool file> <page>[-<page>]");
+      System.exit(2);
+    }
+    int separator = args[1].indexOf('-');
+    int first = Integer.parseInt(separator < 0 ? args[1] : args[1].substring(0, separator));
+    int last = separator < 0 ? first : Integer.parseInt(args[1].substring(separator + 1));
+    try (SpooledPages spooledPages = new SpooledPages(Path.of(args[0]))) {
+      ByteBuffer content = spooledPages.pages(first - 1, last);
+      WritableByteChannel out = Channels.newChannel(System.out);
+      while (content.hasRemaining()) {
+        out.write(content);
+      }
+      System.out.flush();
+    }
+  }
+}
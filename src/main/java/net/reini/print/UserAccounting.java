@@ -0,0 +1,317 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018-2026 Patrick Reinhart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.reini.print;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.print.PrintException;
+import javax.print.event.PrintJobAdapter;
+import javax.print.event.PrintJobEvent;
+
+/**
+ * Counts the jobs, pages and output bytes of all users printing to the virtual printers and
+ * limits the rate at which a single user is allowed to submit jobs.
+ * <p>
+ * The accounts are spread over independently locked stripes by the user name, so that jobs of
+ * different users rarely contend. The number of tracked users is bounded: once a stripe is full, a
+ * new user replaces the user with the least output bytes and inherits its byte count as possible
+ * error (space-saving algorithm). This keeps any user producing more than the average output of
+ * the tracked users in the accounts, while users printing rarely may be dropped and start anew,
+ * including a full job rate allowance.
+ */
+final class UserAccounting {
+  private static final Logger LOG = Logger.getLogger(UserAccounting.class.getName());
+
+  static final String RATE_PROPERTY = "net.reini.print.userRate";
+  static final String BURST_PROPERTY = "net.reini.print.userBurst";
+  static final String MAX_USERS_PROPERTY = "net.reini.print.maxUsers";
+  static final int DEFAULT_MAX_USERS = 10_000;
+
+  private static final int STRIPES = 16;
+
+  private final double tokensPerNano;
+  private final double burst;
+  private final Stripe[] stripes;
+  private final int stripeCapacity;
+  private final LongAdder evicted;
+  private final PrintJobAdapter jobListener;
+
+  /**
+   * Accounting of one user, guarded by the lock of its stripe.
+   */
+  private static final class Account {
+    final String user;
+    final long error;
+    long jobs;
+    long failed;
+    long rejected;
+    long pages;
+    long bytes;
+    double tokens;
+    long refilledAt;
+
+    Account(String user, long error, double tokens, long now) {
+      this.user = user;
+      this.error = error;
+      this.tokens = tokens;
+      this.refilledAt = now;
+    }
+
+    long weight() {
+      return bytes + error;
+    }
+
+    UserStatus status() {
+      return new UserStatus(user, jobs, failed, rejected, pages, bytes, error);
+    }
+  }
+
+  private static final class Stripe {
+    final ReentrantLock lock = new ReentrantLock();
+    final Map<String, Account> accounts = new HashMap<>();
+  }
+
+  /**
+   * Creates the accounting for the given limits.
+   *
+   * @param rate the jobs a user is allowed to submit per second or {@code 0} if unlimited
+   * @param burst the jobs a user is allowed to submit at once, at least {@code 1}
+   * @param maxUsers the maximum number of tracked users
+   */
+  UserAccounting(double rate, int burst, int maxUsers) {
+    if (rate < 0 || burst < 1 || maxUsers < 1) {
+      throw new IllegalArgumentException("invalid user limits");
+    }
+    this.tokensPerNano = rate / 1e9;
+    this.burst = burst;
+    stripes = new Stripe[STRIPES];
+    for (int i = 0; i < STRIPES; i++) {
+      stripes[i] = new Stripe();
+    }
+    stripeCapacity = (maxUsers + STRIPES - 1) / STRIPES;
+    evicted = new LongAdder();
+    jobListener = new PrintJobAdapter() {
+      @Override
+      public void printJobNoMoreEvents(PrintJobEvent pje) {
+        finished((VirtualDocPrintJob) pje.getPrintJob());
+      }
+    };
+  }
+
+  /**
+   * Returns the accounting defined by the {@value #RATE_PROPERTY}, {@value #BURST_PROPERTY} and
+   * {@value #MAX_USERS_PROPERTY} system properties.
+   *
+   * @return the configured accounting or an accounting without rate limit if not or wrongly
+   *         defined
+   */
+  static UserAccounting fromSystemProperties() {
+    String rate = System.getProperty(RATE_PROPERTY);
+    String burst = System.getProperty(BURST_PROPERTY);
+    String maxUsers = System.getProperty(MAX_USERS_PROPERTY);
+    try {
+      double jobsPerSecond = rate == null ? 0 : Double.parseDouble(rate.trim());
+      int jobsAtOnce = burst == null ? (int) Math.max(1, Math.ceil(jobsPerSecond))
+          : Integer.parseInt(burst.trim());
+      return new UserAccounting(jobsPerSecond, jobsAtOnce,
+          maxUsers == null ? DEFAULT_MAX_USERS : Integer.parseInt(maxUsers.trim()));
+    } catch (IllegalArgumentException e) {
+      LOG.log(Level.WARNING, e, () -> "Invalid user limits " + rate + "/" + burst + "/" + maxUsers);
+      return new UserAccounting(0, 1, DEFAULT_MAX_USERS);
+    }
+  }
+
+  private Stripe stripe(String user) {
+    int hash = user.hashCode();
+    return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+  }
+
+  /*
+   * Has to be called holding the lock of the stripe.
+   */
+  private Account account(Stripe stripe, String user, long now) {
+    Account account = stripe.accounts.get(user);
+    if (account == null) {
+      long error = 0;
+      if (stripe.accounts.size() >= stripeCapacity) {
+        Account lightest = null;
+        for (Account candidate : stripe.accounts.values()) {
+          if (lightest == null || candidate.weight() < lightest.weight()) {
+            lightest = candidate;
+          }
+        }
+        stripe.accounts.remove(lightest.user);
+        error = lightest.weight();
+        evicted.increment();
+      }
+      account = new Account(user, error, burst, now);
+      stripe.accounts.put(user, account);
+    }
+    return account;
+  }
+
+  /**
+   * Records the creation of the given job and accounts it to its originating user, once the job is
+   * finished.
+   *
+   * @param job the created job
+   */
+  void jobCreated(VirtualDocPrintJob job) {
+    job.addPrintJobListener(jobListener);
+  }
+
+  /**
+   * Checks whether the given user is allowed to submit another job according to its job rate
+   * limit and consumes one job of its allowance.
+   *
+   * @param user the originating user name
+   * @throws PrintException if the user has exceeded its job rate
+   */
+  void submit(String user) throws PrintException {
+    if (tokensPerNano == 0) {
+      return;
+    }
+    Stripe stripe = stripe(user);
+    stripe.lock.lock();
+    try {
+      long now = System.nanoTime();
+      Account account = account(stripe, user, now);
+      account.tokens = Math.min(burst, account.tokens + (now - account.refilledAt) * tokensPerNano);
+      account.refilledAt = now;
+      if (account.tokens < 1) {
+        account.rejected++;
+        throw new PrintException("job rate of user " + user + " exceeded");
+      }
+      account.tokens--;
+    } finally {
+      stripe.lock.unlock();
+    }
+  }
+
+  private void finished(VirtualDocPrintJob job) {
+    String user = job.userName();
+    if (user == null) {
+      // never started printing
+      return;
+    }
+    Stripe stripe = stripe(user);
+    stripe.lock.lock();
+    try {
+      Account account = account(stripe, user, System.nanoTime());
+      account.jobs++;
+      if (job.state() != VirtualDocPrintJob.State.COMPLETED) {
+        account.failed++;
+      }
+      account.pages += Math.max(0, job.renderedPages());
+      account.bytes += job.writtenBytes();
+    } finally {
+      stripe.lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the accounting of the given user.
+   *
+   * @param user the originating user name
+   * @return the user accounting or {@code null} if the user is not tracked
+   */
+  UserStatus user(String user) {
+    Stripe stripe = stripe(user);
+    stripe.lock.lock();
+    try {
+      Account account = stripe.accounts.get(user);
+      return account == null ? null : account.status();
+    } finally {
+      stripe.lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the users with the most output bytes, including the possible error.
+   *
+   * @param count the maximum number of returned users
+   * @return the heaviest users ordered by descending output volume
+   */
+  List<UserStatus> topUsers(int count) {
+    if (count <= 0) {
+      return List.of();
+    }
+    PriorityQueue<UserStatus> top = new PriorityQueue<>(count + 1,
+        (a, b) -> Long.compare(a.getBytes() + a.getError(), b.getBytes() + b.getError()));
+    for (Stripe stripe : stripes) {
+      stripe.lock.lock();
+      try {
+        for (Account account : stripe.accounts.values()) {
+          if (top.size() < count) {
+            top.add(account.status());
+          } else if (account.weight() > top.peek().getBytes() + top.peek().getError()) {
+            top.poll();
+            top.add(account.status());
+          }
+        }
+      } finally {
+        stripe.lock.unlock();
+      }
+    }
+    List<UserStatus> users = new ArrayList<>(top.size());
+    while (!top.isEmpty()) {
+      users.add(top.poll());
+    }
+    Collections.reverse(users);
+    return users;
+  }
+
+  /**
+   * Returns the number of currently tracked users.
+   *
+   * @return the tracked users
+   */
+  int trackedUsers() {
+    int users = 0;
+    for (Stripe stripe : stripes) {
+      stripe.lock.lock();
+      try {
+        users += stripe.accounts.size();
+      } finally {
+        stripe.lock.unlock();
+      }
+    }
+    return users;
+  }
+
+  /**
+   * Returns the number of users having been dropped to make room for other users.
+   *
+   * @return total count of evicted users
+   */
+  long evictedUsers() {
+    return evicted.sum();
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018-2026 Patrick Reinhart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.reini.print;
+
+import javax.management.ConstructorParameters;
+
+/**
+ * Accounting of the print jobs of one user across all virtual printers.
+ */
+public final class UserStatus {
+  private final String user;
+  private final long jobs;
+  private final long failed;
+  private final long rejected;
+  private final long pages;
+  private final long bytes;
+  private final long error;
+
+  /**
+   * Constructor
+   * 
+   * @param user the originating user name
+   * @param jobs the number of finished jobs
+   * @param failed the number of failed or canceled jobs
+   * @param rejected the number of jobs rejected by the job rate limit of the user
+   * @param pages the number of rendered pages
+   * @param bytes the number of output bytes
+   * @param error the maximum number of output bytes not being counted
+   */
+  @ConstructorParameters({"user", "jobs", "failed", "rejected", "pages", "bytes", "error"})
+  public UserStatus(String user, long jobs, long failed, long rejected, long pages, long bytes,
+      long error) {
+    this.user = user;
+    this.jobs = jobs;
+    this.failed = failed;
+    this.rejected = rejected;
+    this.pages = pages;
+    this.bytes = bytes;
+    this.error = error;
+  }
+
+  /**
+   * Returns the originating user name.
+   * 
+   * @return the user name
+   */
+  public String getUser() {
+    return user;
+  }
+
+  /**
+   * Returns the number of finished jobs.
+   * 
+   * @return the finished jobs
+   */
+  public long getJobs() {
+    return jobs;
+  }
+
+  /**
+   * Returns the number of failed or canceled jobs.
+   * 
+   * @return the failed jobs
+   */
+  public long getFailed() {
+    return failed;
+  }
+
+  /**
+   * Returns the number of jobs rejected by the job rate limit of the user.
+   * 
+   * @return the rejected jobs
+   */
+  public long getRejected() {
+    return rejected;
+  }
+
+  /**
+   * Returns the number of rendered pages, as far as known.
+   * 
+   * @return the rendered pages
+   */
+  public long getPages() {
+    return pages;
+  }
+
+  /**
+   * Returns the number of output bytes.
+   * 
+   * @return the output bytes
+   */
+  public long getBytes() {
+    return bytes;
+  }
+
+  /**
+   * Returns the maximum number of output bytes of the user, that have not been counted, because the
+   * user was not tracked at that time. The real output volume of the user lies between
+   * {@link #getBytes()} and the sum of both values.
+   * 
+   * @return the maximum uncounted output bytes
+   */
+  public long getError() {
+    return error;
+  }
+
+  @Override
+  public String toString() {
+    return user + ": " + jobs + " jobs, " + pages + " pages, " + bytes + " bytes";
+  }
+}
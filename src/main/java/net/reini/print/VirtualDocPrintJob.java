@@ -26,35 +26,50 @@ import static javax.print.event.PrintJobEvent.JOB_COMPLETE;
 import static javax.print.event.PrintJobEvent.JOB_FAILED;
 import static javax.print.event.PrintJobEvent.NO_MORE_EVENTS;
 
+import java.awt.print.Pageable;
+import java.awt.print.Printable;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.net.URL;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import javax.print.AttributeException;
 import javax.print.CancelablePrintJob;
 import javax.print.Doc;
 import javax.print.DocFlavor;
 import javax.print.PrintException;
 import javax.print.PrintService;
+import javax.print.SimpleDoc;
 import javax.print.StreamPrintService;
 import javax.print.StreamPrintServiceFactory;
 import javax.print.attribute.Attribute;
+import javax.print.attribute.AttributeSet;
 import javax.print.attribute.AttributeSetUtilities;
 import javax.print.attribute.DocAttributeSet;
+import javax.print.attribute.HashDocAttributeSet;
 import javax.print.attribute.HashPrintJobAttributeSet;
 import javax.print.attribute.HashPrintRequestAttributeSet;
 import javax.print.attribute.PrintJobAttribute;
 import javax.print.attribute.PrintJobAttributeSet;
 import javax.print.attribute.PrintRequestAttribute;
 import javax.print.attribute.PrintRequestAttributeSet;
+import javax.print.attribute.standard.Copies;
 import javax.print.attribute.standard.DocumentName;
+import javax.print.attribute.standard.Fidelity;
 import javax.print.attribute.standard.JobName;
+import javax.print.attribute.standard.JobState;
 import javax.print.attribute.standard.JobOriginatingUserName;
+import javax.print.attribute.standard.PageRanges;
 import javax.print.attribute.standard.RequestingUserName;
 import javax.print.event.PrintJobAttributeListener;
 import javax.print.event.PrintJobEvent;
@@ -62,22 +77,75 @@ import javax.print.event.PrintJobListener;
 
 class VirtualDocPrintJob implements CancelablePrintJob {
   private static final Logger LOG = Logger.getLogger(VirtualDocPrintJob.class.getName());
+  private static final VarHandle STATE;
+  private static final AtomicLong JOB_IDS = new AtomicLong();
+  private static final String POSTSCRIPT = DocFlavor.BYTE_ARRAY.POSTSCRIPT.getMimeType();
 
-  private final AtomicBoolean canceled;
-  private final AtomicBoolean printing;
+  static {
+    try {
+      STATE = MethodHandles.lookup().findVarHandle(VirtualDocPrintJob.class, "state", State.class);
+    } catch (ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  /**
+   * The life cycle states of a job. A job is {@link #CREATED} until being printed, it is
+   * {@link #QUEUED} while waiting for the admission and {@link #PRINTING} until it reaches one of
+   * the final states {@link #COMPLETED}, {@link #FAILED} or {@link #CANCELED}. Canceling is only
+   * possible before the job is printing.
+   */
+  enum State {
+    CREATED(JobState.UNKNOWN),
+    QUEUED(JobState.PENDING),
+    PRINTING(JobState.PROCESSING),
+    COMPLETED(JobState.COMPLETED),
+    FAILED(JobState.ABORTED),
+    CANCELED(JobState.CANCELED);
+
+    final JobState jobState;
+
+    State(JobState jobState) {
+      this.jobState = jobState;
+    }
+  }
+
+  private final long id;
   private final PrintService service;
   private final Supplier<OutputStream> outputStreamSupplier;
+  private final AdmissionControl admissionControl;
+  private final UserAccounting userAccounting;
 
+  private volatile State state; // updated using the STATE var handle
+  private long reportedBytes;
+  private volatile long skippedPages;
+  private DocFlavor docFlavor;
+  private long queuedAt;
+  private long printingAt;
+  private CountingOutputStream pushedOutput;
+  private long queueNanos;
+  private long renderNanos;
+  private long writtenBytes;
+  private int renderedPages = -1;
+  private PageIndex pageIndex;
   private PrintJobAttributeSet jobAttrSet;
   private List<PrintJobListener> jobListeners;
   private List<PrintJobAttributeListener> attrListeners;
   private List<PrintJobAttributeSet> listenedAttributeSets;
 
-  VirtualDocPrintJob(PrintService service, Supplier<OutputStream> outputStreamSupplier) {
-    this.canceled = new AtomicBoolean();
-    this.printing = new AtomicBoolean();
+  VirtualDocPrintJob(PrintService service, Supplier<OutputStream> outputStreamSupplier,
+      AdmissionControl admissionControl) {
+    this(service, outputStreamSupplier, admissionControl, null);
+  }
+
+  VirtualDocPrintJob(PrintService service, Supplier<OutputStream> outputStreamSupplier,
+      AdmissionControl admissionControl, UserAccounting userAccounting) {
+    this.id = JOB_IDS.incrementAndGet();
+    this.state = State.CREATED;
     this.service = service;
     this.outputStreamSupplier = outputStreamSupplier;
+    this.admissionControl = admissionControl;
+    this.userAccounting = userAccounting;
   }
 
   private void notifyEvent(int reason) {
@@ -112,7 +180,7 @@ class VirtualDocPrintJob implements CancelablePrintJob {
   /*
    * There's some inefficiency here as the job set is created even though it may never be requested.
    */
-  private synchronized PrintRequestAttributeSet initializeAttributeSets(Doc doc,
+  synchronized PrintRequestAttributeSet initializeAttributeSets(Doc doc,
       PrintRequestAttributeSet reqSet) {
     PrintRequestAttributeSet reqAttr = new HashPrintRequestAttributeSet();
     PrintJobAttributeSet jobAttr = new HashPrintJobAttributeSet();
@@ -163,22 +231,38 @@ class VirtualDocPrintJob implements CancelablePrintJob {
 
   private static void updateUserName(PrintRequestAttributeSet reqSet,
       PrintJobAttributeSet jobAttr) {
+    RequestingUserName ruName = requestingUserName(reqSet);
+    if (ruName != null) {
+      jobAttr.add(new JobOriginatingUserName(ruName.getValue(), ruName.getLocale()));
+    } else {
+      jobAttr.add(new JobOriginatingUserName(systemUserName(), null));
+    }
+  }
+
+  /**
+   * Resolves the originating user of a job submitted using the given request attributes the same
+   * way as for the {@link JobOriginatingUserName} job attribute.
+   */
+  static String originatingUser(PrintRequestAttributeSet reqSet) {
+    RequestingUserName ruName = requestingUserName(reqSet);
+    return ruName == null ? systemUserName() : ruName.getValue();
+  }
+
+  private static RequestingUserName requestingUserName(PrintRequestAttributeSet reqSet) {
+    // a requesting user name is preferred, as remote clients print on behalf of their users
+    RequestingUserName ruName =
+        reqSet == null ? null : (RequestingUserName) reqSet.get(RequestingUserName.class);
+    return ruName == null || ruName.getValue().isEmpty() ? null : ruName;
+  }
+
+  private static String systemUserName() {
     String userName = "";
     try {
       userName = System.getProperty("user.name");
     } catch (SecurityException se) {
       LOG.log(Level.WARNING, "Failed to get user name", se);
     }
-    if (userName == null || userName.equals("")) {
-      RequestingUserName ruName = (RequestingUserName) reqSet.get(RequestingUserName.class);
-      if (ruName != null) {
-        jobAttr.add(new JobOriginatingUserName(ruName.getValue(), ruName.getLocale()));
-      } else {
-        jobAttr.add(new JobOriginatingUserName("", null));
-      }
-    } else {
-      jobAttr.add(new JobOriginatingUserName(userName, null));
-    }
+    return userName == null ? "" : userName;
   }
 
   @Override
@@ -188,15 +272,27 @@ class VirtualDocPrintJob implements CancelablePrintJob {
 
   @Override
   public PrintJobAttributeSet getAttributes() {
+    PrintJobAttributeSet jobSet;
     synchronized (this) {
-      if (jobAttrSet == null) {
-        /* just return an empty set until the job is submitted */
-        PrintJobAttributeSet jobSet = new HashPrintJobAttributeSet();
-        return AttributeSetUtilities.unmodifiableView(jobSet);
-      } else {
-        return jobAttrSet;
-      }
+      /* just return the job state until the job is submitted */
+      jobSet = jobAttrSet == null ? new HashPrintJobAttributeSet()
+          : new HashPrintJobAttributeSet(jobAttrSet);
     }
+    jobSet.add(state().jobState);
+    return AttributeSetUtilities.unmodifiableView(jobSet);
+  }
+
+  /**
+   * Returns the current life cycle state of this job.
+   *
+   * @return the job state
+   */
+  State state() {
+    return (State) STATE.getAcquire(this);
+  }
+
+  private boolean transition(State expected, State newState) {
+    return STATE.compareAndSet(this, expected, newState);
   }
 
   @Override
@@ -264,45 +360,432 @@ class VirtualDocPrintJob implements CancelablePrintJob {
 
   @Override
   public void print(Doc doc, PrintRequestAttributeSet attributes) throws PrintException {
-    if (canceled.get()) {
-      throw new PrintException("printing canceled");
-    }
-    if (!printing.compareAndSet(false, true)) {
+    if (!transition(State.CREATED, State.QUEUED)) {
+      if (state() == State.CANCELED) {
+        throw new PrintException("printing canceled");
+      }
       throw new PrintException("already printing");
     }
+    queuedAt = System.nanoTime();
     try {
-      final DocFlavor flavor = doc.getDocFlavor();
-      final StreamPrintServiceFactory[] factories =
-          StreamPrintServiceFactory.lookupStreamPrintServiceFactories(flavor, null);
-      if (factories.length == 0) {
-        LOG.log(Level.WARNING, "No suitable stream print service factories found");
+      docFlavor = doc.getDocFlavor();
+      checkSupported(docFlavor, attributes);
+      if (userAccounting != null) {
+        userAccounting.submit(originatingUser(attributes));
+      }
+      admissionControl.acquire(() -> state() == State.CANCELED);
+    } catch (PrintException e) {
+      queueNanos = System.nanoTime() - queuedAt;
+      if (transition(State.QUEUED, State.FAILED)) {
+        notifyEvent(JOB_FAILED);
+        notifyEvent(NO_MORE_EVENTS);
+      }
+      throw e;
+    }
+    if (!transition(State.QUEUED, State.PRINTING)) {
+      admissionControl.release(0);
+      throw new PrintException("printing canceled");
+    }
+    printingAt = System.nanoTime();
+    queueNanos = printingAt - queuedAt;
+    try {
+      if (isRaw(docFlavor)) {
+        printRaw(doc, attributes);
       } else {
-        printToStream(doc, attributes, factories[0]);
+        final StreamPrintServiceFactory[] factories =
+            StreamPrintServiceFactory.lookupStreamPrintServiceFactories(docFlavor, null);
+        if (factories.length == 0) {
+          LOG.log(Level.WARNING, "No suitable stream print service factories found");
+        } else {
+          printToStream(doc, attributes, factories[0]);
+        }
       }
+      STATE.setRelease(this, State.COMPLETED);
       notifyEvent(JOB_COMPLETE);
-    } catch (PrintException e) {
+    } catch (PrintException | RuntimeException e) {
+      STATE.setRelease(this, State.FAILED);
       notifyEvent(JOB_FAILED);
       throw e;
     } finally {
+      renderNanos = System.nanoTime() - printingAt;
+      admissionControl.release(reportedBytes);
       notifyEvent(NO_MORE_EVENTS);
     }
   }
 
+  /**
+   * Starts printing a raw document, whose data is pushed by the caller to the returned stream
+   * instead of being read from the document. Unlike {@link #print(Doc, PrintRequestAttributeSet)}
+   * this never waits for the admission, so that a single thread is able to serve many jobs. A
+   * started job has to be finished using {@link #finish(IOException)}.
+   *
+   * @param doc the document describing the pushed data
+   * @param attributes the print request attributes
+   * @param sink supplies the stream the pushed data is written to
+   * @return the stream to push the data to or {@code null} if the job is not yet admitted and
+   *         starting it has to be tried again later
+   * @throws PrintException if the job has been canceled, rejected or already been started
+   */
+  CountingOutputStream start(Doc doc, PrintRequestAttributeSet attributes,
+      Supplier<OutputStream> sink) throws PrintException {
+    boolean submitted = transition(State.CREATED, State.QUEUED);
+    if (submitted) {
+      queuedAt = System.nanoTime();
+    } else if (state() == State.CANCELED) {
+      throw new PrintException("printing canceled");
+    } else if (state() != State.QUEUED) {
+      throw new PrintException("already printing");
+    }
+    try {
+      if (submitted) {
+        docFlavor = doc.getDocFlavor();
+        checkSupported(docFlavor, attributes);
+        if (userAccounting != null) {
+          userAccounting.submit(originatingUser(attributes));
+        }
+      }
+      if (!admissionControl.tryAcquire()) {
+        return null;
+      }
+    } catch (PrintException e) {
+      queueNanos = System.nanoTime() - queuedAt;
+      if (transition(State.QUEUED, State.FAILED)) {
+        notifyEvent(JOB_FAILED);
+        notifyEvent(NO_MORE_EVENTS);
+      }
+      throw e;
+    }
+    if (!transition(State.QUEUED, State.PRINTING)) {
+      admissionControl.release(0);
+      throw new PrintException("printing canceled");
+    }
+    printingAt = System.nanoTime();
+    queueNanos = printingAt - queuedAt;
+    initializeAttributeSets(doc, attributes);
+    try {
+      pushedOutput = new CountingOutputStream(sink.get(), admissionControl::bytesWritten);
+    } catch (RuntimeException e) {
+      finish(new IOException("Unable to open job output", e));
+      throw new PrintException(e);
+    }
+    return pushedOutput;
+  }
+
+  /**
+   * Finishes a job started using {@link #start(Doc, PrintRequestAttributeSet, Supplier)} after
+   * all data has been pushed or pushing the data failed.
+   *
+   * @param failure the reason of the failure or {@code null} if the job completed
+   */
+  void finish(IOException failure) {
+    if (pushedOutput != null) {
+      try {
+        pushedOutput.close();
+      } catch (IOException e) {
+        if (failure == null) {
+          failure = e;
+        }
+      }
+      reportedBytes = pushedOutput.reported();
+      writtenBytes = pushedOutput.count();
+    }
+    renderNanos = System.nanoTime() - printingAt;
+    if (failure == null) {
+      STATE.setRelease(this, State.COMPLETED);
+      notifyEvent(JOB_COMPLETE);
+    } else {
+      LOG.log(Level.FINE, "Pushed job failed", failure);
+      STATE.setRelease(this, State.FAILED);
+      notifyEvent(JOB_FAILED);
+    }
+    admissionControl.release(reportedBytes);
+    notifyEvent(NO_MORE_EVENTS);
+  }
+
+  /**
+   * Fails the job for requested attributes with a value not supported by the virtual printers for
+   * the given document flavor. The attributes of an unsupported category are ignored, unless the
+   * request demands {@link Fidelity#FIDELITY_TRUE}.
+   */
+  private static void checkSupported(DocFlavor flavor, PrintRequestAttributeSet attributes)
+      throws PrintException {
+    AttributeSet unsupported = VirtualPrintService.unsupportedAttributes(flavor, attributes);
+    if (unsupported == null) {
+      return;
+    }
+    boolean fidelity = attributes.get(Fidelity.class) == Fidelity.FIDELITY_TRUE;
+    List<Class<?>> categories = new ArrayList<>();
+    List<Attribute> values = new ArrayList<>();
+    for (Attribute attribute : unsupported.toArray()) {
+      if (VirtualPrintService.isSupportedCategory(attribute.getCategory())) {
+        values.add(attribute);
+      } else if (fidelity) {
+        categories.add(attribute.getCategory());
+      }
+    }
+    if (!categories.isEmpty() || !values.isEmpty()) {
+      throw new UnsupportedAttributesException(categories.toArray(new Class<?>[0]),
+          values.toArray(new Attribute[0]));
+    }
+  }
+
+  /**
+   * Signals that a job has not been printed because of unsupported attributes.
+   */
+  private static final class UnsupportedAttributesException extends PrintException
+      implements AttributeException {
+    private static final long serialVersionUID = 1L;
+
+    private final Class<?>[] categories;
+    private final Attribute[] values;
+
+    UnsupportedAttributesException(Class<?>[] categories, Attribute[] values) {
+      super("unsupported attributes: " + Arrays.toString(categories) + " "
+          + Arrays.toString(values));
+      this.categories = categories;
+      this.values = values;
+    }
+
+    @Override
+    public Class<?>[] getUnsupportedAttributes() {
+      return categories.clone();
+    }
+
+    @Override
+    public Attribute[] getUnsupportedValues() {
+      return values.clone();
+    }
+  }
+
+  /**
+   * Checks if the given flavor contains print data in a printer language, being passed to the sink
+   * unchanged.
+   */
+  static boolean isRaw(DocFlavor flavor) {
+    String representationClass = flavor.getRepresentationClassName();
+    return "java.io.InputStream".equals(representationClass) || "[B".equals(representationClass);
+  }
+
+  private void printRaw(Doc doc, PrintRequestAttributeSet attributes) throws PrintException {
+    initializeAttributeSets(doc, attributes);
+    CountingOutputStream counter = null;
+    try (InputStream in = doc.getStreamForBytes(); OutputStream fos = outputStreamSupplier.get()) {
+      if (in == null) {
+        throw new PrintException("no print data");
+      }
+      counter = new CountingOutputStream(fos, admissionControl::bytesWritten);
+      in.transferTo(counter);
+    } catch (IOException e) {
+      throw new PrintException(e);
+    } finally {
+      if (counter != null) {
+        reportedBytes = counter.reported();
+        writtenBytes = counter.count();
+      }
+    }
+  }
+
   private void printToStream(Doc doc, PrintRequestAttributeSet attributes,
       StreamPrintServiceFactory spf) throws PrintException {
+    PrintRequestAttributeSet reqAttr = initializeAttributeSets(doc, attributes);
+    Copies copies = (Copies) reqAttr.get(Copies.class);
+    reqAttr.remove(Copies.class);
+    PageRanges pageRanges = (PageRanges) reqAttr.get(PageRanges.class);
+    PageRangeFilter pageRangeFilter = null;
+    if (pageRanges != null) {
+      reqAttr.remove(PageRanges.class);
+      pageRangeFilter = pageRangeFilter(doc, pageRanges);
+      doc = new SimpleDoc(pageRangeFilter, doc.getDocFlavor(), withoutPageRanges(doc));
+    }
+    PageIndex index = POSTSCRIPT.equals(spf.getOutputFormat()) ? new PageIndex() : null;
+    int indexedPages = -1;
+    CountingOutputStream counter = null;
     try (OutputStream fos = outputStreamSupplier.get()) {
-      StreamPrintService sps = spf.getPrintService(fos);
-      sps.createPrintJob().print(doc, initializeAttributeSets(doc, attributes));
-    } catch (IOException | RuntimeException e) {
+      counter = new CountingOutputStream(fos, admissionControl::bytesWritten);
+      if (copies == null || copies.getValue() == 1) {
+        render(spf, doc, reqAttr, scanning(index, counter));
+        if (index != null) {
+          index.finish();
+          indexedPages = index.pages();
+        }
+      } else {
+        // render the document once and replay the rendered output for all other copies
+        long spoolPosition = counter.spoolPosition();
+        if (spoolPosition >= 0) {
+          render(spf, doc, reqAttr, scanning(index, counter));
+          counter.replay(spoolPosition, copies.getValue() - 1);
+        } else {
+          try (OutputSink.BudgetedOutputStream rendered = buffer(fos)) {
+            render(spf, doc, reqAttr, scanning(index, rendered));
+            for (int i = 0; i < copies.getValue(); i++) {
+              rendered.writeTo(counter);
+            }
+          }
+        }
+        if (index != null) {
+          indexedPages = index.pages();
+          index.repeat(copies.getValue());
+        }
+      }
+      pageIndex = index;
+      writePageIndex(OutputSink.spoolFile(fos), index);
+    } catch (IOException e) {
+      throw new PrintException("Stream output failed", e);
+    } catch (RuntimeException e) {
       LOG.log(Level.WARNING, "Stream output failed", e);
+    } finally {
+      if (counter != null) {
+        reportedBytes = counter.reported();
+        writtenBytes = counter.count();
+      }
+      if (pageRangeFilter != null) {
+        skippedPages = pageRangeFilter.skippedPages();
+        renderedPages = pageRangeFilter.renderedPages();
+      } else {
+        renderedPages = indexedPages;
+      }
+    }
+  }
+
+  private static void render(StreamPrintServiceFactory spf, Doc doc,
+      PrintRequestAttributeSet attributes, OutputStream out) throws PrintException {
+    StreamPrintService sps = spf.getPrintService(out);
+    sps.createPrintJob().print(doc, attributes);
+  }
+
+  /**
+   * Opens the buffer the output of multiple copies is rendered to, being accounted in the memory
+   * budget of the printer together with the given job output.
+   */
+  private OutputSink.BudgetedOutputStream buffer(OutputStream out) {
+    if (outputStreamSupplier instanceof OutputSink) {
+      return ((OutputSink) outputStreamSupplier).buffer(out);
+    }
+    return new OutputSink.BudgetedOutputStream(new MemoryBudget(0),
+        PrinterConfiguration.MemoryPressure.BLOCK);
+  }
+
+  private static OutputStream scanning(PageIndex index, OutputStream out) {
+    return index == null ? out : index.scanning(out);
+  }
+
+  /**
+   * Writes the page index next to the spool file, so that single pages of the spooled output can
+   * be retrieved using {@link SpooledPages}.
+   */
+  private static void writePageIndex(Path spoolFile, PageIndex index) {
+    if (spoolFile != null && index != null) {
+      try {
+        SpooledPages.write(spoolFile, index);
+      } catch (IOException e) {
+        LOG.log(Level.WARNING, e, () -> "Unable to write page index of " + spoolFile);
+      }
+    }
+  }
+
+  private static PageRangeFilter pageRangeFilter(Doc doc, PageRanges pageRanges)
+      throws PrintException {
+    try {
+      Object printData = doc.getPrintData();
+      if (printData instanceof Pageable) {
+        return PageRangeFilter.of(pageRanges, (Pageable) printData);
+      }
+      return PageRangeFilter.of(pageRanges, (Printable) printData);
+    } catch (IOException | ClassCastException e) {
+      throw new PrintException(e);
+    }
+  }
+
+  private static DocAttributeSet withoutPageRanges(Doc doc) {
+    DocAttributeSet docSet = doc.getAttributes();
+    if (docSet == null || !docSet.containsKey(PageRanges.class)) {
+      return docSet;
     }
+    DocAttributeSet filtered = new HashDocAttributeSet(docSet);
+    filtered.remove(PageRanges.class);
+    return filtered;
+  }
+
+  /**
+   * Returns the number of pages of the document not being rendered, because they were not part of
+   * the requested {@link PageRanges}.
+   *
+   * @return the number of skipped pages
+   */
+  long skippedPages() {
+    return skippedPages;
+  }
+
+  /**
+   * Returns the id of the job, being unique within the running JVM.
+   *
+   * @return the job id
+   */
+  long id() {
+    return id;
+  }
+
+  synchronized String jobName() {
+    JobName jobName = jobAttrSet == null ? null : (JobName) jobAttrSet.get(JobName.class);
+    return jobName == null ? null : jobName.getValue();
+  }
+
+  synchronized String userName() {
+    JobOriginatingUserName userName = jobAttrSet == null ? null
+        : (JobOriginatingUserName) jobAttrSet.get(JobOriginatingUserName.class);
+    return userName == null ? null : userName.getValue();
+  }
+
+  DocFlavor flavor() {
+    return docFlavor;
+  }
+
+  long queueNanos() {
+    return queueNanos;
+  }
+
+  long renderNanos() {
+    return renderNanos;
+  }
+
+  long writtenBytes() {
+    return writtenBytes;
+  }
+
+  /**
+   * Returns the number of rendered pages, as far as known.
+   *
+   * @return the number of rendered pages or {@code -1} if unknown
+   */
+  int renderedPages() {
+    return renderedPages;
+  }
+
+  /**
+   * Returns the location of the pages within the output of a job rendered to PostScript.
+   *
+   * @return the page index or {@code null} if the job was not rendered to PostScript
+   */
+  PageIndex pageIndex() {
+    return pageIndex;
   }
 
   @Override
   public void cancel() throws PrintException {
-    if (canceled.compareAndSet(false, true)) {
-      notifyEvent(JOB_CANCELED);
-      notifyEvent(NO_MORE_EVENTS);
+    State current = state();
+    while (current == State.CREATED || current == State.QUEUED) {
+      if (transition(current, State.CANCELED)) {
+        if (current == State.QUEUED) {
+          admissionControl.wakeUp();
+        }
+        notifyEvent(JOB_CANCELED);
+        notifyEvent(NO_MORE_EVENTS);
+        return;
+      }
+      current = state();
+    }
+    if (current != State.CANCELED) {
+      throw new PrintException("job can not be canceled while " + current);
     }
   }
 }
@@ -20,11 +20,15 @@
  */
 package net.reini.print;
 
-import java.io.ByteArrayOutputStream;
-import java.util.HashSet;
+import java.io.IOException;
+import java.util.Map;
 import java.util.Set;
+import java.util.SortedMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import javax.print.DocFlavor;
 import javax.print.DocPrintJob;
@@ -33,39 +37,117 @@ import javax.print.ServiceUIFactory;
 import javax.print.attribute.Attribute;
 import javax.print.attribute.AttributeSet;
 import javax.print.attribute.AttributeSetUtilities;
+import javax.print.attribute.HashAttributeSet;
 import javax.print.attribute.HashPrintServiceAttributeSet;
 import javax.print.attribute.PrintServiceAttribute;
 import javax.print.attribute.PrintServiceAttributeSet;
+import javax.print.attribute.standard.Copies;
+import javax.print.attribute.standard.CopiesSupported;
+import javax.print.attribute.standard.Fidelity;
+import javax.print.attribute.standard.JobName;
+import javax.print.attribute.standard.PageRanges;
 import javax.print.attribute.standard.PrinterIsAcceptingJobs;
 import javax.print.attribute.standard.PrinterName;
 import javax.print.attribute.standard.PrinterState;
+import javax.print.attribute.standard.QueuedJobCount;
+import javax.print.attribute.standard.RequestingUserName;
 import javax.print.event.PrintJobAdapter;
 import javax.print.event.PrintJobEvent;
 import javax.print.event.PrintServiceAttributeListener;
 
 class VirtualPrintService implements PrintService, VirtualPrintServiceMXBean {
-  private static final Class<?>[] supportedAttributeCategories = new Class<?>[0];
+  private static final Logger LOG = Logger.getLogger(VirtualPrintService.class.getName());
+  private static final Class<?>[] supportedAttributeCategories = {Copies.class, PageRanges.class,
+      JobName.class, RequestingUserName.class, Fidelity.class};
+  private static final int MAX_COPIES = 999;
+  private static final CopiesSupported copiesSupported = new CopiesSupported(1, MAX_COPIES);
+  private static final CopiesSupported singleCopy = new CopiesSupported(1);
+  private static final PageRanges allPages = new PageRanges(1, Integer.MAX_VALUE);
   private static final DocFlavor[] emptyDocFlavors = new DocFlavor[0];
 
   private final String name;
+  private final PrinterConfiguration configuration;
   private final Runnable removeAction;
+  private final ServiceObserver observer;
   private final Set<DocFlavor> supportedFlavors;
+  private final DocFlavor[] supportedFlavorArray;
+  private final OutputSink outputSink;
+  private final AdmissionControl admissionControl;
   private final StatisticsListener statisticsListener;
   private final PrintServiceAttributeSet printServiceAttributeSet;
+  private final AttributeChangeNotifier attributeChangeNotifier;
+  private final PrinterName printerName;
+  private final AtomicLong attributesVersion;
+  private final RawPortListener rawPortListener;
+  private final UserAccounting userAccounting;
+
+  private volatile PrinterIsAcceptingJobs acceptingJobs;
+  private volatile AttributesSnapshot attributesSnapshot;
+
+  /**
+   * Immutable service attributes valid for one attributes version.
+   */
+  private static final class AttributesSnapshot {
+    final long version;
+    final PrintServiceAttributeSet attributes;
+
+    AttributesSnapshot(long version, PrintServiceAttributeSet attributes) {
+      this.version = version;
+      this.attributes = attributes;
+    }
+  }
 
-  private PrinterIsAcceptingJobs acceptingJobs;
+  /**
+   * Receives internal notifications about changes of a virtual printer.
+   */
+  interface ServiceObserver {
+    /**
+     * Called after the {@link PrinterState} or {@link PrinterIsAcceptingJobs} value of the given
+     * print service has changed.
+     *
+     * @param printService the changed print service
+     */
+    void attributesChanged(VirtualPrintService printService);
+
+    /**
+     * Called each time a print job has been created by the given print service.
+     *
+     * @param printService the print service having created the job
+     * @param job the created job
+     */
+    default void jobCreated(VirtualPrintService printService, VirtualDocPrintJob job) {
+      // no action by default
+    }
+  }
 
   static class StatisticsListener extends PrintJobAdapter {
     final LongAdder canceled = new LongAdder();
     final LongAdder completed = new LongAdder();
     final LongAdder failed = new LongAdder();
+    final LongAdder skippedPages = new LongAdder();
     final AtomicInteger running = new AtomicInteger();
 
+    private final Runnable stateChanged;
+    private final Runnable queueChanged;
+    private final JobHistory jobHistory;
+    private final FlavorCounters flavorCounters;
     private PrinterState defaultState = PrinterState.IDLE;
 
+    StatisticsListener(Runnable stateChanged, Runnable queueChanged, JobHistory jobHistory,
+        FlavorCounters flavorCounters) {
+      this.stateChanged = stateChanged;
+      this.queueChanged = queueChanged;
+      this.jobHistory = jobHistory;
+      this.flavorCounters = flavorCounters;
+    }
+
     DocPrintJob startJob(VirtualDocPrintJob virtualDocPrintJob) {
       virtualDocPrintJob.addPrintJobListener(this);
-      running.incrementAndGet();
+      int count = running.incrementAndGet();
+      queueChanged.run();
+      if (count == 1) {
+        stateChanged.run();
+      }
       return virtualDocPrintJob;
     }
 
@@ -73,6 +155,8 @@ class VirtualPrintService implements PrintService, VirtualPrintServiceMXBean {
       completed.reset();
       canceled.reset();
       failed.reset();
+      skippedPages.reset();
+      flavorCounters.reset();
     }
 
     PrinterState printerState() {
@@ -99,19 +183,97 @@ class VirtualPrintService implements PrintService, VirtualPrintServiceMXBean {
 
     @Override
     public void printJobNoMoreEvents(PrintJobEvent pje) {
-      running.decrementAndGet();
+      if (pje.getPrintJob() instanceof VirtualDocPrintJob) {
+        VirtualDocPrintJob job = (VirtualDocPrintJob) pje.getPrintJob();
+        skippedPages.add(job.skippedPages());
+        jobHistory.record(job);
+        flavorCounters.record(job);
+      }
+      int count = running.decrementAndGet();
+      queueChanged.run();
+      if (count == 0) {
+        stateChanged.run();
+      }
     }
   }
 
   public VirtualPrintService(String name, Runnable removeAction) {
+    this(name, removeAction, printService -> {
+      // no action
+    });
+  }
+
+  VirtualPrintService(String name, Runnable removeAction, ServiceObserver observer) {
+    this(name, PrinterConfiguration.DEFAULT, removeAction, observer);
+  }
+
+  VirtualPrintService(String name, PrinterConfiguration configuration, Runnable removeAction,
+      ServiceObserver observer) {
+    this(name, configuration, removeAction, observer, null, null);
+  }
+
+  VirtualPrintService(String name, PrinterConfiguration configuration, Runnable removeAction,
+      ServiceObserver observer, MemoryBudget memoryBudget, UserAccounting userAccounting) {
     this.name = name;
+    this.configuration = configuration;
     this.removeAction = removeAction;
-    supportedFlavors = new HashSet<>();
-    supportedFlavors.add(DocFlavor.SERVICE_FORMATTED.PAGEABLE);
-    supportedFlavors.add(DocFlavor.SERVICE_FORMATTED.PRINTABLE);
+    this.observer = observer;
+    this.userAccounting = userAccounting;
+    supportedFlavors = configuration.supportedFlavors();
+    supportedFlavorArray = supportedFlavors.toArray(emptyDocFlavors);
+    outputSink = new OutputSink(name, configuration, memoryBudget);
+    admissionControl = new AdmissionControl(configuration);
     printServiceAttributeSet = new HashPrintServiceAttributeSet();
-    statisticsListener = new StatisticsListener();
-    activate();
+    printerName = new PrinterName(name, null);
+    attributesVersion = new AtomicLong();
+    attributesSnapshot = new AttributesSnapshot(-1, null);
+    attributeChangeNotifier = new AttributeChangeNotifier(this, this::getAttributes,
+        AttributeChangeNotifier.DEFAULT_INTERVAL_MILLIS);
+    statisticsListener = new StatisticsListener(() -> observer.attributesChanged(this),
+        this::attributesChanged, new JobHistory(configuration.historySize()),
+        new FlavorCounters(supportedFlavorArray));
+    acceptingJobs = PrinterIsAcceptingJobs.ACCEPTING_JOBS;
+    rawPortListener = openRawPort();
+  }
+
+  private RawPortListener openRawPort() {
+    if (configuration.rawAddress() == null) {
+      return null;
+    }
+    try {
+      return new RawPortListener(this, configuration, outputSink::getUnthrottled);
+    } catch (IOException e) {
+      LOG.log(Level.SEVERE, e, () -> "Unable to open raw port " + configuration.rawAddress()
+          + " of printer " + name);
+      return null;
+    }
+  }
+
+  /**
+   * Releases the resources of the printer, closing the raw port if configured.
+   */
+  void close() {
+    if (rawPortListener != null) {
+      rawPortListener.close();
+    }
+  }
+
+  /**
+   * Returns the job statistics per document flavor of the printer.
+   *
+   * @return the flavor counters
+   */
+  FlavorCounters flavorCounters() {
+    return statisticsListener.flavorCounters;
+  }
+
+  /**
+   * Returns the raw port listener of the printer.
+   *
+   * @return the raw port listener or {@code null} if no raw port is open
+   */
+  RawPortListener rawPortListener() {
+    return rawPortListener;
   }
 
   @Override
@@ -134,14 +296,67 @@ class VirtualPrintService implements PrintService, VirtualPrintServiceMXBean {
     return statisticsListener.running.get();
   }
 
+  @Override
+  public SortedMap<Long, JobRecord> getJobHistory() {
+    return statisticsListener.jobHistory.jobs(null, 0, 0);
+  }
+
+  @Override
+  public SortedMap<Long, JobRecord> findJobs(String outcome, long from, long until) {
+    return statisticsListener.jobHistory.jobs(JobHistory.outcome(outcome), from, until);
+  }
+
+  @Override
+  public Map<String, FlavorStatistics> getFlavorStatistics() {
+    return flavorCounters().statistics();
+  }
+
+  @Override
+  public Map<String, RawConnectionStatus> getRawConnections() {
+    return rawPortListener == null ? Map.of() : rawPortListener.connections();
+  }
+
+  @Override
+  public long getIdleTimeouts() {
+    return rawPortListener == null ? 0 : rawPortListener.idleTimeouts();
+  }
+
+  @Override
+  public long getSkippedPages() {
+    return statisticsListener.skippedPages.longValue();
+  }
+
+  @Override
+  public long getRejected() {
+    return admissionControl.rejected();
+  }
+
   @Override
   public void activate() {
-    acceptingJobs = PrinterIsAcceptingJobs.ACCEPTING_JOBS;
+    admissionControl.setAccepting(true);
+    updateAcceptingJobs(PrinterIsAcceptingJobs.ACCEPTING_JOBS);
   }
 
   @Override
   public void suspend() {
-    acceptingJobs = PrinterIsAcceptingJobs.NOT_ACCEPTING_JOBS;
+    admissionControl.setAccepting(false);
+    updateAcceptingJobs(PrinterIsAcceptingJobs.NOT_ACCEPTING_JOBS);
+  }
+
+  private void updateAcceptingJobs(PrinterIsAcceptingJobs newValue) {
+    if (acceptingJobs != newValue) {
+      acceptingJobs = newValue;
+      attributesChanged();
+      observer.attributesChanged(this);
+    }
+  }
+
+  /**
+   * Invalidates the current attributes snapshot and signals the change to the attribute listeners.
+   */
+  private void attributesChanged() {
+    attributesVersion.incrementAndGet();
+    attributeChangeNotifier.attributesChanged();
   }
 
   @Override
@@ -152,6 +367,7 @@ class VirtualPrintService implements PrintService, VirtualPrintServiceMXBean {
   @Override
   public void resetStatistics() {
     statisticsListener.reset();
+    admissionControl.resetRejected();
   }
 
   @Override
@@ -159,6 +375,19 @@ class VirtualPrintService implements PrintService, VirtualPrintServiceMXBean {
     return statisticsListener.printerState().toString();
   }
 
+  @Override
+  public String getConfiguration() {
+    return configuration.toString();
+  }
+
+  PrinterConfiguration configuration() {
+    return configuration;
+  }
+
+  boolean isAcceptingJobs() {
+    return acceptingJobs == PrinterIsAcceptingJobs.ACCEPTING_JOBS;
+  }
+
   @Override
   public String getName() {
     return name;
@@ -166,7 +395,13 @@ class VirtualPrintService implements PrintService, VirtualPrintServiceMXBean {
 
   @Override
   public DocPrintJob createPrintJob() {
-    return statisticsListener.startJob(new VirtualDocPrintJob(this, ByteArrayOutputStream::new));
+    VirtualDocPrintJob job =
+        new VirtualDocPrintJob(this, outputSink, admissionControl, userAccounting);
+    if (userAccounting != null) {
+      userAccounting.jobCreated(job);
+    }
+    observer.jobCreated(this, job);
+    return statisticsListener.startJob(job);
   }
 
   @Override
@@ -175,38 +410,50 @@ class VirtualPrintService implements PrintService, VirtualPrintServiceMXBean {
   }
 
   @Override
-  @SuppressWarnings("unchecked")
   public <T extends PrintServiceAttribute> T getAttribute(Class<T> category) {
-    final T result;
     if (category == PrinterName.class) {
-      result = (T) new PrinterName(name, null);
-    } else if (category == PrinterIsAcceptingJobs.class) {
-      result = (T) acceptingJobs;
-    } else if (category == PrinterState.class) {
-      result = (T) statisticsListener.printerState();
-    } else {
-      result = category.cast(printServiceAttributeSet.get(category));
+      return category.cast(printerName);
     }
-    return result;
+    return category.cast(getAttributes().get(category));
   }
 
+  /*
+   * The returned set is shared by all callers until one of the attributes changes, so repeated
+   * calls do not need to allocate anything.
+   */
   @Override
   public PrintServiceAttributeSet getAttributes() {
-    PrintServiceAttributeSet attrs = new HashPrintServiceAttributeSet();
-    attrs.addAll(printServiceAttributeSet);
-    attrs.add(getAttribute(PrinterName.class));
-    attrs.add(getAttribute(PrinterState.class));
-    attrs.add(getAttribute(PrinterIsAcceptingJobs.class));
-    return AttributeSetUtilities.unmodifiableView(attrs);
+    AttributesSnapshot snapshot = attributesSnapshot;
+    long version = attributesVersion.get();
+    if (snapshot.version != version) {
+      PrintServiceAttributeSet attrs = new HashPrintServiceAttributeSet();
+      attrs.addAll(printServiceAttributeSet);
+      attrs.add(printerName);
+      attrs.add(statisticsListener.printerState());
+      attrs.add(acceptingJobs);
+      attrs.add(new QueuedJobCount(statisticsListener.running.get()));
+      snapshot = new AttributesSnapshot(version, AttributeSetUtilities.unmodifiableView(attrs));
+      attributesSnapshot = snapshot;
+    }
+    return snapshot.attributes;
   }
 
   @Override
   public DocFlavor[] getSupportedDocFlavors() {
-    return supportedFlavors.toArray(emptyDocFlavors);
+    return supportedFlavorArray.clone();
   }
 
   @Override
   public Object getDefaultAttributeValue(Class<? extends Attribute> category) {
+    if (category == Copies.class) {
+      return new Copies(1);
+    }
+    if (category == PageRanges.class) {
+      return allPages;
+    }
+    if (category == Fidelity.class) {
+      return Fidelity.FIDELITY_FALSE;
+    }
     return null;
   }
 
@@ -217,39 +464,115 @@ class VirtualPrintService implements PrintService, VirtualPrintServiceMXBean {
 
   @Override
   public Class<?>[] getSupportedAttributeCategories() {
-    return supportedAttributeCategories;
+    return supportedAttributeCategories.clone();
   }
 
   @Override
   public Object getSupportedAttributeValues(Class<? extends Attribute> category, DocFlavor flavor,
       AttributeSet attributes) {
+    if (flavor != null && !isDocFlavorSupported(flavor)) {
+      throw new IllegalArgumentException(flavor + " is an unsupported flavor");
+    }
+    if (category == Copies.class) {
+      return isRendered(flavor) ? copiesSupported : singleCopy;
+    }
+    if (category == PageRanges.class) {
+      return isRendered(flavor) ? allPages : null;
+    }
+    if (category == JobName.class) {
+      return new JobName("", null);
+    }
+    if (category == RequestingUserName.class) {
+      return new RequestingUserName("", null);
+    }
+    if (category == Fidelity.class) {
+      return new Fidelity[] {Fidelity.FIDELITY_FALSE, Fidelity.FIDELITY_TRUE};
+    }
     return null;
   }
 
   @Override
   public AttributeSet getUnsupportedAttributes(DocFlavor flavor, AttributeSet attributes) {
-    return null;
+    if (flavor != null && !isDocFlavorSupported(flavor)) {
+      throw new IllegalArgumentException(flavor + " is an unsupported flavor");
+    }
+    return unsupportedAttributes(flavor, attributes);
+  }
+
+  /**
+   * Returns the attributes of either an unsupported category or with an unsupported value, which
+   * are the same for all virtual printers.
+   *
+   * @param flavor the flavor of the document to be printed or {@code null} for rendered documents
+   * @param attributes the attributes to be checked or {@code null}
+   * @return the unsupported attributes or {@code null} if all attributes are supported
+   */
+  static AttributeSet unsupportedAttributes(DocFlavor flavor, AttributeSet attributes) {
+    if (attributes == null) {
+      return null;
+    }
+    AttributeSet unsupported = null;
+    for (Attribute attribute : attributes.toArray()) {
+      if (!isSupported(attribute, flavor)) {
+        if (unsupported == null) {
+          unsupported = new HashAttributeSet();
+        }
+        unsupported.add(attribute);
+      }
+    }
+    return unsupported;
+  }
+
+  static boolean isSupportedCategory(Class<?> category) {
+    for (Class<?> supportedCategory : supportedAttributeCategories) {
+      if (supportedCategory == category) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Checks if documents of the given flavor are rendered by the printer. Raw print data is passed
+   * to the sink unchanged, so it is neither repeated for multiple copies nor limited to page
+   * ranges.
+   */
+  private static boolean isRendered(DocFlavor flavor) {
+    return flavor == null || !VirtualDocPrintJob.isRaw(flavor);
+  }
+
+  private static boolean isSupported(Attribute attribute, DocFlavor flavor) {
+    if (attribute instanceof Copies copies) {
+      return (isRendered(flavor) ? copiesSupported : singleCopy).contains(copies.getValue());
+    }
+    if (attribute instanceof PageRanges) {
+      return isRendered(flavor);
+    }
+    return attribute != null && isSupportedCategory(attribute.getCategory());
   }
 
   @Override
   public boolean isAttributeCategorySupported(Class<? extends Attribute> category) {
-    return false;
+    return isSupportedCategory(category);
   }
 
   @Override
   public boolean isAttributeValueSupported(Attribute attrval, DocFlavor flavor,
       AttributeSet attributes) {
-    return false;
+    if (flavor != null && !isDocFlavorSupported(flavor)) {
+      throw new IllegalArgumentException(flavor + " is an unsupported flavor");
+    }
+    return isSupported(attrval, flavor);
   }
 
   @Override
   public void addPrintServiceAttributeListener(PrintServiceAttributeListener listener) {
-    // no action
+    attributeChangeNotifier.addListener(listener);
   }
 
   @Override
   public void removePrintServiceAttributeListener(PrintServiceAttributeListener listener) {
-    // no action
+    attributeChangeNotifier.removeListener(listener);
   }
 
   @Override
@@ -22,32 +22,39 @@ package net.reini.print;
 
 import static java.lang.management.ManagementFactory.getPlatformMBeanServer;
 
+import java.nio.file.Path;
+
 import javax.print.DocFlavor;
 import javax.print.MultiDocPrintService;
 import javax.print.PrintService;
 import javax.print.PrintServiceLookup;
 import javax.print.attribute.AttributeSet;
-import javax.print.attribute.standard.PrinterName;
 
 public final class VirtualPrintServiceLookup extends PrintServiceLookup {
-  private static VirtualPrinterRegistry printerRegistry;
+  static final String DEFINITION_FILE_PROPERTY = "net.reini.print.definitions";
 
-  static VirtualPrinterRegistry getPrinterRegistry() {
-    if (printerRegistry == null) {
-      printerRegistry = new VirtualPrinterRegistry(getPlatformMBeanServer());
-    }
-    return printerRegistry;
-  }
+  private static volatile VirtualPrinterRegistry printerRegistry;
 
-  private boolean serviceMatches(PrintService ps, AttributeSet attributes) {
-    if (attributes == null) {
-      return true;
-    }
-    PrinterName attribute = (PrinterName) attributes.get(PrinterName.class);
-    if (attribute == null) {
-      return false;
+  static VirtualPrinterRegistry getPrinterRegistry() {
+    VirtualPrinterRegistry registry = printerRegistry;
+    if (registry == null) {
+      synchronized (VirtualPrintServiceLookup.class) {
+        registry = printerRegistry;
+        if (registry == null) {
+          String definitionFile = System.getProperty(DEFINITION_FILE_PROPERTY);
+          registry = new VirtualPrinterRegistry.Builder(getPlatformMBeanServer())
+              .managementMode(ManagementMode.fromSystemProperty())
+              .definitionFile(definitionFile == null ? null : Path.of(definitionFile))
+              .journal(JobJournal.fromSystemProperties())
+              .memoryBudget(MemoryBudget.fromSystemProperty())
+              .userAccounting(UserAccounting.fromSystemProperties()).build();
+          printerRegistry = registry;
+          IppServer.fromSystemProperty(registry::printService);
+          MetricsServer.fromSystemProperty(registry);
+        }
+      }
     }
-    return ps.getName().equals(attribute.getValue());
+    return registry;
   }
 
   private boolean flavorMatches(PrintService ps, DocFlavor[] flavors) {
@@ -64,23 +71,29 @@ public final class VirtualPrintServiceLookup extends PrintServiceLookup {
 
   @Override
   public PrintService[] getPrintServices(DocFlavor flavor, AttributeSet attributes) {
-    return getPrinterRegistry().printServices() //
-        .filter(ps -> flavor == null || ps.isDocFlavorSupported(flavor)) //
-        .filter(ps -> serviceMatches(ps, attributes)) //
-        .toArray(size -> new PrintService[size]);
+    if (flavor == null && attributes == null) {
+      return getPrintServices();
+    }
+    return getPrinterRegistry().printServices(flavor, attributes);
   }
 
+  /*
+   * The snapshot arrays are shared by all callers, so only copies of them are handed out.
+   */
   @Override
   public PrintService[] getPrintServices() {
-    return getPrinterRegistry().printServices().toArray(size -> new PrintService[size]);
+    return getPrinterRegistry().snapshot().printServices.clone();
   }
 
   @Override
   public MultiDocPrintService[] getMultiDocPrintServices(DocFlavor[] flavors,
       AttributeSet attributes) {
+    if (flavors == null && attributes == null) {
+      return getPrinterRegistry().snapshot().multiDocPrintServices.clone();
+    }
     return getPrinterRegistry().multiDocPrintServices() //
         .filter(ps -> flavorMatches(ps, flavors)) //
-        .filter(ps -> serviceMatches(ps, attributes)) //
+        .filter(ps -> PrintServiceIndex.matches(ps, null, attributes)) //
         .toArray(size -> new MultiDocPrintService[size]);
   }
 
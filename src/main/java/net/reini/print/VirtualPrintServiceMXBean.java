@@ -20,6 +20,9 @@
  */
 package net.reini.print;
 
+import java.util.Map;
+import java.util.SortedMap;
+
 public interface VirtualPrintServiceMXBean {
 
   /**
@@ -36,6 +39,13 @@ public interface VirtualPrintServiceMXBean {
    */
   String getPrinterState();
 
+  /**
+   * Returns the settings of the virtual printer.
+   * 
+   * @return the printer configuration
+   */
+  String getConfiguration();
+
   /**
    * Returns the amount of canceled jobs.
    * 
@@ -64,6 +74,65 @@ public interface VirtualPrintServiceMXBean {
    */
   int getRunning();
 
+  /**
+   * Returns the amount of pages not being rendered, because they were not part of the requested
+   * page ranges of the jobs.
+   * 
+   * @return total count of skipped pages
+   */
+  long getSkippedPages();
+
+  /**
+   * Returns the amount of jobs rejected by the admission control.
+   * 
+   * @return total count of rejected jobs
+   */
+  long getRejected();
+
+  /**
+   * Returns the most recently finished jobs kept in the job history of the printer, indexed by
+   * their sequence number. The jobs are exposed as tabular data by the management bean.
+   * 
+   * @return the finished jobs
+   */
+  SortedMap<Long, JobRecord> getJobHistory();
+
+  /**
+   * Returns the jobs of the job history matching the given outcome and time window.
+   * 
+   * @param outcome the final job state ({@code COMPLETED}, {@code FAILED} or {@code CANCELED}) or
+   *        an empty string for all jobs
+   * @param from the earliest finish time in milliseconds since the epoch or {@code 0}
+   * @param until the latest finish time in milliseconds since the epoch or {@code 0}
+   * @return the matching jobs
+   */
+  SortedMap<Long, JobRecord> findJobs(String outcome, long from, long until);
+
+  /**
+   * Returns the statistics of the finished jobs per document flavor, indexed by the supported
+   * flavors of the printer and {@code other} for all remaining flavors. The statistics are exposed
+   * as composite data by the management bean.
+   *
+   * @return the statistics per flavor
+   */
+  Map<String, FlavorStatistics> getFlavorStatistics();
+
+  /**
+   * Returns the open connections of the raw print port, indexed by their remote address. The
+   * result is empty, if the printer has no raw port configured.
+   *
+   * @return the raw port connections
+   */
+  Map<String, RawConnectionStatus> getRawConnections();
+
+  /**
+   * Returns the amount of raw port connections closed, because no data was received within the
+   * idle timeout.
+   *
+   * @return total count of idle timeouts
+   */
+  long getIdleTimeouts();
+
   /**
    * Suspends the virtual printer, so that it does no longer accepting jobs.
    */
@@ -80,7 +149,8 @@ public interface VirtualPrintServiceMXBean {
   void remove();
 
   /**
-   * Resets the statistic counters for completed, failed and canceled jobs.
+   * Resets the statistic counters for completed, failed, canceled and rejected jobs, skipped pages
+   * and the statistics per flavor.
    */
   void resetStatistics();
 }
@@ -27,33 +27,181 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Hashtable;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Stream;
 
 import javax.management.MBeanServer;
 import javax.management.ObjectName;
+import javax.print.DocFlavor;
 import javax.print.MultiDocPrintService;
 import javax.print.PrintService;
+import javax.print.attribute.AttributeSet;
 
 final class VirtualPrinterRegistry implements VirtualPrinterRegistryMXBean {
   private static final Logger LOG = Logger.getLogger(VirtualPrinterRegistry.class.getName());
   private static final String NET_REINI = "net.reini";
+  private static final PrintService[] emptyPrintServices = new PrintService[0];
+  private static final MultiDocPrintService[] emptyMultiDocPrintServices =
+      new MultiDocPrintService[0];
 
   private final MBeanServer mbeanServer;
-  private final List<PrintService> printServices;
-  private final List<MultiDocPrintService> multiDocPrintServices;
+  private final ManagementMode managementMode;
+  private final Path definitionFile;
+  private final Set<PrintService> managedPrintServices;
+  private final Object modificationLock;
+  private final Map<String, PrintService> printServicesByName;
+  private final Map<String, PrintService> printServices;
+  private final Map<String, MultiDocPrintService> multiDocPrintServices;
+  private final PrintServiceIndex index;
+  private final AtomicLong version;
+  private final LongAdder snapshotRebuilds;
+  private final JobJournal journal;
+  private final MemoryBudget memoryBudget;
+  private final UserAccounting userAccounting;
 
-  private String defaultPrinterName;
+  private volatile String defaultPrinterName;
+  private volatile Snapshot snapshot;
+  private Map<String, PrinterConfiguration> definitionFilePrinters;
+  private PrinterDefinitionWatcher definitionWatcher;
+
+  /**
+   * Immutable view of the registered printers, rebuilt lazily after the registry was modified.
+   */
+  static final class Snapshot {
+    final long version;
+    final PrintService[] printServices;
+    final MultiDocPrintService[] multiDocPrintServices;
+    final PrintService defaultPrintService;
+
+    Snapshot(long version, PrintService[] printServices,
+        MultiDocPrintService[] multiDocPrintServices, PrintService defaultPrintService) {
+      this.version = version;
+      this.printServices = printServices;
+      this.multiDocPrintServices = multiDocPrintServices;
+      this.defaultPrintService = defaultPrintService;
+    }
+  }
+
+  /**
+   * Observes the virtual printers in order to keep the index up to date and to register the
+   * management beans of lazily managed printers.
+   */
+  private final class PrinterObserver implements VirtualPrintService.ServiceObserver {
+    @Override
+    public void attributesChanged(VirtualPrintService printService) {
+      index.update(printService);
+    }
+
+    @Override
+    public void jobCreated(VirtualPrintService printService, VirtualDocPrintJob job) {
+      if (journal != null) {
+        journal.jobCreated(job);
+      }
+      if (managementMode == ManagementMode.LAZY
+          && !managedPrintServices.contains(printService)) {
+        synchronized (modificationLock) {
+          if (printServicesByName.get(printService.getName()) == printService) {
+            registerInJmx(printService);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Collects the collaborators of a registry, all of them being optional except the management
+   * bean server. Unless defined otherwise, the printers are registered eagerly as management beans,
+   * no printer definition file is watched, no job journal is recorded, the memory budget is
+   * unlimited and the user accounting does not limit the job rate.
+   */
+  static final class Builder {
+    private final MBeanServer mbeanServer;
+    private ManagementMode managementMode = ManagementMode.EAGER;
+    private Path definitionFile;
+    private JobJournal journal;
+    private MemoryBudget memoryBudget;
+    private UserAccounting userAccounting;
+
+    Builder(MBeanServer mbeanServer) {
+      this.mbeanServer = mbeanServer;
+    }
+
+    Builder managementMode(ManagementMode managementMode) {
+      this.managementMode = managementMode;
+      return this;
+    }
+
+    Builder definitionFile(Path definitionFile) {
+      this.definitionFile = definitionFile;
+      return this;
+    }
+
+    Builder journal(JobJournal journal) {
+      this.journal = journal;
+      return this;
+    }
+
+    Builder memoryBudget(MemoryBudget memoryBudget) {
+      this.memoryBudget = memoryBudget;
+      return this;
+    }
+
+    Builder userAccounting(UserAccounting userAccounting) {
+      this.userAccounting = userAccounting;
+      return this;
+    }
+
+    /**
+     * Creates a new registry containing the printers defined by all {@code virtual-printer-names}
+     * class path resources and the optional printer definition file.
+     *
+     * @return the new registry
+     */
+    VirtualPrinterRegistry build() {
+      return new VirtualPrinterRegistry(this);
+    }
+  }
 
   VirtualPrinterRegistry(MBeanServer mbeanServer) {
-    this.mbeanServer = mbeanServer;
-    printServices = new ArrayList<>();
-    multiDocPrintServices = new ArrayList<>();
+    this(new Builder(mbeanServer));
+  }
+
+  private VirtualPrinterRegistry(Builder builder) {
+    mbeanServer = builder.mbeanServer;
+    managementMode = builder.managementMode;
+    definitionFile = builder.definitionFile;
+    definitionFilePrinters = Map.of();
+    managedPrintServices = ConcurrentHashMap.newKeySet();
+    modificationLock = new Object();
+    printServicesByName = new ConcurrentHashMap<>();
+    printServices = new LinkedHashMap<>();
+    multiDocPrintServices = new LinkedHashMap<>();
+    index = new PrintServiceIndex();
+    version = new AtomicLong();
+    snapshotRebuilds = new LongAdder();
+    journal = builder.journal;
+    memoryBudget = builder.memoryBudget == null ? new MemoryBudget(0) : builder.memoryBudget;
+    userAccounting = builder.userAccounting == null
+        ? new UserAccounting(0, 1, UserAccounting.DEFAULT_MAX_USERS)
+        : builder.userAccounting;
+    snapshot = new Snapshot(-1, emptyPrintServices, emptyMultiDocPrintServices, null);
     registerInJmx();
     initiallizePrinters();
   }
@@ -66,14 +214,16 @@ final class VirtualPrinterRegistry implements VirtualPrinterRegistryMXBean {
     }
   }
 
-  private VirtualPrintService registerInJmx(VirtualPrintService virtualPrintService) {
+  private void registerInJmx(PrintService virtualPrintService) {
+    if (!managedPrintServices.add(virtualPrintService)) {
+      return;
+    }
     try {
       mbeanServer.registerMBean(virtualPrintService,
           ObjectName.getInstance(NET_REINI, table(virtualPrintService)));
     } catch (Exception e) {
       LOG.log(Level.SEVERE, "Unable to register management bean", e);
     }
-    return virtualPrintService;
   }
 
   @SuppressWarnings("JdkObsolete")
@@ -84,38 +234,75 @@ final class VirtualPrinterRegistry implements VirtualPrinterRegistryMXBean {
     return table;
   }
 
-  private boolean unregisterFromJmxIfMatches(PrintService printService, String name) {
-    if (printService.getName().equals(name)) {
-      try {
-        mbeanServer.unregisterMBean(ObjectName.getInstance(NET_REINI, table(printService)));
-      } catch (Exception e) {
-        LOG.log(Level.SEVERE, "Unable to unregister management bean", e);
-      }
-      return true;
+  private void unregisterFromJmx(PrintService printService) {
+    if (!managedPrintServices.remove(printService)) {
+      return;
+    }
+    try {
+      mbeanServer.unregisterMBean(ObjectName.getInstance(NET_REINI, table(printService)));
+    } catch (Exception e) {
+      LOG.log(Level.SEVERE, "Unable to unregister management bean", e);
     }
-    return false;
   }
 
   private void initiallizePrinters() {
     try (Stream<URL> resources =
         Thread.currentThread().getContextClassLoader().resources("virtual-printer-names")) {
-      if (resources.filter(this::addPrintersFromDefinition).count() == 0) {
+      if (resources.filter(this::addPrintersFromDefinition).count() == 0
+          && definitionFile == null) {
         // initialize default virtual printer if no other have been defined
         addPrinter("VirtualPrinter");
       }
     } catch (Exception e) {
       LOG.log(Level.SEVERE, "Failed to locate virtual printer definitions", e);
     }
+    if (definitionFile != null) {
+      reloadDefinitions();
+      try {
+        definitionWatcher = new PrinterDefinitionWatcher(definitionFile, this::reloadDefinitions);
+      } catch (IOException e) {
+        LOG.log(Level.SEVERE, e, () -> "Unable to watch printer definitions " + definitionFile);
+      }
+    }
+  }
+
+  /**
+   * Reads the printer definitions, consisting of the printer name optionally followed by semicolon
+   * separated settings. Printers with equal settings share the same configuration instance.
+   */
+  private static Map<String, PrinterConfiguration> printerDefinitions(BufferedReader br) {
+    Map<String, PrinterConfiguration> configurations = new HashMap<>();
+    Map<String, PrinterConfiguration> definitions = new LinkedHashMap<>();
+    br.lines() //
+        .map(String::trim) //
+        .filter(l -> !l.isEmpty()) //
+        .filter(l -> !l.startsWith("#")) //
+        .forEach(line -> {
+          int separator = line.indexOf(';');
+          if (separator < 0) {
+            definitions.putIfAbsent(line, PrinterConfiguration.DEFAULT);
+            return;
+          }
+          String printerName = line.substring(0, separator).trim();
+          String settings = line.substring(separator + 1).trim();
+          try {
+            PrinterConfiguration configuration = configurations.get(settings);
+            if (configuration == null) {
+              configuration = PrinterConfiguration.parse(settings);
+              configurations.put(settings, configuration);
+            }
+            definitions.putIfAbsent(printerName, configuration);
+          } catch (IllegalArgumentException e) {
+            LOG.log(Level.SEVERE, e, () -> "Invalid printer definition: " + line);
+          }
+        });
+    return definitions;
   }
 
   private boolean addPrintersFromDefinition(URL url) {
     try (InputStream in = url.openStream();
         BufferedReader br = new BufferedReader(new InputStreamReader(in, UTF_8))) {
-      br.lines() //
-          .map(String::trim) //
-          .filter(l -> !l.isEmpty()) //
-          .filter(l -> !l.startsWith("#")) //
-          .forEach(this::addPrinter);
+      modify(printerDefinitions(br), Set.of(), false);
       return true;
     } catch (IOException e) {
       LOG.log(Level.SEVERE, e, () -> "Failed to initialize printers from " + url);
@@ -123,6 +310,59 @@ final class VirtualPrinterRegistry implements VirtualPrinterRegistryMXBean {
     }
   }
 
+  @Override
+  public String getDefinitionFile() {
+    return definitionFile == null ? null : definitionFile.toString();
+  }
+
+  @Override
+  public BulkOperationResult reloadDefinitions() {
+    if (definitionFile == null) {
+      return new BulkOperationResult(0, 0, 0, 0);
+    }
+    synchronized (modificationLock) {
+      Map<String, PrinterConfiguration> definitions;
+      try (BufferedReader br = Files.newBufferedReader(definitionFile, UTF_8)) {
+        definitions = printerDefinitions(br);
+      } catch (NoSuchFileException e) {
+        LOG.log(Level.WARNING, () -> "Printer definitions " + definitionFile + " do not exist");
+        definitions = Map.of();
+      } catch (IOException | UncheckedIOException e) {
+        LOG.log(Level.SEVERE, e, () -> "Failed to read printer definitions " + definitionFile);
+        return new BulkOperationResult(0, 0, 0, 0);
+      }
+      // printers with changed settings are replaced by removing and adding them again
+      Map<String, PrinterConfiguration> additions = new LinkedHashMap<>(definitions);
+      additions.entrySet().removeAll(definitionFilePrinters.entrySet());
+      Set<String> removals = new LinkedHashSet<>(definitionFilePrinters.keySet());
+      removals.removeAll(definitions.keySet());
+      removals.addAll(additions.keySet());
+      removals.retainAll(definitionFilePrinters.keySet());
+      definitionFilePrinters = definitions;
+      return modify(additions, removals, false);
+    }
+  }
+
+  /**
+   * Stops watching the printer definition file, if any, closes the raw ports of the printers and
+   * flushes the job journal.
+   */
+  void close() {
+    synchronized (printServices) {
+      printServices.values().forEach(printService -> ((VirtualPrintService) printService).close());
+    }
+    if (journal != null) {
+      journal.flush();
+    }
+    if (definitionWatcher != null) {
+      try {
+        definitionWatcher.close();
+      } catch (IOException e) {
+        LOG.log(Level.WARNING, "Failed to stop watching printer definitions", e);
+      }
+    }
+  }
+
   @Override
   public String getDefaultPrinterName() {
     return defaultPrinterName;
@@ -130,45 +370,251 @@ final class VirtualPrinterRegistry implements VirtualPrinterRegistryMXBean {
 
   @Override
   public void setDefaultPrinterName(String printerName) {
-    if (printServices.stream().anyMatch(ps -> ps.getName().equals(printerName))) {
-      defaultPrinterName = printerName;
+    synchronized (printServices) {
+      if (printerName != null && printServices.containsKey(printerName)) {
+        defaultPrinterName = printerName;
+        version.incrementAndGet();
+      }
     }
   }
 
   @Override
   public void addPrinter(String printerName) {
     requireNonNull(printerName, "printerName must not be null");
-    if (printServices.stream().map(PrintService::getName).noneMatch(printerName::equals)) {
-      LOG.log(Level.INFO, () -> "Adding printer: " + printerName);
-      printServices.add(
-          registerInJmx(new VirtualPrintService(printerName, () -> removePrinter(printerName))));
-    }
+    modify(Map.of(printerName, PrinterConfiguration.DEFAULT), Set.of(), false);
   }
 
   @Override
   public void removePrinter(String printerName) {
     requireNonNull(printerName, "printerName must not be null");
-    if (printerName.equals(defaultPrinterName)) {
-      defaultPrinterName = null;
+    modify(Map.of(), Set.of(printerName), false);
+  }
+
+  @Override
+  public BulkOperationResult addPrinters(String[] printerNames) {
+    return modify(printerDefinitions(printerNames), Set.of(), false);
+  }
+
+  @Override
+  public BulkOperationResult removePrinters(String[] printerNames) {
+    return modify(Map.of(), printerDefinitions(printerNames).keySet(), false);
+  }
+
+  @Override
+  public BulkOperationResult replaceAll(String[] printerNames) {
+    return modify(printerDefinitions(printerNames), Set.of(), true);
+  }
+
+  private static Map<String, PrinterConfiguration> printerDefinitions(String[] printerNames) {
+    requireNonNull(printerNames, "printerNames must not be null");
+    Map<String, PrinterConfiguration> definitions = new LinkedHashMap<>();
+    for (String printerName : printerNames) {
+      definitions.put(requireNonNull(printerName, "printerName must not be null"),
+          PrinterConfiguration.DEFAULT);
+    }
+    return definitions;
+  }
+
+  /**
+   * Applies the given additions and removals as one atomic update of the registered printers,
+   * being visible to print service lookups with one single snapshot change. The management bean
+   * (un)registration is done afterwards, while still preventing concurrent modifications.
+   */
+  private BulkOperationResult modify(Map<String, PrinterConfiguration> additions,
+      Set<String> removals, boolean removeOthers) {
+    final long start = System.nanoTime();
+    final List<PrintService> added = new ArrayList<>(additions.size());
+    final List<PrintService> removed = new ArrayList<>(removals.size());
+    int unchanged = 0;
+    synchronized (modificationLock) {
+      synchronized (printServices) {
+        Set<String> toBeRemoved = removals;
+        if (removeOthers) {
+          toBeRemoved = new LinkedHashSet<>(printServices.keySet());
+          toBeRemoved.removeAll(additions.keySet());
+        }
+        for (String printerName : toBeRemoved) {
+          PrintService printService = printServices.remove(printerName);
+          if (printService != null) {
+            if (printerName.equals(defaultPrinterName)) {
+              defaultPrinterName = null;
+            }
+            printServicesByName.remove(printerName);
+            index.remove(printService);
+            removed.add(printService);
+          } else if (!removeOthers) {
+            unchanged++;
+          }
+        }
+        for (Map.Entry<String, PrinterConfiguration> addition : additions.entrySet()) {
+          String printerName = addition.getKey();
+          if (!printServices.containsKey(printerName)) {
+            PrintService printService = new VirtualPrintService(printerName, addition.getValue(),
+                () -> removePrinter(printerName), new PrinterObserver(), memoryBudget,
+                userAccounting);
+            printServices.put(printerName, printService);
+            printServicesByName.put(printerName, printService);
+            index.add(printService);
+            added.add(printService);
+          } else {
+            unchanged++;
+          }
+        }
+        if (!added.isEmpty() || !removed.isEmpty()) {
+          version.incrementAndGet();
+        }
+      }
+      for (PrintService printService : removed) {
+        LOG.log(Level.FINE, () -> "Removing printer: " + printService.getName());
+        unregisterFromJmx(printService);
+        ((VirtualPrintService) printService).close();
+      }
+      for (PrintService printService : added) {
+        LOG.log(Level.FINE, () -> "Adding printer: " + printService.getName());
+        if (managementMode == ManagementMode.EAGER) {
+          registerInJmx(printService);
+        }
+      }
+    }
+    BulkOperationResult result = new BulkOperationResult(added.size(), removed.size(), unchanged,
+        System.nanoTime() - start);
+    if (!added.isEmpty() || !removed.isEmpty()) {
+      LOG.log(Level.INFO, () -> "Updated printers: " + result);
+    }
+    return result;
+  }
+
+  @Override
+  public String getManagementMode() {
+    return managementMode.name();
+  }
+
+  @Override
+  public Map<String, PrinterStatus> getPrinters() {
+    Map<String, PrinterStatus> printers = new LinkedHashMap<>();
+    for (PrintService printService : snapshot().printServices) {
+      printers.put(printService.getName(), PrinterStatus.of((VirtualPrintService) printService));
     }
-    printServices.removeIf(ps -> unregisterFromJmxIfMatches(ps, printerName));
+    return printers;
+  }
+
+  @Override
+  public long getSnapshotVersion() {
+    return snapshot().version;
+  }
+
+  @Override
+  public long getSnapshotRebuilds() {
+    return snapshotRebuilds.sum();
+  }
+
+  @Override
+  public long getMemoryBudget() {
+    return memoryBudget.limit();
+  }
+
+  @Override
+  public long getMemoryUsed() {
+    return memoryBudget.used();
   }
 
+  @Override
+  public long getMemoryHighWaterMark() {
+    return memoryBudget.highWaterMark();
+  }
+
+  @Override
+  public long getMemoryBlocked() {
+    return memoryBudget.blocked();
+  }
+
+  @Override
+  public long getMemorySpilled() {
+    return memoryBudget.spilledJobs();
+  }
+
+  @Override
+  public long getMemoryRejected() {
+    return memoryBudget.rejectedJobs();
+  }
+
+  @Override
+  public List<UserStatus> getTopUsers(int count) {
+    return userAccounting.topUsers(count);
+  }
+
+  @Override
+  public int getTrackedUsers() {
+    return userAccounting.trackedUsers();
+  }
+
+  @Override
+  public long getEvictedUsers() {
+    return userAccounting.evictedUsers();
+  }
+
+  /**
+   * Returns the current immutable snapshot of the registered printers. The snapshot is only
+   * rebuilt if the registry has been modified since the last call.
+   *
+   * @return the current printer snapshot
+   */
+  Snapshot snapshot() {
+    Snapshot current = snapshot;
+    if (current.version == version.get()) {
+      return current;
+    }
+    synchronized (printServices) {
+      current = snapshot;
+      if (current.version != version.get()) {
+        String printerName = defaultPrinterName;
+        current = new Snapshot(version.get(), printServices.values().toArray(emptyPrintServices),
+            multiDocPrintServices.values().toArray(emptyMultiDocPrintServices),
+            printerName == null ? null : printServices.get(printerName));
+        snapshot = current;
+        snapshotRebuilds.increment();
+      }
+      return current;
+    }
+  }
+
+  /**
+   * Returns the virtual printer with the given name.
+   *
+   * @param printerName the printer name to look for
+   * @return the print service or {@code null} if no such printer exists
+   */
+  PrintService printService(String printerName) {
+    return printServicesByName.get(printerName);
+  }
+
+  /**
+   * Returns the virtual printers supporting the given flavor and matching all of the given
+   * attributes.
+   *
+   * @param flavor the document flavor to be supported or {@code null} for any flavor
+   * @param attributes the attributes to be matched or {@code null} for any attributes
+   * @return the matching print services
+   */
+  PrintService[] printServices(DocFlavor flavor, AttributeSet attributes) {
+    return index.lookup(flavor, attributes, snapshot().printServices);
+  }
+
+  /**
+   * Returns the virtual printers in the order they have been added. The stream operates on a
+   * consistent snapshot and is not affected by concurrent modifications.
+   *
+   * @return a stream of all currently registered virtual printers
+   */
   Stream<PrintService> printServices() {
-    return printServices.stream();
+    return Stream.of(snapshot().printServices);
   }
 
   Stream<MultiDocPrintService> multiDocPrintServices() {
-    return multiDocPrintServices.stream();
+    return Stream.of(snapshot().multiDocPrintServices);
   }
 
   PrintService defaultPrintService() {
-    if (defaultPrinterName == null) {
-      return null;
-    }
-    return printServices.stream() //
-        .filter(ps -> ps.getName().endsWith(defaultPrinterName)) //
-        .findFirst() //
-        .orElse(null);
+    return snapshot().defaultPrintService;
   }
 }
@@ -20,6 +20,9 @@
  */
 package net.reini.print;
 
+import java.util.List;
+import java.util.Map;
+
 public interface VirtualPrinterRegistryMXBean {
 
   /**
@@ -50,4 +53,145 @@ public interface VirtualPrinterRegistryMXBean {
    * @param printerName printer name to be removed
    */
   void removePrinter(String printerName);
+
+  /**
+   * Adds new virtual printers for all given printer names as one single update. Already existing
+   * printers are left unchanged.
+   * 
+   * @param printerNames the printer names to be added
+   * @return the operation counts and timing
+   */
+  BulkOperationResult addPrinters(String[] printerNames);
+
+  /**
+   * Removes the virtual printers with the given printer names as one single update.
+   * 
+   * @param printerNames the printer names to be removed
+   * @return the operation counts and timing
+   */
+  BulkOperationResult removePrinters(String[] printerNames);
+
+  /**
+   * Replaces all virtual printers by the given printer names as one single update. Printers
+   * already existing with one of the given names are left unchanged, all others are removed.
+   * 
+   * @param printerNames the printer names of the printers to be present afterwards
+   * @return the operation counts and timing
+   */
+  BulkOperationResult replaceAll(String[] printerNames);
+
+  /**
+   * Returns the path of the watched printer definition file.
+   * 
+   * @return the printer definition file or {@code null} if not defined
+   */
+  String getDefinitionFile();
+
+  /**
+   * Reads the printer definition file and applies the printers added or removed since the last
+   * read. Printers not affected by the change are left untouched.
+   * 
+   * @return the operation counts and timing
+   */
+  BulkOperationResult reloadDefinitions();
+
+  /**
+   * Returns how the virtual printers are registered as management beans, being one of
+   * {@code EAGER}, {@code LAZY} or {@code AGGREGATE}.
+   * 
+   * @return the management mode
+   */
+  String getManagementMode();
+
+  /**
+   * Returns the name, state and job statistics of all virtual printers, indexed by the printer
+   * name. The printers are exposed as tabular data by the management bean.
+   * 
+   * @return the printer data of all virtual printers
+   */
+  Map<String, PrinterStatus> getPrinters();
+
+  /**
+   * Returns the version of the printer snapshot currently served to print service lookups. The
+   * version changes whenever printers are added, removed or the default printer changes.
+   * 
+   * @return the current snapshot version
+   */
+  long getSnapshotVersion();
+
+  /**
+   * Returns the number of times the printer snapshot has been rebuilt.
+   * 
+   * @return total count of snapshot rebuilds
+   */
+  long getSnapshotRebuilds();
+
+  /**
+   * Returns the maximum number of output bytes buffered in memory by the jobs of all virtual
+   * printers.
+   * 
+   * @return the memory budget in bytes or {@code 0} if unlimited
+   */
+  long getMemoryBudget();
+
+  /**
+   * Returns the number of output bytes currently buffered in memory by the jobs of all virtual
+   * printers.
+   * 
+   * @return the used memory budget in bytes
+   */
+  long getMemoryUsed();
+
+  /**
+   * Returns the maximum number of output bytes buffered in memory at the same time.
+   * 
+   * @return the high-water mark of the memory budget in bytes
+   */
+  long getMemoryHighWaterMark();
+
+  /**
+   * Returns the number of times a job had to wait for memory, as the memory budget was exhausted.
+   * 
+   * @return total count of blocked memory reservations
+   */
+  long getMemoryBlocked();
+
+  /**
+   * Returns the number of jobs having moved their output to a temporary file, as the memory budget
+   * was exhausted.
+   * 
+   * @return total count of spilled jobs
+   */
+  long getMemorySpilled();
+
+  /**
+   * Returns the number of jobs having failed, as the memory budget was exhausted.
+   * 
+   * @return total count of rejected jobs
+   */
+  long getMemoryRejected();
+
+  /**
+   * Returns the users with the most output bytes across all printers, ordered by descending
+   * output volume. The users are exposed as composite data by the management bean.
+   * 
+   * @param count the maximum number of returned users
+   * @return the heaviest users
+   */
+  List<UserStatus> getTopUsers(int count);
+
+  /**
+   * Returns the number of users currently tracked by the user accounting.
+   * 
+   * @return the tracked users
+   */
+  int getTrackedUsers();
+
+  /**
+   * Returns the number of users having been dropped by the user accounting to make room for other
+   * users, as the maximum number of tracked users was reached.
+   * 
+   * @return total count of evicted users
+   */
+  long getEvictedUsers();
 }
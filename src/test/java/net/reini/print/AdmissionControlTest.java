@@ -0,0 +1,185 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018-2026 Patrick Reinhart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.reini.print;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatNoException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+import javax.print.PrintException;
+
+import org.junit.jupiter.api.Test;
+
+class AdmissionControlTest {
+  static final BooleanSupplier NOT_CANCELED = () -> false;
+
+  @Test
+  void unlimited() {
+    AdmissionControl admissionControl = new AdmissionControl(PrinterConfiguration.DEFAULT);
+
+    for (int i = 0; i < 100; i++) {
+      assertThatNoException().isThrownBy(() -> admissionControl.acquire(NOT_CANCELED));
+    }
+    assertThat(admissionControl.rejected()).isZero();
+  }
+
+  @Test
+  void rejectMaxJobs() throws PrintException {
+    AdmissionControl admissionControl =
+        new AdmissionControl(PrinterConfiguration.parse("maxJobs=1; admission=reject"));
+
+    admissionControl.acquire(NOT_CANCELED);
+    assertThatExceptionOfType(PrintException.class)
+        .isThrownBy(() -> admissionControl.acquire(NOT_CANCELED))
+        .withMessageContaining("printing 1 jobs");
+    assertThat(admissionControl.rejected()).isEqualTo(1);
+
+    admissionControl.release(0);
+    assertThatNoException().isThrownBy(() -> admissionControl.acquire(NOT_CANCELED));
+    admissionControl.resetRejected();
+    assertThat(admissionControl.rejected()).isZero();
+  }
+
+  @Test
+  void rejectMaxBytes() throws PrintException {
+    AdmissionControl admissionControl =
+        new AdmissionControl(PrinterConfiguration.parse("maxBytes=1k; admission=reject"));
+
+    admissionControl.acquire(NOT_CANCELED);
+    admissionControl.bytesWritten(1024);
+    assertThat(admissionControl.inFlightBytes()).isEqualTo(1024);
+    assertThatExceptionOfType(PrintException.class)
+        .isThrownBy(() -> admissionControl.acquire(NOT_CANCELED))
+        .withMessageContaining("1024 bytes");
+
+    admissionControl.release(1024);
+    assertThat(admissionControl.inFlightBytes()).isZero();
+    assertThatNoException().isThrownBy(() -> admissionControl.acquire(NOT_CANCELED));
+  }
+
+  @Test
+  void rejectNotAccepting() {
+    AdmissionControl admissionControl =
+        new AdmissionControl(PrinterConfiguration.parse("admission=reject"));
+
+    admissionControl.setAccepting(false);
+    assertThatExceptionOfType(PrintException.class)
+        .isThrownBy(() -> admissionControl.acquire(NOT_CANCELED))
+        .withMessageContaining("not accepting");
+    admissionControl.setAccepting(true);
+    assertThatNoException().isThrownBy(() -> admissionControl.acquire(NOT_CANCELED));
+  }
+
+  @Test
+  void queueUntilAccepting() throws Exception {
+    AdmissionControl admissionControl = new AdmissionControl(PrinterConfiguration.DEFAULT);
+
+    admissionControl.setAccepting(false);
+    CompletableFuture<Void> admitted = CompletableFuture.runAsync(() -> {
+      try {
+        admissionControl.acquire(NOT_CANCELED);
+      } catch (PrintException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+    assertThat(admitted).isNotDone();
+    TimeUnit.MILLISECONDS.sleep(100);
+    assertThat(admitted).isNotDone();
+
+    admissionControl.setAccepting(true);
+    admitted.get(5, TimeUnit.SECONDS);
+    assertThat(admissionControl.rejected()).isZero();
+  }
+
+  @Test
+  void queueUntilReleased() throws Exception {
+    AdmissionControl admissionControl =
+        new AdmissionControl(PrinterConfiguration.parse("maxJobs=1"));
+
+    admissionControl.acquire(NOT_CANCELED);
+    CompletableFuture<Void> admitted = CompletableFuture.runAsync(() -> {
+      try {
+        admissionControl.acquire(NOT_CANCELED);
+      } catch (PrintException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+    TimeUnit.MILLISECONDS.sleep(100);
+    assertThat(admitted).isNotDone();
+
+    admissionControl.release(0);
+    admitted.get(5, TimeUnit.SECONDS);
+  }
+
+  @Test
+  void cancelWhileQueued() throws Exception {
+    AdmissionControl admissionControl =
+        new AdmissionControl(PrinterConfiguration.parse("maxJobs=1"));
+    AtomicBoolean canceled = new AtomicBoolean();
+
+    admissionControl.acquire(NOT_CANCELED);
+    CompletableFuture<Void> admitted = CompletableFuture.runAsync(() -> {
+      try {
+        admissionControl.acquire(canceled::get);
+      } catch (PrintException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+    TimeUnit.MILLISECONDS.sleep(100);
+    assertThat(admitted).isNotDone();
+
+    canceled.set(true);
+    admissionControl.wakeUp();
+    assertThatExceptionOfType(ExecutionException.class)
+        .isThrownBy(() -> admitted.get(5, TimeUnit.SECONDS))
+        .withRootCauseInstanceOf(PrintException.class).withMessageContaining("printing canceled");
+    assertThat(admissionControl.rejected()).isZero();
+  }
+
+  @Test
+  void tryAcquire() throws PrintException {
+    AdmissionControl admissionControl =
+        new AdmissionControl(PrinterConfiguration.parse("maxJobs=1"));
+
+    assertThat(admissionControl.tryAcquire()).isTrue();
+    assertThat(admissionControl.tryAcquire()).isFalse();
+    admissionControl.release(0);
+    assertThat(admissionControl.tryAcquire()).isTrue();
+    assertThat(admissionControl.rejected()).isZero();
+  }
+
+  @Test
+  void tryAcquireRejected() throws PrintException {
+    AdmissionControl admissionControl =
+        new AdmissionControl(PrinterConfiguration.parse("maxJobs=1; admission=reject"));
+
+    assertThat(admissionControl.tryAcquire()).isTrue();
+    assertThatExceptionOfType(PrintException.class).isThrownBy(admissionControl::tryAcquire)
+        .withMessageContaining("printing 1 jobs");
+    assertThat(admissionControl.rejected()).isEqualTo(1);
+  }
+}
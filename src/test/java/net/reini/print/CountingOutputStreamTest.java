@@ -0,0 +1,120 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018-2026 Patrick Reinhart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.reini.print;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CountingOutputStreamTest {
+  final List<Long> reported = new ArrayList<>();
+
+  @Test
+  void reportInChunks() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (CountingOutputStream counter = new CountingOutputStream(out, reported::add)) {
+      counter.write(1);
+      counter.write(new byte[CountingOutputStream.REPORT_CHUNK_SIZE]);
+      assertThat(reported).containsExactly(CountingOutputStream.REPORT_CHUNK_SIZE + 1L);
+      counter.write(new byte[10], 0, 5);
+      assertThat(counter.count()).isEqualTo(CountingOutputStream.REPORT_CHUNK_SIZE + 6L);
+      assertThat(counter.reported()).isEqualTo(CountingOutputStream.REPORT_CHUNK_SIZE + 1L);
+    }
+    assertThat(reported).containsExactly(CountingOutputStream.REPORT_CHUNK_SIZE + 1L, 5L);
+    assertThat(out.size()).isEqualTo(CountingOutputStream.REPORT_CHUNK_SIZE + 6);
+  }
+
+  @Test
+  void noSpoolPosition() throws IOException {
+    try (CountingOutputStream counter =
+        new CountingOutputStream(new ByteArrayOutputStream(), reported::add)) {
+      assertThat(counter.spoolPosition()).isEqualTo(-1);
+    }
+  }
+
+  @Test
+  void replaySpoolFile(@TempDir Path directory) throws IOException {
+    Path file = directory.resolve("copies.ps");
+    try (CountingOutputStream counter =
+        new CountingOutputStream(new OutputSink.SpoolFile(file), reported::add)) {
+      counter.write('>');
+      long start = counter.spoolPosition();
+      counter.write("page".getBytes(StandardCharsets.US_ASCII));
+      counter.replay(start, 2);
+      counter.write('<');
+      assertThat(counter.count()).isEqualTo(14);
+    }
+    assertThat(Files.readString(file, StandardCharsets.US_ASCII)).isEqualTo(">pagepagepage<");
+    assertThat(reported).containsExactly(14L);
+  }
+
+  @Test
+  void transferFromChannelToStream() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ReadableByteChannel source = channel("raw data");
+    try (CountingOutputStream counter = new CountingOutputStream(out, reported::add)) {
+      ByteBuffer buffer = ByteBuffer.allocate(4);
+      assertThat(counter.transferFrom(source, buffer)).isEqualTo(4);
+      assertThat(counter.transferFrom(source, buffer)).isEqualTo(4);
+      assertThat(counter.transferFrom(source, buffer)).isEqualTo(-1);
+      assertThat(counter.count()).isEqualTo(8);
+    }
+    assertThat(out.toString(StandardCharsets.US_ASCII)).isEqualTo("raw data");
+    assertThat(reported).containsExactly(8L);
+  }
+
+  @Test
+  void transferFromChannelToFile(@TempDir Path directory) throws IOException {
+    Path file = directory.resolve("raw.ps");
+    ReadableByteChannel source = channel("raw data");
+    try (CountingOutputStream counter =
+        new CountingOutputStream(new FileOutputStream(file.toFile()), reported::add)) {
+      counter.write('>');
+      ByteBuffer buffer = ByteBuffer.allocate(4);
+      assertThat(counter.transferFrom(source, buffer)).isEqualTo(4);
+      assertThat(counter.transferFrom(source, buffer)).isEqualTo(4);
+      assertThat(counter.transferFrom(source, buffer)).isEqualTo(-1);
+      counter.write('<');
+      assertThat(counter.count()).isEqualTo(10);
+    }
+    assertThat(Files.readString(file, StandardCharsets.US_ASCII)).isEqualTo(">raw data<");
+    assertThat(reported).containsExactly(10L);
+  }
+
+  static ReadableByteChannel channel(String content) {
+    return Channels
+        .newChannel(new ByteArrayInputStream(content.getBytes(StandardCharsets.US_ASCII)));
+  }
+}
@@ -22,6 +22,7 @@ package net.reini.print;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -91,4 +92,16 @@ public class DefaultPrinterTest {
     assertTrue(printerNames.contains("MyVirtualPrinter"),
         () -> printerNames + " do not contain 'MyVirtualPrinter'");
   }
+
+  @Test
+  void lookupPrintServicesReturnsCopies() {
+    VirtualPrintServiceLookup lookup = new VirtualPrintServiceLookup();
+    PrintService[] printServices = lookup.getPrintServices();
+    printServices[0] = null;
+
+    assertNotSame(printServices, lookup.getPrintServices());
+    assertNotNull(lookup.getPrintServices()[0]);
+    assertNotSame(lookup.getMultiDocPrintServices(null, null),
+        lookup.getMultiDocPrintServices(null, null));
+  }
 }
@@ -0,0 +1,54 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018-2026 Patrick Reinhart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.reini.print;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import javax.print.DocFlavor;
+
+import org.junit.jupiter.api.Test;
+
+class FlavorCountersTest {
+  @Test
+  void bucket() {
+    assertThat(FlavorCounters.bucket(0)).isZero();
+    assertThat(FlavorCounters.bucket(999_999)).isZero();
+    assertThat(FlavorCounters.bucket(1_000_000)).isEqualTo(1);
+    assertThat(FlavorCounters.bucket(3_999_999)).isEqualTo(2);
+    assertThat(FlavorCounters.bucket(4_000_000)).isEqualTo(3);
+    assertThat(FlavorCounters.bucket(Long.MAX_VALUE))
+        .isEqualTo(FlavorCounters.LATENCY_BUCKETS - 1);
+  }
+
+  @Test
+  void statistics() {
+    FlavorCounters counters = new FlavorCounters(new DocFlavor[] {
+        DocFlavor.SERVICE_FORMATTED.PAGEABLE, DocFlavor.SERVICE_FORMATTED.PRINTABLE});
+
+    assertThat(counters.statistics()).containsOnlyKeys(
+        DocFlavor.SERVICE_FORMATTED.PAGEABLE.toString(),
+        DocFlavor.SERVICE_FORMATTED.PRINTABLE.toString(), FlavorCounters.OTHER);
+    assertThat(counters.statistics().values()).allSatisfy(flavor -> {
+      assertThat(flavor.getCompleted()).isZero();
+      assertThat(flavor.getLatencyHistogram()).hasSize(FlavorCounters.LATENCY_BUCKETS);
+    });
+  }
+}
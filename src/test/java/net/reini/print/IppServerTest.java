@@ -0,0 +1,211 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018-2026 Patrick Reinhart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.reini.print;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class IppServerTest {
+  VirtualPrintService printService;
+  IppServer server;
+  HttpClient client;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    printService = new VirtualPrintService("Printer",
+        PrinterConfiguration.parse("flavors=postscript"), () -> {
+          // no action
+        }, ps -> {
+          // no action
+        });
+    server = new IppServer(name -> "Printer".equals(name) ? printService : null,
+        new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+  }
+
+  @AfterEach
+  void tearDown() {
+    server.close();
+  }
+
+  @Test
+  void printJob() throws Exception {
+    IppRequest response =
+        send("Printer", request(IppServer.PRINT_JOB, "application/postscript", "%!PS\nshowpage\n"));
+
+    assertThat(response.operation).isEqualTo(IppServer.SUCCESSFUL_OK);
+    assertThat(response.integer("job-state", 0)).isEqualTo(9);
+    assertThat(printService.getCompleted()).isEqualTo(1);
+    assertThat(printService.getJobHistory().values()).singleElement().satisfies(job -> {
+      assertThat(job.getId()).isEqualTo(response.integer("job-id", 0));
+      assertThat(job.getUser()).isEqualTo("user");
+      assertThat(job.getBytes()).isEqualTo(14);
+    });
+  }
+
+  @Test
+  void printJobUnsupportedFormat() throws Exception {
+    IppRequest response = send("Printer", request(IppServer.PRINT_JOB, "application/pdf", "%PDF"));
+
+    assertThat(response.operation)
+        .isEqualTo(IppServer.CLIENT_ERROR_DOCUMENT_FORMAT_NOT_SUPPORTED);
+    assertThat(printService.getCompleted()).isZero();
+  }
+
+  @Test
+  void printJobNotAccepting() throws Exception {
+    printService = new VirtualPrintService("Printer",
+        PrinterConfiguration.parse("flavors=postscript; admission=reject"), () -> {
+          // no action
+        }, ps -> {
+          // no action
+        });
+    printService.suspend();
+
+    IppRequest response =
+        send("Printer", request(IppServer.PRINT_JOB, "application/postscript", "%!PS\n"));
+
+    assertThat(response.operation).isEqualTo(IppServer.SERVER_ERROR_NOT_ACCEPTING_JOBS);
+    assertThat(printService.getRejected()).isEqualTo(1);
+  }
+
+  @Test
+  void unknownPrinter() throws Exception {
+    IppRequest response = send("Other", request(IppServer.GET_PRINTER_ATTRIBUTES, null, null));
+
+    assertThat(response.operation).isEqualTo(IppServer.CLIENT_ERROR_NOT_FOUND);
+  }
+
+  @Test
+  void unsupportedOperation() throws Exception {
+    IppRequest response = send("Printer", request(0x0008, null, null));
+
+    assertThat(response.operation).isEqualTo(IppServer.SERVER_ERROR_OPERATION_NOT_SUPPORTED);
+  }
+
+  @Test
+  void getPrinterAttributes() throws Exception {
+    IppRequest response = send("Printer", request(IppServer.GET_PRINTER_ATTRIBUTES, null, null));
+
+    assertThat(response.operation).isEqualTo(IppServer.SUCCESSFUL_OK);
+    assertThat(response.string("printer-name")).isEqualTo("Printer");
+    assertThat(response.string("printer-uri-supported")).endsWith("/printers/Printer");
+    assertThat(response.integer("printer-state", 0)).isEqualTo(3);
+    assertThat(response.strings("document-format-supported"))
+        .containsExactly("application/postscript");
+  }
+
+  @Test
+  void getJobs() throws Exception {
+    send("Printer", request(IppServer.PRINT_JOB, "application/postscript", "%!PS\n"));
+
+    assertThat(send("Printer", request(IppServer.GET_JOBS, null, null)).string("job-uri"))
+        .isNull();
+    IppRequest response = send("Printer", request(IppServer.GET_JOBS, null, null, "completed"));
+    assertThat(response.operation).isEqualTo(IppServer.SUCCESSFUL_OK);
+    assertThat(response.string("job-uri")).contains("/printers/Printer/jobs/");
+    assertThat(response.integer("job-id", 0)).isPositive();
+    // only the job id and uri are returned by default
+    assertThat(response.string("job-name")).isNull();
+  }
+
+  @Test
+  void concurrentClients() throws Exception {
+    byte[] request = request(IppServer.PRINT_JOB, "application/postscript", "%!PS\n");
+    List<Future<IppRequest>> responses = new ArrayList<>();
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int i = 0; i < 200; i++) {
+        responses.add(executor.submit(() -> send("Printer", request)));
+      }
+    }
+    for (Future<IppRequest> response : responses) {
+      assertThat(response.get().operation).isEqualTo(IppServer.SUCCESSFUL_OK);
+    }
+    assertThat(printService.getCompleted()).isEqualTo(200);
+  }
+
+  IppRequest send(String printerName, byte[] request) throws IOException, InterruptedException {
+    HttpResponse<byte[]> response = client.send(HttpRequest
+        .newBuilder(URI.create("http://localhost:" + server.address().getPort() + "/printers/"
+            + printerName))
+        .header("Content-Type", IppServer.CONTENT_TYPE)
+        .POST(HttpRequest.BodyPublishers.ofByteArray(request)).build(),
+        HttpResponse.BodyHandlers.ofByteArray());
+    assertThat(response.statusCode()).isEqualTo(200);
+    assertThat(response.headers().firstValue("Content-Type")).hasValue(IppServer.CONTENT_TYPE);
+    // a response has the same layout as a request, having the status code instead of an operation
+    return IppRequest.read(new DataInputStream(new ByteArrayInputStream(response.body())));
+  }
+
+  static byte[] request(int operation, String format, String data, String... whichJobs)
+      throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeShort(0x0101);
+    out.writeShort(operation);
+    out.writeInt(42);
+    out.write(IppRequest.OPERATION_ATTRIBUTES_TAG);
+    attribute(out, IppRequest.CHARSET_TAG, "attributes-charset", "utf-8");
+    attribute(out, IppRequest.NATURAL_LANGUAGE_TAG, "attributes-natural-language", "en");
+    attribute(out, IppRequest.NAME_TAG, "requesting-user-name", "user");
+    if (format != null) {
+      attribute(out, IppRequest.MIME_MEDIA_TYPE_TAG, "document-format", format);
+    }
+    for (String which : whichJobs) {
+      attribute(out, IppRequest.KEYWORD_TAG, "which-jobs", which);
+    }
+    out.write(IppRequest.END_OF_ATTRIBUTES_TAG);
+    if (data != null) {
+      out.write(data.getBytes(UTF_8));
+    }
+    return bytes.toByteArray();
+  }
+
+  static void attribute(DataOutputStream out, int tag, String name, String value)
+      throws IOException {
+    out.write(tag);
+    out.writeShort(name.length());
+    out.write(name.getBytes(UTF_8));
+    out.writeShort(value.length());
+    out.write(value.getBytes(UTF_8));
+  }
+}
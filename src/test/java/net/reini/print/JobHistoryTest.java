@@ -0,0 +1,111 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018-2026 Patrick Reinhart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.reini.print;
+
+import static javax.print.DocFlavor.SERVICE_FORMATTED.PRINTABLE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.junit.jupiter.MockitoSettings;
+
+@MockitoSettings
+class JobHistoryTest {
+  @Test
+  void capacity() {
+    assertThat(new JobHistory(0).capacity()).isZero();
+    assertThat(new JobHistory(1).capacity()).isEqualTo(1);
+    assertThat(new JobHistory(5).capacity()).isEqualTo(8);
+    assertThat(new JobHistory(256).capacity()).isEqualTo(256);
+  }
+
+  @Test
+  void disabled() {
+    JobHistory history = new JobHistory(0);
+
+    history.record(mock(VirtualDocPrintJob.class));
+    assertThat(history.jobs(null, 0, 0)).isEmpty();
+  }
+
+  @Test
+  void keepsNewestJobs() {
+    JobHistory history = new JobHistory(4);
+
+    for (int i = 0; i < 6; i++) {
+      history.record(job("job" + i, VirtualDocPrintJob.State.COMPLETED));
+    }
+    assertThat(history.jobs(null, 0, 0)).containsOnlyKeys(2L, 3L, 4L, 5L);
+    assertThat(history.jobs(null, 0, 0).get(Long.valueOf(5))).satisfies(job -> {
+      assertThat(job.getId()).isEqualTo(42);
+      assertThat(job.getName()).isEqualTo("job5");
+      assertThat(job.getUser()).isEqualTo("user");
+      assertThat(job.getFlavor()).isEqualTo(PRINTABLE.toString());
+      assertThat(job.getBytes()).isEqualTo(1024);
+      assertThat(job.getPages()).isEqualTo(2);
+      assertThat(job.getQueueNanos()).isEqualTo(10);
+      assertThat(job.getRenderNanos()).isEqualTo(20);
+      assertThat(job.getOutcome()).isEqualTo("COMPLETED");
+    });
+  }
+
+  @Test
+  void filter() {
+    JobHistory history = new JobHistory(4);
+    long start = System.currentTimeMillis();
+
+    history.record(job("completed", VirtualDocPrintJob.State.COMPLETED));
+    history.record(job("failed", VirtualDocPrintJob.State.FAILED));
+    history.record(job("canceled", VirtualDocPrintJob.State.CANCELED));
+
+    assertThat(history.jobs(VirtualDocPrintJob.State.FAILED, 0, 0)).containsOnlyKeys(1L);
+    assertThat(history.jobs(null, start, 0)).hasSize(3);
+    assertThat(history.jobs(null, 0, start - 1)).isEmpty();
+    assertThat(history.jobs(VirtualDocPrintJob.State.CANCELED, start, Long.MAX_VALUE))
+        .containsOnlyKeys(2L);
+  }
+
+  @Test
+  void outcome() {
+    assertThat(JobHistory.outcome(null)).isNull();
+    assertThat(JobHistory.outcome(" ")).isNull();
+    assertThat(JobHistory.outcome("completed")).isEqualTo(VirtualDocPrintJob.State.COMPLETED);
+    assertThat(JobHistory.outcome(" Failed ")).isEqualTo(VirtualDocPrintJob.State.FAILED);
+    assertThat(JobHistory.outcome("CANCELED")).isEqualTo(VirtualDocPrintJob.State.CANCELED);
+    assertThatIllegalArgumentException().isThrownBy(() -> JobHistory.outcome("printing"));
+    assertThatIllegalArgumentException().isThrownBy(() -> JobHistory.outcome("unknown"));
+  }
+
+  static VirtualDocPrintJob job(String name, VirtualDocPrintJob.State state) {
+    VirtualDocPrintJob job = mock(VirtualDocPrintJob.class);
+    when(job.id()).thenReturn(Long.valueOf(42));
+    when(job.jobName()).thenReturn(name);
+    when(job.userName()).thenReturn("user");
+    when(job.flavor()).thenReturn(PRINTABLE);
+    when(job.writtenBytes()).thenReturn(Long.valueOf(1024));
+    when(job.renderedPages()).thenReturn(Integer.valueOf(2));
+    when(job.queueNanos()).thenReturn(Long.valueOf(10));
+    when(job.renderNanos()).thenReturn(Long.valueOf(20));
+    when(job.state()).thenReturn(state);
+    return job;
+  }
+}
@@ -0,0 +1,173 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018-2026 Patrick Reinhart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.reini.print;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.print.PrintService;
+import javax.print.event.PrintJobEvent;
+import javax.print.event.PrintJobListener;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.junit.jupiter.MockitoSettings;
+
+@MockitoSettings
+class JobJournalTest {
+  @TempDir
+  Path directory;
+
+  @Test
+  void invalidSettings() {
+    assertThatIllegalArgumentException().isThrownBy(() -> new JobJournal(directory, 64, 1));
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> new JobJournal(directory, 1L << 31, 1));
+    assertThatIllegalArgumentException().isThrownBy(() -> new JobJournal(directory, 4096, 0));
+  }
+
+  @Test
+  void jobLifeCycle() throws IOException {
+    JobJournal journal = new JobJournal(directory, 4096, 1);
+    VirtualDocPrintJob job = job("Printer", 42);
+    ArgumentCaptor<PrintJobListener> listener = ArgumentCaptor.forClass(PrintJobListener.class);
+    when(job.state()).thenReturn(VirtualDocPrintJob.State.CREATED,
+        VirtualDocPrintJob.State.COMPLETED);
+    when(job.writtenBytes()).thenReturn(Long.valueOf(1024));
+    when(job.queueNanos()).thenReturn(Long.valueOf(10));
+    when(job.renderNanos()).thenReturn(Long.valueOf(20));
+
+    journal.jobCreated(job);
+    verify(job).addPrintJobListener(listener.capture());
+    listener.getValue().printJobNoMoreEvents(new PrintJobEvent(job, PrintJobEvent.NO_MORE_EVENTS));
+    journal.flush();
+
+    List<JobJournalReader.Entry> entries = scan();
+    assertThat(entries).hasSize(2);
+    assertThat(entries.get(0)).satisfies(entry -> {
+      assertThat(entry.event).isEqualTo(VirtualDocPrintJob.State.CREATED);
+      assertThat(entry.printerName).isEqualTo("Printer");
+      assertThat(entry.jobId).isEqualTo(42);
+      assertThat(entry.bytes).isZero();
+      assertThat(entry.time).isPositive();
+    });
+    assertThat(entries.get(1)).satisfies(entry -> {
+      assertThat(entry.event).isEqualTo(VirtualDocPrintJob.State.COMPLETED);
+      assertThat(entry.jobId).isEqualTo(42);
+      assertThat(entry.bytes).isEqualTo(1024);
+      assertThat(entry.nanos).isEqualTo(30);
+    });
+  }
+
+  @Test
+  void truncatedPrinterName() throws IOException {
+    JobJournal journal = new JobJournal(directory, 4096, 1);
+    VirtualDocPrintJob job = job("A very long printer name äöü", 1);
+    when(job.state()).thenReturn(VirtualDocPrintJob.State.CREATED);
+
+    journal.jobCreated(job);
+
+    assertThat(scan()).singleElement()
+        .satisfies(entry -> assertThat(entry.printerName).isEqualTo("A very long printer name"));
+  }
+
+  @Test
+  void rotateSegments() throws IOException {
+    // a header and three records per segment
+    JobJournal journal = new JobJournal(directory, 4 * JobJournal.RECORD_SIZE, 2);
+    for (int i = 1; i <= 10; i++) {
+      VirtualDocPrintJob job = job("Printer", i);
+      when(job.state()).thenReturn(VirtualDocPrintJob.State.CREATED);
+      journal.jobCreated(job);
+    }
+
+    assertThat(JobJournal.segments(directory)).hasSize(2);
+    assertThat(scan()).extracting(entry -> Long.valueOf(entry.jobId)).containsExactly(7L, 8L, 9L,
+        10L);
+
+    new JobJournal(directory, 4 * JobJournal.RECORD_SIZE, 2);
+    assertThat(JobJournal.segments(directory)).hasSize(2);
+    assertThat(scan()).extracting(entry -> Long.valueOf(entry.jobId)).containsExactly(10L);
+  }
+
+  @Test
+  void follow() throws Exception {
+    JobJournal journal = new JobJournal(directory, 4 * JobJournal.RECORD_SIZE, 4);
+    BlockingQueue<JobJournalReader.Entry> entries = new LinkedBlockingQueue<>();
+    Thread follower = new Thread(() -> {
+      try {
+        new JobJournalReader(directory).follow(entries::add);
+      } catch (IOException | InterruptedException e) {
+        // stop following
+      }
+    });
+    follower.start();
+    try {
+      for (int i = 1; i <= 5; i++) {
+        VirtualDocPrintJob job = job("Printer", i);
+        when(job.state()).thenReturn(VirtualDocPrintJob.State.CREATED);
+        journal.jobCreated(job);
+        assertThat(entries.poll(10, TimeUnit.SECONDS)).isNotNull()
+            .satisfies(entry -> assertThat(entry.jobId).isEqualTo(job.id()));
+      }
+    } finally {
+      follower.interrupt();
+      follower.join();
+    }
+  }
+
+  @Test
+  void notAJournal() throws IOException {
+    Path file = Files.writeString(directory.resolve("0000000000000001.journal"), "no journal");
+
+    assertThatExceptionOfType(IOException.class).isThrownBy(() -> JobJournalReader.map(file))
+        .withMessageContaining("Not a job journal segment");
+  }
+
+  List<JobJournalReader.Entry> scan() throws IOException {
+    List<JobJournalReader.Entry> entries = new CopyOnWriteArrayList<>();
+    new JobJournalReader(directory).scan(entries::add);
+    return entries;
+  }
+
+  static VirtualDocPrintJob job(String printerName, long id) {
+    PrintService printService = mock(PrintService.class);
+    VirtualDocPrintJob job = mock(VirtualDocPrintJob.class);
+    when(job.getPrintService()).thenReturn(printService);
+    when(printService.getName()).thenReturn(printerName);
+    when(job.id()).thenReturn(Long.valueOf(id));
+    return job;
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018-2026 Patrick Reinhart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.reini.print;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class MemoryBudgetTest {
+  @Test
+  void unlimited() {
+    MemoryBudget memoryBudget = new MemoryBudget(0);
+
+    assertThat(memoryBudget.tryReserve(Long.MAX_VALUE / 2)).isTrue();
+    assertThat(memoryBudget.used()).isEqualTo(Long.MAX_VALUE / 2);
+    memoryBudget.release(Long.MAX_VALUE / 2);
+    assertThat(memoryBudget.used()).isZero();
+    assertThat(memoryBudget.highWaterMark()).isEqualTo(Long.MAX_VALUE / 2);
+  }
+
+  @Test
+  void tryReserve() {
+    MemoryBudget memoryBudget = new MemoryBudget(100);
+
+    assertThat(memoryBudget.tryReserve(60)).isTrue();
+    assertThat(memoryBudget.tryReserve(60)).isFalse();
+    assertThat(memoryBudget.tryReserve(40)).isTrue();
+    memoryBudget.release(60);
+    assertThat(memoryBudget.used()).isEqualTo(40);
+    assertThat(memoryBudget.highWaterMark()).isEqualTo(100);
+  }
+
+  @Test
+  void reserveWaitsForRelease() throws Exception {
+    MemoryBudget memoryBudget = new MemoryBudget(100);
+    memoryBudget.reserve(80, 0);
+
+    CompletableFuture<Void> waiting = CompletableFuture.runAsync(() -> {
+      try {
+        memoryBudget.reserve(40, 0);
+      } catch (InterruptedIOException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+    TimeUnit.MILLISECONDS.sleep(100);
+    assertThat(waiting).isNotDone();
+
+    memoryBudget.release(80);
+    waiting.get(5, TimeUnit.SECONDS);
+    assertThat(memoryBudget.used()).isEqualTo(40);
+    assertThat(memoryBudget.blocked()).isEqualTo(1);
+  }
+
+  @Test
+  void reserveBeyondBudgetIfAllHoldersWait() throws Exception {
+    MemoryBudget memoryBudget = new MemoryBudget(100);
+    memoryBudget.reserve(60, 0);
+    memoryBudget.reserve(40, 0);
+
+    CompletableFuture<Void> smaller = CompletableFuture.runAsync(() -> {
+      try {
+        memoryBudget.reserve(40, 40);
+      } catch (InterruptedIOException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+    TimeUnit.MILLISECONDS.sleep(100);
+    assertThat(smaller).isNotDone();
+
+    // the job holding the most memory proceeds, once all holders are waiting
+    memoryBudget.reserve(40, 60);
+    assertThat(memoryBudget.used()).isEqualTo(140);
+    assertThat(smaller).isNotDone();
+
+    memoryBudget.release(100);
+    smaller.get(5, TimeUnit.SECONDS);
+    assertThat(memoryBudget.used()).isEqualTo(80);
+    assertThat(memoryBudget.highWaterMark()).isEqualTo(140);
+  }
+
+  @Test
+  void reserveInterrupted() throws Exception {
+    MemoryBudget memoryBudget = new MemoryBudget(100);
+    memoryBudget.reserve(100, 0);
+
+    CompletableFuture<Boolean> interrupted = CompletableFuture.supplyAsync(() -> {
+      Thread.currentThread().interrupt();
+      try {
+        memoryBudget.reserve(1, 0);
+        return Boolean.FALSE;
+      } catch (InterruptedIOException e) {
+        return Boolean.valueOf(Thread.interrupted());
+      }
+    });
+
+    assertThat(interrupted.get(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(memoryBudget.used()).isEqualTo(100);
+  }
+
+  @Test
+  void fromSystemProperty() {
+    System.setProperty(MemoryBudget.PROPERTY, "64m");
+    try {
+      assertThat(MemoryBudget.fromSystemProperty().limit()).isEqualTo(64 * 1024 * 1024);
+      System.setProperty(MemoryBudget.PROPERTY, "lots");
+      assertThat(MemoryBudget.fromSystemProperty().limit()).isZero();
+    } finally {
+      System.clearProperty(MemoryBudget.PROPERTY);
+    }
+    assertThat(MemoryBudget.fromSystemProperty().limit()).isZero();
+    assertThatIllegalArgumentException().isThrownBy(() -> new MemoryBudget(-1));
+  }
+}
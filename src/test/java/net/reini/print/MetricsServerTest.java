@@ -0,0 +1,122 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018-2026 Patrick Reinhart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.reini.print;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.print.DocFlavor;
+import javax.print.SimpleDoc;
+import javax.print.attribute.HashPrintRequestAttributeSet;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class MetricsServerTest {
+  MBeanServer mbeanServer;
+  VirtualPrinterRegistry registry;
+  MetricsServer server;
+  HttpClient client;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    mbeanServer = MBeanServerFactory.createMBeanServer();
+    registry = new VirtualPrinterRegistry(mbeanServer);
+    server =
+        new MetricsServer(registry, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+  }
+
+  @AfterEach
+  void tearDown() {
+    server.close();
+    registry.close();
+    MBeanServerFactory.releaseMBeanServer(mbeanServer);
+  }
+
+  private HttpResponse<String> send(String method) throws Exception {
+    URI uri = URI.create("http://" + server.address().getHostString() + ":"
+        + server.address().getPort() + MetricsServer.CONTEXT);
+    return client.send(
+        HttpRequest.newBuilder(uri).method(method, HttpRequest.BodyPublishers.noBody()).build(),
+        HttpResponse.BodyHandlers.ofString());
+  }
+
+  @Test
+  void scrape() throws Exception {
+    registry.printService("MyVirtualPrinter").createPrintJob().print(
+        new SimpleDoc(new TestPage(null, null), DocFlavor.SERVICE_FORMATTED.PRINTABLE, null),
+        new HashPrintRequestAttributeSet());
+
+    HttpResponse<String> response = send("GET");
+
+    assertThat(response.statusCode()).isEqualTo(200);
+    assertThat(response.headers().firstValue("Content-Type"))
+        .hasValue(MetricsServer.CONTENT_TYPE);
+    assertThat(response.body()).contains("# TYPE virtual_printer_jobs_completed_total counter\n",
+        "virtual_printer_printers 1\n",
+        "virtual_printer_jobs_completed_total{printer=\"MyVirtualPrinter\"} 1\n",
+        "virtual_printer_flavor_jobs_total{printer=\"MyVirtualPrinter\",flavor=\"PRINTABLE\","
+            + "outcome=\"completed\"} 1\n",
+        "virtual_printer_flavor_latency_seconds_bucket{printer=\"MyVirtualPrinter\","
+            + "flavor=\"PRINTABLE\",le=\"+Inf\"} 1\n",
+        "virtual_printer_flavor_latency_seconds_count{printer=\"MyVirtualPrinter\","
+            + "flavor=\"PRINTABLE\"} 1\n");
+    assertThat(response.body()).doesNotContain("flavor=\"PAGEABLE\"");
+  }
+
+  @Test
+  void scrapeAfterPrinterChanges() {
+    server.scrape();
+    registry.addPrinter("Quoted \"Printer\"");
+    server.scrape();
+
+    assertThat(server.text())
+        .contains("virtual_printer_printers 2\n",
+            "virtual_printer_jobs_running{printer=\"Quoted \\\"Printer\\\"\"} 0\n");
+  }
+
+  @Test
+  void scrapeReusesBuffer() {
+    int length = server.scrape();
+
+    assertThat(server.scrape()).isEqualTo(length);
+    assertThat(server.text()).hasSize(length).endsWith("\n");
+  }
+
+  @Test
+  void methodNotAllowed() throws Exception {
+    HttpResponse<String> response = send("POST");
+
+    assertThat(response.statusCode()).isEqualTo(405);
+    assertThat(response.headers().firstValue("Allow")).hasValue("GET, HEAD");
+  }
+}
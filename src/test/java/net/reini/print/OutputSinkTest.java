@@ -0,0 +1,168 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018-2026 Patrick Reinhart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.reini.print;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class OutputSinkTest {
+  @Test
+  void memorySink() throws IOException {
+    try (OutputStream out = new OutputSink("Printer", PrinterConfiguration.DEFAULT).get()) {
+      assertThat(out).isInstanceOf(ByteArrayOutputStream.class);
+    }
+  }
+
+  @Test
+  void fileSink(@TempDir Path directory) throws IOException {
+    Path spool = directory.resolve("spool");
+    OutputSink sink =
+        new OutputSink("My/Printer", PrinterConfiguration.parse("sink=file:" + spool));
+    try (OutputStream out = sink.get()) {
+      out.write(new byte[] {1, 2, 3});
+    }
+    try (Stream<Path> files = Files.list(spool)) {
+      assertThat(files).singleElement().satisfies(file -> {
+        assertThat(file.getFileName().toString()).startsWith("My_Printer-").endsWith(".ps");
+        assertThat(Files.readAllBytes(file)).containsExactly(1, 2, 3);
+      });
+    }
+  }
+
+  @Test
+  void spoolFile(@TempDir Path directory) throws IOException {
+    OutputSink sink = new OutputSink("Printer",
+        PrinterConfiguration.parse("sink=file:" + directory + "; captureBudget=1k; speed=1m"));
+    try (OutputStream out = sink.get()) {
+      assertThat(OutputSink.spoolFile(out)).hasParent(directory).isRegularFile();
+    }
+    assertThat(OutputSink.spoolFile(new ByteArrayOutputStream())).isNull();
+  }
+
+  @Test
+  void budgetedMemorySink() throws IOException {
+    MemoryBudget memoryBudget = new MemoryBudget(1024 * 1024);
+    OutputSink sink = new OutputSink("Printer", PrinterConfiguration.DEFAULT, memoryBudget);
+    try (OutputStream out = sink.get()) {
+      out.write(1);
+      assertThat(memoryBudget.used())
+          .isEqualTo(OutputSink.BudgetedOutputStream.RESERVE_CHUNK);
+      out.write(new byte[100_000]);
+      assertThat(memoryBudget.used())
+          .isEqualTo(2 * OutputSink.BudgetedOutputStream.RESERVE_CHUNK);
+    }
+    assertThat(memoryBudget.used()).isZero();
+    assertThat(memoryBudget.highWaterMark())
+        .isEqualTo(2 * OutputSink.BudgetedOutputStream.RESERVE_CHUNK);
+  }
+
+  @Test
+  void bufferSharesReservationsOfJob() throws IOException {
+    MemoryBudget memoryBudget = new MemoryBudget(OutputSink.BudgetedOutputStream.RESERVE_CHUNK);
+    OutputSink sink = new OutputSink("Printer", PrinterConfiguration.DEFAULT, memoryBudget);
+    try (OutputStream out = sink.get();
+        OutputSink.BudgetedOutputStream buffer = sink.buffer(out)) {
+      buffer.write(new byte[1000]);
+      assertThat(memoryBudget.used()).isEqualTo(OutputSink.BudgetedOutputStream.RESERVE_CHUNK);
+      // the job holds the whole budget, so it must not wait for itself
+      assertTimeoutPreemptively(Duration.ofSeconds(10), () -> buffer.writeTo(out));
+      assertThat(memoryBudget.used())
+          .isEqualTo(2 * OutputSink.BudgetedOutputStream.RESERVE_CHUNK);
+    }
+    assertThat(memoryBudget.used()).isZero();
+    assertThat(memoryBudget.blocked()).isEqualTo(1);
+  }
+
+  @Test
+  void spillToFile() throws IOException {
+    MemoryBudget memoryBudget = new MemoryBudget(64 * 1024);
+    OutputSink sink =
+        new OutputSink("Printer", PrinterConfiguration.parse("memory=spill"), memoryBudget);
+    try (OutputStream out = sink.get()) {
+      out.write(new byte[1000]);
+      assertThat(((OutputSink.BudgetedOutputStream) out).isSpilled()).isFalse();
+      out.write(new byte[100_000]);
+      assertThat(((OutputSink.BudgetedOutputStream) out).isSpilled()).isTrue();
+      assertThat(memoryBudget.used()).isZero();
+    }
+    assertThat(memoryBudget.spilledJobs()).isEqualTo(1);
+  }
+
+  @Test
+  void spillInsteadOfBlockingUnthrottled() throws IOException {
+    MemoryBudget memoryBudget = new MemoryBudget(64 * 1024);
+    OutputSink sink = new OutputSink("Printer", PrinterConfiguration.DEFAULT, memoryBudget);
+    try (OutputStream out = sink.getUnthrottled()) {
+      out.write(new byte[100_000]);
+      assertThat(((OutputSink.BudgetedOutputStream) out).isSpilled()).isTrue();
+    }
+    assertThat(memoryBudget.blocked()).isZero();
+  }
+
+  @Test
+  void rejectBeyondBudget() throws IOException {
+    MemoryBudget memoryBudget = new MemoryBudget(64 * 1024);
+    OutputSink sink =
+        new OutputSink("Printer", PrinterConfiguration.parse("memory=reject"), memoryBudget);
+    try (OutputStream out = sink.get()) {
+      out.write(new byte[1000]);
+      assertThatExceptionOfType(IOException.class).isThrownBy(() -> out.write(new byte[100_000]))
+          .withMessage("Memory budget of 65536 bytes exhausted");
+      assertThatExceptionOfType(IOException.class).isThrownBy(() -> out.write(new byte[100_000]));
+    }
+    assertThat(memoryBudget.rejectedJobs()).isEqualTo(1);
+    assertThat(memoryBudget.used()).isZero();
+  }
+
+  @Test
+  void capturingOutputStream() throws IOException {
+    ByteArrayOutputStream captured = new ByteArrayOutputStream();
+    try (OutputStream out = new OutputSink.CapturingOutputStream(captured, 4)) {
+      out.write(1);
+      out.write(new byte[] {2, 3, 4, 5, 6}, 0, 5);
+      out.write(7);
+    }
+    assertThat(captured.toByteArray()).containsExactly(1, 2, 3, 4);
+  }
+
+  @Test
+  void throttledOutputStream() throws IOException {
+    ByteArrayOutputStream captured = new ByteArrayOutputStream();
+    long start = System.nanoTime();
+    try (OutputStream out = new OutputSink.ThrottledOutputStream(captured, 1000)) {
+      out.write(new byte[100]);
+    }
+    assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(90_000_000L);
+    assertThat(captured.size()).isEqualTo(100);
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018-2026 Patrick Reinhart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.reini.print;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.junit.jupiter.api.Test;
+
+class PageIndexTest {
+  static final String PROLOG = "%!PS-Adobe-3.0\n%%Pages: 2\n%%EndComments\n";
+  static final String PAGE_1 = "%%Page: 1 1\nshowpage\n";
+  static final String PAGE_2 = "%%Page: 2 2\n% %%Page: 3 3\nshowpage\n";
+  static final String DOCUMENT = PROLOG + PAGE_1 + PAGE_2 + "%%EOF\n";
+
+  @Test
+  void scanPages() {
+    PageIndex index = new PageIndex();
+    byte[] document = DOCUMENT.getBytes(US_ASCII);
+
+    index.scan(document, 0, document.length);
+    index.finish();
+
+    assertThat(index.pages()).isEqualTo(2);
+    assertThat(index.offset(0)).isEqualTo(PROLOG.length());
+    assertThat(index.size(0)).isEqualTo(PAGE_1.length());
+    assertThat(index.offset(1)).isEqualTo(PROLOG.length() + PAGE_1.length());
+    assertThat(index.size(1)).isEqualTo(PAGE_2.length());
+    assertThat(index.length()).isEqualTo(DOCUMENT.length());
+  }
+
+  @Test
+  void scanSingleBytes() throws IOException {
+    PageIndex index = new PageIndex();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    try (OutputStream scanning = index.scanning(out)) {
+      for (byte b : DOCUMENT.getBytes(US_ASCII)) {
+        scanning.write(b);
+      }
+    }
+    index.finish();
+
+    assertThat(out.toString(US_ASCII)).isEqualTo(DOCUMENT);
+    assertThat(index.pages()).isEqualTo(2);
+    assertThat(index.size(1)).isEqualTo(PAGE_2.length());
+  }
+
+  @Test
+  void scanAcrossWrites() {
+    PageIndex index = new PageIndex();
+    byte[] document = (PROLOG + PAGE_1 + PAGE_2 + "%%Trailer\n%%EOF\n").getBytes(US_ASCII);
+
+    for (int off = 0; off < document.length; off += 5) {
+      index.scan(document, off, Math.min(5, document.length - off));
+    }
+    index.finish();
+
+    assertThat(index.pages()).isEqualTo(2);
+    assertThat(index.offset(1)).isEqualTo(PROLOG.length() + PAGE_1.length());
+    assertThat(index.size(1)).isEqualTo(PAGE_2.length());
+  }
+
+  @Test
+  void lastPageEndsWithOutput() {
+    PageIndex index = new PageIndex();
+    byte[] document = (PROLOG + PAGE_1 + PAGE_2).getBytes(US_ASCII);
+
+    index.scan(document, 0, document.length);
+
+    assertThat(index.size(1)).isEqualTo(PAGE_2.length());
+    index.finish();
+    assertThat(index.size(1)).isEqualTo(PAGE_2.length());
+  }
+
+  @Test
+  void manyPages() {
+    PageIndex index = new PageIndex();
+    byte[] page = PAGE_1.getBytes(US_ASCII);
+
+    for (int i = 0; i < 1500; i++) {
+      index.scan(page, 0, page.length);
+    }
+    index.finish();
+
+    assertThat(index.pages()).isEqualTo(1500);
+    assertThat(index.offset(1499)).isEqualTo(1499L * page.length);
+    assertThat(index.size(1499)).isEqualTo(page.length);
+  }
+
+  @Test
+  void repeatCopies() {
+    PageIndex index = new PageIndex();
+    byte[] document = DOCUMENT.getBytes(US_ASCII);
+
+    index.scan(document, 0, document.length);
+    index.repeat(3);
+
+    assertThat(index.pages()).isEqualTo(6);
+    assertThat(index.length()).isEqualTo(3L * DOCUMENT.length());
+    assertThat(index.offset(4)).isEqualTo(2L * DOCUMENT.length() + PROLOG.length());
+    assertThat(index.size(5)).isEqualTo(PAGE_2.length());
+  }
+
+  @Test
+  void noPages() {
+    PageIndex index = new PageIndex();
+    byte[] document = PROLOG.getBytes(US_ASCII);
+
+    index.scan(document, 0, document.length);
+    index.finish();
+
+    assertThat(index.pages()).isZero();
+    assertThatExceptionOfType(IndexOutOfBoundsException.class).isThrownBy(() -> index.offset(0));
+  }
+}
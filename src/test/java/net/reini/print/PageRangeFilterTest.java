@@ -0,0 +1,109 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018-2026 Patrick Reinhart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.reini.print;
+
+import static java.awt.print.Printable.NO_SUCH_PAGE;
+import static java.awt.print.Printable.PAGE_EXISTS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.awt.print.PageFormat;
+import java.awt.print.Pageable;
+import java.awt.print.Printable;
+import java.awt.print.PrinterException;
+
+import javax.print.attribute.standard.PageRanges;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoSettings;
+
+@MockitoSettings
+class PageRangeFilterTest {
+  @Mock(name = "pageable")
+  Pageable pageable;
+  @Mock(name = "printable")
+  Printable printable;
+
+  @Test
+  void originalPageIndex() {
+    PageRangeFilter filter = PageRangeFilter.of(new PageRanges("2-3,10"), printable);
+
+    assertThat(filter.originalPageIndex(0)).isEqualTo(1);
+    assertThat(filter.originalPageIndex(1)).isEqualTo(2);
+    assertThat(filter.originalPageIndex(2)).isEqualTo(9);
+    assertThat(filter.originalPageIndex(3)).isEqualTo(-1);
+  }
+
+  @Test
+  void printable() throws PrinterException {
+    PageRangeFilter filter = PageRangeFilter.of(new PageRanges("2-3,10"), printable);
+    PageFormat pageFormat = new PageFormat();
+
+    when(printable.print(any(), any(), anyInt())).thenReturn(PAGE_EXISTS);
+
+    assertThat(filter.skippedPages()).isZero();
+    assertThat(filter.print(null, pageFormat, 0)).isEqualTo(PAGE_EXISTS);
+    assertThat(filter.print(null, pageFormat, 1)).isEqualTo(PAGE_EXISTS);
+    assertThat(filter.skippedPages()).isEqualTo(1);
+    assertThat(filter.print(null, pageFormat, 2)).isEqualTo(PAGE_EXISTS);
+    assertThat(filter.print(null, pageFormat, 3)).isEqualTo(NO_SUCH_PAGE);
+    assertThat(filter.skippedPages()).isEqualTo(7);
+
+    verify(printable).print(null, pageFormat, 1);
+    verify(printable).print(null, pageFormat, 2);
+    verify(printable).print(null, pageFormat, 9);
+    verify(printable, never()).print(null, pageFormat, 0);
+  }
+
+  @Test
+  void pageable() throws PrinterException {
+    PageRangeFilter filter = PageRangeFilter.of(new PageRanges("2-3,10"), pageable);
+    PageFormat pageFormat = new PageFormat();
+
+    when(pageable.getNumberOfPages()).thenReturn(5);
+    when(pageable.getPageFormat(2)).thenReturn(pageFormat);
+    when(pageable.getPrintable(2)).thenReturn(printable);
+    when(printable.print(null, pageFormat, 2)).thenReturn(PAGE_EXISTS);
+
+    assertThat(filter.getNumberOfPages()).isEqualTo(2);
+    assertThat(filter.getPageFormat(1)).isSameAs(pageFormat);
+    assertThat(filter.getPrintable(1).print(null, pageFormat, 1)).isEqualTo(PAGE_EXISTS);
+    assertThat(filter.skippedPages()).isEqualTo(3);
+    assertThatExceptionOfType(IndexOutOfBoundsException.class)
+        .isThrownBy(() -> filter.getPrintable(3));
+  }
+
+  @Test
+  void pageableUnknownNumberOfPages() {
+    PageRangeFilter filter = PageRangeFilter.of(new PageRanges("2-3"), pageable);
+
+    when(pageable.getNumberOfPages()).thenReturn(Pageable.UNKNOWN_NUMBER_OF_PAGES);
+
+    assertThat(filter.getNumberOfPages()).isEqualTo(Pageable.UNKNOWN_NUMBER_OF_PAGES);
+    assertThat(filter.skippedPages()).isZero();
+  }
+}
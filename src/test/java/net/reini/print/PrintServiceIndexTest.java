@@ -0,0 +1,153 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018-2026 Patrick Reinhart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.reini.print;
+
+import static javax.print.DocFlavor.SERVICE_FORMATTED.PRINTABLE;
+import static javax.print.DocFlavor.STRING.TEXT_PLAIN;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Locale;
+
+import javax.print.DocPrintJob;
+import javax.print.PrintService;
+import javax.print.attribute.Attribute;
+import javax.print.attribute.AttributeSet;
+import javax.print.attribute.HashAttributeSet;
+import javax.print.attribute.standard.PrinterIsAcceptingJobs;
+import javax.print.attribute.standard.PrinterLocation;
+import javax.print.attribute.standard.PrinterName;
+import javax.print.attribute.standard.PrinterState;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PrintServiceIndexTest {
+  PrintServiceIndex index;
+  VirtualPrintService first;
+  VirtualPrintService second;
+  PrintService[] all;
+
+  @BeforeEach
+  void setUp() {
+    index = new PrintServiceIndex();
+    first = new VirtualPrintService("First", () -> {
+    }, index::update);
+    second = new VirtualPrintService("Second", () -> {
+    }, index::update);
+    all = new PrintService[] {first, second};
+    index.add(first);
+    index.add(second);
+  }
+
+  AttributeSet attributes(Attribute... attributes) {
+    return new HashAttributeSet(attributes);
+  }
+
+  @Test
+  void lookupWithoutConstraints() {
+    assertThat(index.lookup(null, null, all)).containsExactly(first, second);
+    assertThat(index.lookup(null, attributes(), all)).containsExactly(first, second);
+  }
+
+  @Test
+  void lookupByFlavor() {
+    assertThat(index.lookup(PRINTABLE, null, all)).containsExactly(first, second);
+    assertThat(index.lookup(TEXT_PLAIN, null, all)).isEmpty();
+  }
+
+  @Test
+  void lookupByName() {
+    assertThat(index.lookup(null, attributes(new PrinterName("Second", Locale.getDefault())), all))
+        .containsExactly(second);
+    assertThat(index.lookup(PRINTABLE, attributes(new PrinterName("First", null)), all))
+        .containsExactly(first);
+    assertThat(index.lookup(null, attributes(new PrinterName("Unknown", null)), all)).isEmpty();
+  }
+
+  @Test
+  void lookupByNonIndexedAttribute() {
+    assertThat(index.lookup(null, attributes(new PrinterLocation("Office", null)), all)).isEmpty();
+  }
+
+  @Test
+  void lookupByAcceptingJobs() {
+    second.suspend();
+
+    assertThat(index.lookup(null, attributes(PrinterIsAcceptingJobs.ACCEPTING_JOBS), all))
+        .containsExactly(first);
+    assertThat(index.lookup(null,
+        attributes(PrinterIsAcceptingJobs.NOT_ACCEPTING_JOBS, new PrinterName("Second", null)),
+        all)).containsExactly(second);
+
+    second.activate();
+
+    assertThat(index.lookup(null, attributes(PrinterIsAcceptingJobs.NOT_ACCEPTING_JOBS), all))
+        .isEmpty();
+  }
+
+  @Test
+  void lookupByPrinterState() throws Exception {
+    DocPrintJob job = first.createPrintJob();
+
+    assertThat(index.lookup(null, attributes(PrinterState.PROCESSING), all))
+        .containsExactly(first);
+    assertThat(index.lookup(null, attributes(PrinterState.IDLE), all)).containsExactly(second);
+
+    ((VirtualDocPrintJob) job).cancel();
+
+    assertThat(index.lookup(null, attributes(PrinterState.IDLE), all))
+        .containsExactly(first, second);
+  }
+
+  @Test
+  void lookupKeepsOrderOfAllServices() {
+    PrintService[] services = new PrintService[100];
+    for (int i = 0; i < services.length; i++) {
+      services[i] = new VirtualPrintService("Printer" + (services.length - i), () -> {
+      }, index::update);
+      index.add(services[i]);
+    }
+
+    assertThat(index.lookup(PRINTABLE, attributes(PrinterIsAcceptingJobs.ACCEPTING_JOBS),
+        services)).containsExactly(services);
+  }
+
+  @Test
+  void remove() {
+    index.remove(first);
+    index.remove(first);
+    first.suspend();
+
+    assertThat(index.lookup(PRINTABLE, null, all)).containsExactly(second);
+    assertThat(index.lookup(null, attributes(new PrinterName("First", null)), all)).isEmpty();
+    assertThat(index.lookup(null, attributes(PrinterIsAcceptingJobs.NOT_ACCEPTING_JOBS), all))
+        .isEmpty();
+  }
+
+  @Test
+  void matches() {
+    assertThat(PrintServiceIndex.matches(first, null, null)).isTrue();
+    assertThat(PrintServiceIndex.matches(first, null, attributes(new PrinterName("First", null))))
+        .isTrue();
+    assertThat(PrintServiceIndex.matches(first, null, attributes(new PrinterName("Second", null))))
+        .isFalse();
+  }
+}
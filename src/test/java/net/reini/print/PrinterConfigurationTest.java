@@ -0,0 +1,176 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018-2026 Patrick Reinhart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.reini.print;
+
+import static javax.print.DocFlavor.SERVICE_FORMATTED.PAGEABLE;
+import static javax.print.DocFlavor.SERVICE_FORMATTED.PRINTABLE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+
+import javax.print.DocFlavor;
+
+import org.junit.jupiter.api.Test;
+
+class PrinterConfigurationTest {
+  @Test
+  void parseEmpty() {
+    assertThat(PrinterConfiguration.parse("")).isEqualTo(PrinterConfiguration.DEFAULT);
+    assertThat(PrinterConfiguration.parse(" ; ")).isEqualTo(PrinterConfiguration.DEFAULT);
+  }
+
+  @Test
+  void defaults() {
+    PrinterConfiguration configuration = PrinterConfiguration.DEFAULT;
+
+    assertThat(configuration.supportedFlavors()).containsExactlyInAnyOrder(PAGEABLE, PRINTABLE);
+    assertThat(configuration.sinkType()).isEqualTo(PrinterConfiguration.SinkType.MEMORY);
+    assertThat(configuration.sinkDirectory()).isNull();
+    assertThat(configuration.maxConcurrentJobs()).isZero();
+    assertThat(configuration.maxInFlightBytes()).isZero();
+    assertThat(configuration.admission()).isEqualTo(PrinterConfiguration.Admission.QUEUE);
+    assertThat(configuration.bytesPerSecond()).isZero();
+    assertThat(configuration.captureBudget()).isEqualTo(-1);
+    assertThat(configuration.historySize()).isEqualTo(256);
+  }
+
+  @Test
+  void parseAll() {
+    PrinterConfiguration configuration = PrinterConfiguration
+        .parse("flavors=pageable; sink=file:spool; maxJobs=4; maxBytes=1m; admission=reject; "
+            + "speed=64k; captureBudget=2m; history=16");
+
+    assertThat(configuration.supportedFlavors()).containsExactly(PAGEABLE);
+    assertThat(configuration.sinkType()).isEqualTo(PrinterConfiguration.SinkType.FILE);
+    assertThat(configuration.sinkDirectory()).isEqualTo(Path.of("spool"));
+    assertThat(configuration.maxConcurrentJobs()).isEqualTo(4);
+    assertThat(configuration.maxInFlightBytes()).isEqualTo(1024 * 1024);
+    assertThat(configuration.admission()).isEqualTo(PrinterConfiguration.Admission.REJECT);
+    assertThat(configuration.bytesPerSecond()).isEqualTo(64 * 1024);
+    assertThat(configuration.captureBudget()).isEqualTo(2 * 1024 * 1024);
+    assertThat(configuration.historySize()).isEqualTo(16);
+    assertThat(configuration).isEqualTo(PrinterConfiguration
+        .parse("history=16;captureBudget=2M;speed=64K;admission=REJECT;maxBytes=1M;maxJobs=4;"
+            + "sink=file:spool;flavors=PAGEABLE"));
+    assertThat(configuration.hashCode()).isEqualTo(PrinterConfiguration
+        .parse("history=16;captureBudget=2M;speed=64K;admission=REJECT;maxBytes=1M;maxJobs=4;"
+            + "sink=file:spool;flavors=PAGEABLE")
+        .hashCode());
+  }
+
+  @Test
+  void builder() {
+    assertThat(new PrinterConfiguration.Builder().build()).isEqualTo(PrinterConfiguration.DEFAULT);
+    assertThat(new PrinterConfiguration.Builder()
+        .sink(PrinterConfiguration.SinkType.FILE, Path.of("spool")).maxConcurrentJobs(4)
+        .admission(PrinterConfiguration.Admission.REJECT).historySize(16).build())
+        .isEqualTo(PrinterConfiguration
+            .parse("sink=file:spool; maxJobs=4; admission=reject; history=16"));
+    assertThatIllegalArgumentException().isThrownBy(
+        () -> new PrinterConfiguration.Builder().sink(PrinterConfiguration.SinkType.FILE, null)
+            .build());
+  }
+
+  @Test
+  void parseRawFlavors() {
+    assertThat(PrinterConfiguration.parse("flavors=postscript, PCL, pdf, autosense")
+        .supportedFlavors()).containsExactly(DocFlavor.INPUT_STREAM.POSTSCRIPT,
+            DocFlavor.INPUT_STREAM.PCL, DocFlavor.INPUT_STREAM.PDF,
+            DocFlavor.INPUT_STREAM.AUTOSENSE);
+  }
+
+  @Test
+  void parseRawPort() {
+    PrinterConfiguration configuration =
+        PrinterConfiguration.parse("port=9100; maxConnections=4; idleTimeout=5");
+
+    assertThat(configuration.rawAddress())
+        .isEqualTo(new InetSocketAddress(InetAddress.getLoopbackAddress(), 9100));
+    assertThat(configuration.maxConnections()).isEqualTo(4);
+    assertThat(configuration.idleTimeoutMillis()).isEqualTo(5000);
+    assertThat(configuration).isEqualTo(PrinterConfiguration
+        .parse("idleTimeout=5; maxConnections=4; port=127.0.0.1:9100"))
+        .isNotEqualTo(PrinterConfiguration.parse("port=9100"));
+    assertThat(configuration.toString())
+        .endsWith("; port=localhost:9100; maxConnections=4; idleTimeout=5");
+    assertThat(PrinterConfiguration.DEFAULT.rawAddress()).isNull();
+    assertThat(PrinterConfiguration.DEFAULT.toString()).doesNotContain("port=");
+    assertThat(PrinterConfiguration.parse("port=0.0.0.0:9100").rawAddress().getPort())
+        .isEqualTo(9100);
+  }
+
+  @Test
+  void parseMemoryPressure() {
+    assertThat(PrinterConfiguration.DEFAULT.memoryPressure())
+        .isEqualTo(PrinterConfiguration.MemoryPressure.BLOCK);
+    assertThat(PrinterConfiguration.parse("memory=spill").memoryPressure())
+        .isEqualTo(PrinterConfiguration.MemoryPressure.SPILL);
+    assertThat(PrinterConfiguration.parse("memory=Reject").memoryPressure())
+        .isEqualTo(PrinterConfiguration.MemoryPressure.REJECT);
+    assertThat(PrinterConfiguration.parse("memory=spill").toString()).contains("; memory=spill");
+    assertThat(PrinterConfiguration.parse("memory=spill"))
+        .isNotEqualTo(PrinterConfiguration.DEFAULT);
+  }
+
+  @Test
+  void parseSinkTypes() {
+    assertThat(PrinterConfiguration.parse("sink=null").sinkType())
+        .isEqualTo(PrinterConfiguration.SinkType.NULL);
+    assertThat(PrinterConfiguration.parse("sink=memory").sinkType())
+        .isEqualTo(PrinterConfiguration.SinkType.MEMORY);
+  }
+
+  @Test
+  void parseInvalid() {
+    assertThatIllegalArgumentException().isThrownBy(() -> PrinterConfiguration.parse("unknown=1"));
+    assertThatIllegalArgumentException().isThrownBy(() -> PrinterConfiguration.parse("maxJobs"));
+    assertThatIllegalArgumentException().isThrownBy(() -> PrinterConfiguration.parse("maxJobs=x"));
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> PrinterConfiguration.parse("flavors=TEXT"));
+    assertThatIllegalArgumentException().isThrownBy(() -> PrinterConfiguration.parse("sink=tape"));
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> PrinterConfiguration.parse("admission=drop"));
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> PrinterConfiguration.parse("maxConnections=0"));
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> PrinterConfiguration.parse("memory=drop"));
+  }
+
+  @Test
+  void flavorName() {
+    assertThat(PrinterConfiguration.flavorName(PRINTABLE)).isEqualTo("PRINTABLE");
+    assertThat(PrinterConfiguration.flavorName(DocFlavor.INPUT_STREAM.POSTSCRIPT))
+        .isEqualTo("POSTSCRIPT");
+    assertThat(PrinterConfiguration.flavorName(DocFlavor.STRING.TEXT_PLAIN))
+        .isEqualTo(DocFlavor.STRING.TEXT_PLAIN.toString());
+  }
+
+  @Test
+  void parseSize() {
+    assertThat(PrinterConfiguration.parseSize("100")).isEqualTo(100);
+    assertThat(PrinterConfiguration.parseSize("1k")).isEqualTo(1024);
+    assertThat(PrinterConfiguration.parseSize("1 m")).isEqualTo(1024 * 1024);
+    assertThat(PrinterConfiguration.parseSize("1g")).isEqualTo(1024 * 1024 * 1024);
+  }
+}
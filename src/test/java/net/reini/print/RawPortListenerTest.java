@@ -0,0 +1,219 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018-2026 Patrick Reinhart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.reini.print;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.function.BooleanSupplier;
+
+import javax.print.DocFlavor;
+import javax.print.PrintException;
+import javax.print.SimpleDoc;
+import javax.print.attribute.HashPrintRequestAttributeSet;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class RawPortListenerTest {
+  VirtualPrintService printService;
+
+  @AfterEach
+  void tearDown() {
+    if (printService != null) {
+      printService.close();
+    }
+  }
+
+  @Test
+  void printConnectionData() throws IOException {
+    printService = printService("port=0");
+
+    try (Socket socket = connect()) {
+      socket.getOutputStream().write(new byte[100_000]);
+      socket.shutdownOutput();
+      assertThat(socket.getInputStream().read()).isEqualTo(-1);
+    }
+
+    assertThat(printService.getCompleted()).isEqualTo(1);
+    assertThat(printService.getJobHistory().values()).singleElement().satisfies(job -> {
+      assertThat(job.getOutcome()).isEqualTo("COMPLETED");
+      assertThat(job.getBytes()).isEqualTo(100_000);
+      assertThat(job.getName()).startsWith("Raw job from ");
+    });
+  }
+
+  @Test
+  void idleTimeout() throws IOException {
+    printService = printService("port=0; idleTimeout=1");
+
+    try (Socket socket = connect()) {
+      socket.getOutputStream().write(new byte[10]);
+      assertThat(socket.getInputStream().read()).isEqualTo(-1);
+    }
+
+    assertThat(printService.getIdleTimeouts()).isEqualTo(1);
+    assertThat(printService.getFailed()).isEqualTo(1);
+    assertThat(printService.getRawConnections()).isEmpty();
+  }
+
+  @Test
+  void connectionLimit() throws Exception {
+    printService = printService("port=0; maxConnections=1");
+
+    try (Socket first = connect(); Socket second = connect()) {
+      first.getOutputStream().write(new byte[10]);
+      await(() -> printService.getRawConnections().values().stream()
+          .anyMatch(connection -> connection.getBytes() == 10));
+      second.getOutputStream().write(new byte[20]);
+      Thread.sleep(300);
+      assertThat(printService.getRawConnections()).hasSize(1);
+
+      first.shutdownOutput();
+      assertThat(first.getInputStream().read()).isEqualTo(-1);
+      second.shutdownOutput();
+      assertThat(second.getInputStream().read()).isEqualTo(-1);
+    }
+
+    assertThat(printService.getCompleted()).isEqualTo(2);
+  }
+
+  @Test
+  void waitForAdmission() throws Exception {
+    printService = printService("port=0; maxJobs=1");
+
+    try (Socket first = connect(); Socket second = connect()) {
+      first.getOutputStream().write(new byte[10]);
+      second.getOutputStream().write(new byte[20]);
+      await(() -> printService.getRawConnections().values().stream()
+          .anyMatch(connection -> "waiting".equals(connection.getState())));
+
+      first.shutdownOutput();
+      assertThat(first.getInputStream().read()).isEqualTo(-1);
+      second.shutdownOutput();
+      assertThat(second.getInputStream().read()).isEqualTo(-1);
+    }
+
+    assertThat(printService.getJobHistory().values()).extracting(JobRecord::getBytes)
+        .containsExactly(10L, 20L);
+  }
+
+  @Test
+  void waitingConnectionTimeout() throws Exception {
+    printService = printService("port=0; maxJobs=1; idleTimeout=1");
+    VirtualDocPrintJob admitted = startJob();
+
+    try (Socket socket = connect()) {
+      socket.getOutputStream().write(new byte[10]);
+      await(() -> printService.getRawConnections().values().stream()
+          .anyMatch(connection -> "waiting".equals(connection.getState())));
+    }
+    await(() -> printService.getRawConnections().isEmpty());
+
+    assertThat(printService.getIdleTimeouts()).isEqualTo(1);
+    assertThat(printService.getCanceled()).isEqualTo(1);
+    assertThat(printService.getRunning()).isEqualTo(1);
+    admitted.finish(null);
+    assertThat(printService.getRunning()).isZero();
+    assertThat(printService.getPrinterState()).isEqualTo("idle");
+  }
+
+  @Test
+  void cancelWaitingWhenClosed() throws Exception {
+    printService = printService("port=0; maxJobs=1");
+    VirtualDocPrintJob admitted = startJob();
+
+    try (Socket socket = connect()) {
+      await(() -> printService.getRawConnections().values().stream()
+          .anyMatch(connection -> "waiting".equals(connection.getState())));
+      printService.rawPortListener().close();
+      assertThat(socket.getInputStream().read()).isEqualTo(-1);
+    }
+
+    assertThat(printService.getRawConnections()).isEmpty();
+    assertThat(printService.getCanceled()).isEqualTo(1);
+    admitted.finish(null);
+    assertThat(printService.getRunning()).isZero();
+    assertThat(printService.getPrinterState()).isEqualTo("idle");
+  }
+
+  @Test
+  void rejectWhenNotAccepting() throws IOException {
+    printService = printService("port=0; admission=reject");
+    printService.suspend();
+
+    try (Socket socket = connect()) {
+      assertThat(socket.getInputStream().read()).isEqualTo(-1);
+    }
+
+    assertThat(printService.getRejected()).isEqualTo(1);
+    assertThat(printService.getFailed()).isEqualTo(1);
+  }
+
+  @Test
+  void pauseReadingAboveSpeed() throws IOException {
+    printService = printService("port=0; speed=100k");
+
+    long start = System.nanoTime();
+    try (Socket socket = connect()) {
+      socket.getOutputStream().write(new byte[50 * 1024]);
+      socket.shutdownOutput();
+      assertThat(socket.getInputStream().read()).isEqualTo(-1);
+    }
+
+    assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(400_000_000L);
+    assertThat(printService.getCompleted()).isEqualTo(1);
+  }
+
+  static VirtualPrintService printService(String settings) {
+    return new VirtualPrintService("Printer", PrinterConfiguration.parse(settings), () -> {
+      // no action
+    }, ps -> {
+      // no action
+    });
+  }
+
+  VirtualDocPrintJob startJob() throws PrintException {
+    VirtualDocPrintJob job = (VirtualDocPrintJob) printService.createPrintJob();
+    assertThat(job.start(
+        new SimpleDoc(InputStream.nullInputStream(), DocFlavor.INPUT_STREAM.AUTOSENSE, null),
+        new HashPrintRequestAttributeSet(), OutputStream::nullOutputStream)).isNotNull();
+    return job;
+  }
+
+  Socket connect() throws IOException {
+    InetSocketAddress address = printService.rawPortListener().address();
+    Socket socket = new Socket(address.getAddress(), address.getPort());
+    socket.setSoTimeout(5000);
+    return socket;
+  }
+
+  static void await(BooleanSupplier condition) throws InterruptedException {
+    for (int i = 0; i < 50 && !condition.getAsBoolean(); i++) {
+      Thread.sleep(100);
+    }
+    assertThat(condition.getAsBoolean()).isTrue();
+  }
+}
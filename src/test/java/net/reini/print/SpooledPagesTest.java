@@ -0,0 +1,123 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018-2026 Patrick Reinhart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.reini.print;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static javax.print.DocFlavor.SERVICE_FORMATTED.PRINTABLE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import javax.print.SimpleDoc;
+import javax.print.attribute.HashPrintRequestAttributeSet;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SpooledPagesTest {
+  @TempDir
+  Path directory;
+
+  @Test
+  void indexFile() {
+    assertThat(SpooledPages.indexFile(directory.resolve("job.ps")))
+        .isEqualTo(directory.resolve("job.ps.pages"));
+  }
+
+  @Test
+  void retrievePages() throws IOException {
+    Path spoolFile = spool(PageIndexTest.DOCUMENT);
+
+    try (SpooledPages spooledPages = new SpooledPages(spoolFile)) {
+      assertThat(spooledPages.pages()).isEqualTo(2);
+      assertThat(content(spooledPages.page(0))).isEqualTo(PageIndexTest.PAGE_1);
+      assertThat(content(spooledPages.page(1))).isEqualTo(PageIndexTest.PAGE_2);
+      assertThat(content(spooledPages.pages(0, 2)))
+          .isEqualTo(PageIndexTest.PAGE_1 + PageIndexTest.PAGE_2);
+      assertThat(spooledPages.pages(1, 1).remaining()).isZero();
+      assertThat(spooledPages.page(0).isReadOnly()).isTrue();
+      assertThatExceptionOfType(IndexOutOfBoundsException.class)
+          .isThrownBy(() -> spooledPages.page(2));
+    }
+  }
+
+  @Test
+  void pageNotCaptured() throws IOException {
+    Path spoolFile = spool(PageIndexTest.DOCUMENT);
+    Files.write(spoolFile, PageIndexTest.PROLOG.getBytes(US_ASCII));
+
+    try (SpooledPages spooledPages = new SpooledPages(spoolFile)) {
+      assertThatExceptionOfType(IOException.class).isThrownBy(() -> spooledPages.page(1))
+          .withMessageContaining("not captured");
+    }
+  }
+
+  @Test
+  void invalidIndex() throws IOException {
+    Path spoolFile = spool(PageIndexTest.DOCUMENT);
+    Files.write(SpooledPages.indexFile(spoolFile), new byte[24]);
+
+    assertThatExceptionOfType(IOException.class).isThrownBy(() -> new SpooledPages(spoolFile))
+        .withMessageStartingWith("Not a page index");
+  }
+
+  @Test
+  void printedJob() throws Exception {
+    VirtualPrintService printService = new VirtualPrintService("Printer",
+        PrinterConfiguration.parse("sink=file:" + directory), () -> {
+          // no action
+        }, ps -> {
+          // no action
+        });
+    printService.createPrintJob()
+        .print(new SimpleDoc(new TestPage(null, null), PRINTABLE, null),
+            new HashPrintRequestAttributeSet());
+
+    Path spoolFile;
+    try (Stream<Path> files = Files.list(directory)) {
+      spoolFile = files.filter(file -> file.toString().endsWith(".ps")).findFirst().orElseThrow();
+    }
+    try (SpooledPages spooledPages = new SpooledPages(spoolFile)) {
+      assertThat(spooledPages.pages()).isEqualTo(1);
+      assertThat(content(spooledPages.page(0))).startsWith("%%Page: 1 1");
+    }
+  }
+
+  Path spool(String document) throws IOException {
+    Path spoolFile = directory.resolve("job.ps");
+    byte[] bytes = document.getBytes(US_ASCII);
+    Files.write(spoolFile, bytes);
+    PageIndex index = new PageIndex();
+    index.scan(bytes, 0, bytes.length);
+    index.finish();
+    SpooledPages.write(spoolFile, index);
+    return spoolFile;
+  }
+
+  static String content(ByteBuffer buffer) {
+    return US_ASCII.decode(buffer).toString();
+  }
+}
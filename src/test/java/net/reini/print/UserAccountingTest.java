@@ -0,0 +1,170 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018-2026 Patrick Reinhart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.reini.print;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import javax.print.DocFlavor;
+import javax.print.DocPrintJob;
+import javax.print.PrintException;
+import javax.print.SimpleDoc;
+import javax.print.attribute.HashPrintRequestAttributeSet;
+import javax.print.attribute.PrintRequestAttributeSet;
+import javax.print.attribute.standard.JobState;
+import javax.print.attribute.standard.RequestingUserName;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class UserAccountingTest {
+  VirtualPrintService printService;
+
+  @AfterEach
+  void tearDown() {
+    if (printService != null) {
+      printService.close();
+    }
+  }
+
+  private VirtualPrintService printService(UserAccounting userAccounting) {
+    printService = new VirtualPrintService("Printer", PrinterConfiguration.DEFAULT, () -> {
+      // no action
+    }, ps -> {
+      // no action
+    }, null, userAccounting);
+    return printService;
+  }
+
+  private static DocPrintJob print(VirtualPrintService printService, String user, int bytes)
+      throws PrintException {
+    PrintRequestAttributeSet attributes = new HashPrintRequestAttributeSet();
+    attributes.add(new RequestingUserName(user, null));
+    DocPrintJob job = printService.createPrintJob();
+    job.print(new SimpleDoc(new byte[bytes], DocFlavor.BYTE_ARRAY.AUTOSENSE, null), attributes);
+    return job;
+  }
+
+  @Test
+  void invalidLimits() {
+    assertThatExceptionOfType(IllegalArgumentException.class)
+        .isThrownBy(() -> new UserAccounting(-1, 1, 10));
+    assertThatExceptionOfType(IllegalArgumentException.class)
+        .isThrownBy(() -> new UserAccounting(1, 0, 10));
+    assertThatExceptionOfType(IllegalArgumentException.class)
+        .isThrownBy(() -> new UserAccounting(1, 1, 0));
+  }
+
+  @Test
+  void submitWithinBurst() throws PrintException {
+    UserAccounting userAccounting = new UserAccounting(1, 2, 10);
+
+    userAccounting.submit("alice");
+    userAccounting.submit("alice");
+    assertThatExceptionOfType(PrintException.class).isThrownBy(() -> userAccounting.submit("alice"))
+        .withMessage("job rate of user alice exceeded");
+    userAccounting.submit("bob");
+
+    assertThat(userAccounting.user("alice").getRejected()).isEqualTo(1);
+    assertThat(userAccounting.user("bob").getRejected()).isZero();
+  }
+
+  @Test
+  void submitWithoutRateLimit() throws PrintException {
+    UserAccounting userAccounting = new UserAccounting(0, 1, 10);
+
+    for (int i = 0; i < 100; i++) {
+      userAccounting.submit("alice");
+    }
+
+    assertThat(userAccounting.user("alice")).isNull();
+    assertThat(userAccounting.trackedUsers()).isZero();
+  }
+
+  @Test
+  void jobsAccountedToUser() throws PrintException {
+    UserAccounting userAccounting = new UserAccounting(0, 1, 10);
+    VirtualPrintService printService = printService(userAccounting);
+
+    print(printService, "alice", 1000);
+    print(printService, "alice", 24);
+    print(printService, "bob", 10);
+
+    UserStatus alice = userAccounting.user("alice");
+    assertThat(alice.getJobs()).isEqualTo(2);
+    assertThat(alice.getFailed()).isZero();
+    assertThat(alice.getBytes()).isEqualTo(1024);
+    assertThat(alice.getError()).isZero();
+    assertThat(userAccounting.user("bob").getBytes()).isEqualTo(10);
+    assertThat(userAccounting.trackedUsers()).isEqualTo(2);
+  }
+
+  @Test
+  void jobRejectedAboveRate() throws PrintException {
+    UserAccounting userAccounting = new UserAccounting(1, 1, 10);
+    VirtualPrintService printService = printService(userAccounting);
+    print(printService, "alice", 10);
+
+    PrintRequestAttributeSet attributes = new HashPrintRequestAttributeSet();
+    attributes.add(new RequestingUserName("alice", null));
+    DocPrintJob job = printService.createPrintJob();
+    assertThatExceptionOfType(PrintException.class).isThrownBy(() -> job
+        .print(new SimpleDoc(new byte[10], DocFlavor.BYTE_ARRAY.AUTOSENSE, null), attributes));
+
+    assertThat(job.getAttributes().get(JobState.class)).isEqualTo(JobState.ABORTED);
+    assertThat(userAccounting.user("alice").getRejected()).isEqualTo(1);
+    assertThat(userAccounting.user("alice").getJobs()).isEqualTo(1);
+    assertThat(printService.getFailed()).isEqualTo(1);
+  }
+
+  @Test
+  void topUsers() throws PrintException {
+    UserAccounting userAccounting = new UserAccounting(0, 1, 10);
+    VirtualPrintService printService = printService(userAccounting);
+    print(printService, "alice", 30);
+    print(printService, "bob", 50);
+    print(printService, "carol", 10);
+
+    assertThat(userAccounting.topUsers(2)).extracting(UserStatus::getUser)
+        .containsExactly("bob", "alice");
+    assertThat(userAccounting.topUsers(5)).extracting(UserStatus::getUser)
+        .containsExactly("bob", "alice", "carol");
+    assertThat(userAccounting.topUsers(0)).isEmpty();
+  }
+
+  @Test
+  void heavyUserKeptWhenEvicting() throws PrintException {
+    UserAccounting userAccounting = new UserAccounting(0, 1, 64);
+    VirtualPrintService printService = printService(userAccounting);
+    print(printService, "heavy", 10_000);
+
+    for (int i = 0; i < 200; i++) {
+      print(printService, "user" + i, 10);
+    }
+
+    assertThat(userAccounting.trackedUsers()).isLessThanOrEqualTo(64);
+    assertThat(userAccounting.evictedUsers()).isEqualTo(201 - userAccounting.trackedUsers());
+    assertThat(userAccounting.topUsers(1)).singleElement().satisfies(user -> {
+      assertThat(user.getUser()).isEqualTo("heavy");
+      assertThat(user.getBytes()).isEqualTo(10_000);
+    });
+  }
+}
@@ -0,0 +1,197 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018-2026 Patrick Reinhart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.reini.print;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.awt.print.Printable;
+import java.io.OutputStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.print.Doc;
+import javax.print.DocFlavor;
+import javax.print.PrintException;
+import javax.print.SimpleDoc;
+import javax.print.attribute.HashPrintRequestAttributeSet;
+import javax.print.event.PrintJobEvent;
+import javax.print.event.PrintJobListener;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Races the state transitions of {@link VirtualDocPrintJob} against each other and verifies that
+ * each job ends up in exactly one consistent final state.
+ */
+class VirtualDocPrintJobRaceTest {
+  static final int ITERATIONS = 500;
+
+  ExecutorService executor;
+  Doc doc;
+  AdmissionControl admissionControl;
+
+  @BeforeEach
+  void setUp() {
+    executor = Executors.newFixedThreadPool(2);
+    Printable emptyDocument = (graphics, pageFormat, pageIndex) -> Printable.NO_SUCH_PAGE;
+    doc = new SimpleDoc(emptyDocument, DocFlavor.SERVICE_FORMATTED.PRINTABLE, null);
+    admissionControl = new AdmissionControl(PrinterConfiguration.DEFAULT);
+  }
+
+  @AfterEach
+  void tearDown() throws InterruptedException {
+    executor.shutdownNow();
+    assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+  }
+
+  @Test
+  void printRacingCancel() throws Exception {
+    Map<VirtualDocPrintJob.State, AtomicInteger> outcomes =
+        new EnumMap<>(VirtualDocPrintJob.State.class);
+    for (int i = 0; i < ITERATIONS; i++) {
+      VirtualDocPrintJob job =
+          new VirtualDocPrintJob(null, OutputStream::nullOutputStream, admissionControl);
+      EventCounter events = new EventCounter();
+      job.addPrintJobListener(events);
+      CyclicBarrier barrier = new CyclicBarrier(2);
+      CompletableFuture<Boolean> printed = CompletableFuture.supplyAsync(() -> {
+        await(barrier);
+        try {
+          job.print(doc, new HashPrintRequestAttributeSet());
+          return Boolean.TRUE;
+        } catch (PrintException e) {
+          return Boolean.FALSE;
+        }
+      }, executor);
+      CompletableFuture<Boolean> canceled = CompletableFuture.supplyAsync(() -> {
+        await(barrier);
+        try {
+          job.cancel();
+          return Boolean.TRUE;
+        } catch (PrintException e) {
+          return Boolean.FALSE;
+        }
+      }, executor);
+
+      boolean printSucceeded = printed.get(10, TimeUnit.SECONDS).booleanValue();
+      boolean cancelSucceeded = canceled.get(10, TimeUnit.SECONDS).booleanValue();
+      VirtualDocPrintJob.State state = job.state();
+      outcomes.computeIfAbsent(state, s -> new AtomicInteger()).incrementAndGet();
+
+      assertThat(printSucceeded).isNotEqualTo(cancelSucceeded);
+      assertThat(events.noMoreEvents).hasValue(1);
+      if (printSucceeded) {
+        assertThat(state).isEqualTo(VirtualDocPrintJob.State.COMPLETED);
+        assertThat(events.completed).hasValue(1);
+        assertThat(events.canceled).hasValue(0);
+      } else {
+        assertThat(state).isEqualTo(VirtualDocPrintJob.State.CANCELED);
+        assertThat(events.completed).hasValue(0);
+        assertThat(events.canceled).hasValue(1);
+      }
+      assertThat(events.failed).hasValue(0);
+    }
+    assertThat(outcomes.keySet()).isSubsetOf(VirtualDocPrintJob.State.COMPLETED,
+        VirtualDocPrintJob.State.CANCELED);
+  }
+
+  @Test
+  void concurrentPrint() throws Exception {
+    for (int i = 0; i < ITERATIONS; i++) {
+      VirtualDocPrintJob job =
+          new VirtualDocPrintJob(null, OutputStream::nullOutputStream, admissionControl);
+      EventCounter events = new EventCounter();
+      job.addPrintJobListener(events);
+      CyclicBarrier barrier = new CyclicBarrier(2);
+      AtomicInteger succeeded = new AtomicInteger();
+      Runnable print = () -> {
+        await(barrier);
+        try {
+          job.print(doc, new HashPrintRequestAttributeSet());
+          succeeded.incrementAndGet();
+        } catch (PrintException e) {
+          // expected for one of the threads
+        }
+      };
+
+      CompletableFuture.allOf(CompletableFuture.runAsync(print, executor),
+          CompletableFuture.runAsync(print, executor)).get(10, TimeUnit.SECONDS);
+
+      assertThat(succeeded).hasValue(1);
+      assertThat(job.state()).isEqualTo(VirtualDocPrintJob.State.COMPLETED);
+      assertThat(events.completed).hasValue(1);
+      assertThat(events.noMoreEvents).hasValue(1);
+    }
+  }
+
+  static void await(CyclicBarrier barrier) {
+    try {
+      barrier.await(10, TimeUnit.SECONDS);
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  static final class EventCounter implements PrintJobListener {
+    final AtomicInteger canceled = new AtomicInteger();
+    final AtomicInteger completed = new AtomicInteger();
+    final AtomicInteger failed = new AtomicInteger();
+    final AtomicInteger noMoreEvents = new AtomicInteger();
+
+    @Override
+    public void printDataTransferCompleted(PrintJobEvent pje) {
+      // not counted
+    }
+
+    @Override
+    public void printJobCompleted(PrintJobEvent pje) {
+      completed.incrementAndGet();
+    }
+
+    @Override
+    public void printJobFailed(PrintJobEvent pje) {
+      failed.incrementAndGet();
+    }
+
+    @Override
+    public void printJobCanceled(PrintJobEvent pje) {
+      canceled.incrementAndGet();
+    }
+
+    @Override
+    public void printJobNoMoreEvents(PrintJobEvent pje) {
+      noMoreEvents.incrementAndGet();
+    }
+
+    @Override
+    public void printJobRequiresAttention(PrintJobEvent pje) {
+      // not counted
+    }
+  }
+}
@@ -23,10 +23,13 @@ package net.reini.print;
 import static java.awt.print.Printable.NO_SUCH_PAGE;
 import static java.awt.print.Printable.PAGE_EXISTS;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.assertj.core.api.Assertions.assertThatNoException;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -37,17 +40,27 @@ import java.awt.print.PageFormat;
 import java.awt.print.Pageable;
 import java.awt.print.Printable;
 import java.awt.print.PrinterException;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
 import java.util.function.Supplier;
 
+import javax.print.AttributeException;
 import javax.print.Doc;
 import javax.print.DocFlavor;
+import javax.print.PrintException;
 import javax.print.PrintService;
 import javax.print.attribute.HashPrintJobAttributeSet;
 import javax.print.attribute.HashPrintRequestAttributeSet;
 import javax.print.attribute.PrintJobAttributeSet;
+import javax.print.attribute.PrintRequestAttribute;
 import javax.print.attribute.PrintRequestAttributeSet;
+import javax.print.attribute.standard.Copies;
+import javax.print.attribute.standard.Fidelity;
+import javax.print.attribute.standard.JobState;
+import javax.print.attribute.standard.Sides;
 import javax.print.event.PrintJobAttributeListener;
 import javax.print.event.PrintJobEvent;
 import javax.print.event.PrintJobListener;
@@ -64,6 +77,8 @@ class VirtualDocPrintJobTest {
   PrintService service;
   @Mock(name = "outputStreamSupplier")
   Supplier<OutputStream> outputStreamSupplier;
+  @Mock(name = "admissionControl")
+  AdmissionControl admissionControl;
   @Mock(name = "attributeListener")
   PrintJobAttributeListener attributeListener;
   @Mock(name = "jobListener")
@@ -89,7 +104,7 @@ class VirtualDocPrintJobTest {
 
   @Test
   void testGetAttributes() {
-    assertThat(job.getAttributes()).isNotNull();
+    assertThat(job.getAttributes().toArray()).containsExactly(JobState.UNKNOWN);
   }
 
   @Test
@@ -124,6 +139,32 @@ class VirtualDocPrintJobTest {
   void testCancel() {
     assertThatNoException().isThrownBy(job::cancel);
     assertThatNoException().isThrownBy(job::cancel);
+    assertThat(job.state()).isEqualTo(VirtualDocPrintJob.State.CANCELED);
+    assertThat(job.getAttributes().get(JobState.class)).isEqualTo(JobState.CANCELED);
+    assertThatExceptionOfType(PrintException.class)
+        .isThrownBy(() -> job.print(doc, new HashPrintRequestAttributeSet()))
+        .withMessage("printing canceled");
+  }
+
+  @Test
+  void testCancelWhileQueued() throws PrintException {
+    PrintRequestAttributeSet attributes = new HashPrintRequestAttributeSet();
+
+    doAnswer(invocation -> {
+      job.cancel();
+      BooleanSupplier canceled = invocation.getArgument(0);
+      assertThat(canceled.getAsBoolean()).isTrue();
+      throw new PrintException("printing canceled");
+    }).when(admissionControl).acquire(any());
+
+    job.addPrintJobListener(jobListener);
+    assertThatExceptionOfType(PrintException.class).isThrownBy(() -> job.print(doc, attributes))
+        .withMessage("printing canceled");
+    assertThat(job.state()).isEqualTo(VirtualDocPrintJob.State.CANCELED);
+    verify(doc).getDocFlavor();
+    verify(admissionControl).wakeUp();
+    verify(jobListener).printJobCanceled(isA(PrintJobEvent.class));
+    verify(jobListener).printJobNoMoreEvents(isA(PrintJobEvent.class));
   }
 
   @Test
@@ -138,6 +179,11 @@ class VirtualDocPrintJobTest {
 
     job.addPrintJobListener(jobListener);
     assertThatNoException().isThrownBy(() -> job.print(doc, attributes));
+    assertThat(job.state()).isEqualTo(VirtualDocPrintJob.State.COMPLETED);
+    assertThat(job.getAttributes().get(JobState.class)).isEqualTo(JobState.COMPLETED);
+    assertThatExceptionOfType(PrintException.class).isThrownBy(() -> job.print(doc, attributes))
+        .withMessage("already printing");
+    assertThatExceptionOfType(PrintException.class).isThrownBy(job::cancel);
 
     verify(doc, times(2)).getAttributes();
     verify(doc, times(2)).getDocFlavor();
@@ -145,6 +191,104 @@ class VirtualDocPrintJobTest {
     verify(jobListener).printJobNoMoreEvents(isA(PrintJobEvent.class));
   }
 
+  @Test
+  void testPrintRejected() throws PrintException {
+    PrintRequestAttributeSet attributes = new HashPrintRequestAttributeSet();
+    PrintException rejected = new PrintException("job rejected");
+
+    doThrow(rejected).when(admissionControl).acquire(any());
+
+    job.addPrintJobListener(jobListener);
+    assertThatExceptionOfType(PrintException.class).isThrownBy(() -> job.print(doc, attributes))
+        .isSameAs(rejected);
+    assertThat(job.state()).isEqualTo(VirtualDocPrintJob.State.FAILED);
+    verify(doc).getDocFlavor();
+    verify(jobListener).printJobFailed(isA(PrintJobEvent.class));
+    verify(jobListener).printJobNoMoreEvents(isA(PrintJobEvent.class));
+  }
+
+  @Test
+  void testPrintUnsupportedValue() {
+    PrintRequestAttributeSet attributes = new HashPrintRequestAttributeSet(new Copies(1000));
+
+    job.addPrintJobListener(jobListener);
+    assertThatExceptionOfType(PrintException.class).isThrownBy(() -> job.print(doc, attributes))
+        .isInstanceOfSatisfying(AttributeException.class, e -> {
+          assertThat(e.getUnsupportedValues()).containsExactly(new Copies(1000));
+          assertThat(e.getUnsupportedAttributes()).isEmpty();
+        });
+    assertThat(job.state()).isEqualTo(VirtualDocPrintJob.State.FAILED);
+    verify(doc).getDocFlavor();
+    verify(jobListener).printJobFailed(isA(PrintJobEvent.class));
+    verify(jobListener).printJobNoMoreEvents(isA(PrintJobEvent.class));
+  }
+
+  @Test
+  void testPrintRawCopies() {
+    PrintRequestAttributeSet attributes = new HashPrintRequestAttributeSet(new Copies(3));
+
+    when(doc.getDocFlavor()).thenReturn(DocFlavor.INPUT_STREAM.POSTSCRIPT);
+
+    assertThatExceptionOfType(PrintException.class).isThrownBy(() -> job.print(doc, attributes))
+        .isInstanceOfSatisfying(AttributeException.class,
+            e -> assertThat(e.getUnsupportedValues()).containsExactly(new Copies(3)));
+    assertThat(job.state()).isEqualTo(VirtualDocPrintJob.State.FAILED);
+  }
+
+  @Test
+  void testPrintUnsupportedCategory() throws IOException, PrinterException {
+    PrintRequestAttributeSet attributes = new HashPrintRequestAttributeSet(Sides.DUPLEX);
+
+    when(outputStreamSupplier.get()).thenReturn(OutputStream.nullOutputStream());
+    when(doc.getDocFlavor()).thenReturn(DocFlavor.SERVICE_FORMATTED.PRINTABLE);
+    when(doc.getPrintData()).thenReturn(printable);
+    when(printable.print(any(), any(), eq(0))).thenReturn(NO_SUCH_PAGE);
+
+    assertThatNoException().isThrownBy(() -> job.print(doc, attributes));
+    assertThat(job.state()).isEqualTo(VirtualDocPrintJob.State.COMPLETED);
+    verify(doc, times(2)).getAttributes();
+    verify(doc, times(2)).getDocFlavor();
+  }
+
+  @Test
+  void testPrintUnsupportedCategoryWithFidelity() {
+    PrintRequestAttributeSet attributes = new HashPrintRequestAttributeSet(
+        new PrintRequestAttribute[] {Sides.DUPLEX, Fidelity.FIDELITY_TRUE});
+
+    assertThatExceptionOfType(PrintException.class).isThrownBy(() -> job.print(doc, attributes))
+        .isInstanceOfSatisfying(AttributeException.class, e -> {
+          assertThat(e.getUnsupportedAttributes()).containsExactly(Sides.class);
+          assertThat(e.getUnsupportedValues()).isEmpty();
+        });
+    assertThat(job.state()).isEqualTo(VirtualDocPrintJob.State.FAILED);
+    verify(doc).getDocFlavor();
+  }
+
+  @Test
+  void testPrintCopies() throws IOException, PrinterException {
+    PrintRequestAttributeSet attributes = new HashPrintRequestAttributeSet(new Copies(3));
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    when(outputStreamSupplier.get()).thenReturn(output);
+    when(doc.getDocFlavor()).thenReturn(DocFlavor.SERVICE_FORMATTED.PRINTABLE);
+    when(doc.getPrintData()).thenReturn(printable);
+    when(printable.print(any(), any(), eq(0))).thenReturn(PAGE_EXISTS);
+    when(printable.print(any(), any(), eq(1))).thenReturn(NO_SUCH_PAGE);
+
+    assertThatNoException().isThrownBy(() -> job.print(doc, attributes));
+
+    byte[] bytes = output.toByteArray();
+    int length = bytes.length / 3;
+    assertThat(length).isPositive();
+    assertThat(bytes).hasSize(length * 3);
+    assertThat(Arrays.copyOfRange(bytes, length, length * 2))
+        .isEqualTo(Arrays.copyOfRange(bytes, 0, length))
+        .isEqualTo(Arrays.copyOfRange(bytes, length * 2, length * 3));
+    assertThat(job.getAttributes().get(Copies.class)).isEqualTo(new Copies(3));
+    verify(doc, times(2)).getAttributes();
+    verify(doc, times(2)).getDocFlavor();
+  }
+
   @Test
   void testPrintWithError() throws IOException, PrinterException {
     PrintRequestAttributeSet attributes = new HashPrintRequestAttributeSet();
@@ -20,12 +20,15 @@
  */
 package net.reini.print;
 
+import static javax.print.DocFlavor.INPUT_STREAM.POSTSCRIPT;
 import static javax.print.DocFlavor.SERVICE_FORMATTED.PAGEABLE;
 import static javax.print.DocFlavor.SERVICE_FORMATTED.PRINTABLE;
 import static javax.print.DocFlavor.STRING.TEXT_PLAIN;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
 import static org.assertj.core.api.Assertions.assertThatNoException;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
@@ -37,8 +40,14 @@ import java.awt.print.PageFormat;
 import java.awt.print.Pageable;
 import java.awt.print.Printable;
 import java.awt.print.PrinterException;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 
 import javax.print.CancelablePrintJob;
@@ -47,13 +56,26 @@ import javax.print.DocFlavor;
 import javax.print.DocPrintJob;
 import javax.print.PrintException;
 import javax.print.SimpleDoc;
+import javax.print.attribute.Attribute;
+import javax.print.attribute.HashAttributeSet;
 import javax.print.attribute.HashPrintRequestAttributeSet;
 import javax.print.attribute.PrintRequestAttributeSet;
 import javax.print.attribute.PrintServiceAttributeSet;
+import javax.print.attribute.standard.Copies;
+import javax.print.attribute.standard.CopiesSupported;
+import javax.print.attribute.standard.Fidelity;
+import javax.print.attribute.standard.JobName;
+import javax.print.attribute.standard.MediaSizeName;
+import javax.print.attribute.standard.PageRanges;
 import javax.print.attribute.standard.PrinterIsAcceptingJobs;
 import javax.print.attribute.standard.PrinterMoreInfoManufacturer;
 import javax.print.attribute.standard.PrinterName;
 import javax.print.attribute.standard.PrinterState;
+import javax.print.attribute.standard.QueuedJobCount;
+import javax.print.attribute.standard.RequestingUserName;
+import javax.print.attribute.standard.Sides;
+import javax.print.event.PrintServiceAttributeEvent;
+import javax.print.event.PrintServiceAttributeListener;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -112,6 +134,9 @@ class VirtualPrintServiceTest {
     PrinterState printerState = printerService.getAttribute(PrinterState.class);
     assertThat(printerState).isEqualTo(PrinterState.IDLE);
 
+    QueuedJobCount queuedJobCount = printerService.getAttribute(QueuedJobCount.class);
+    assertThat(queuedJobCount).isEqualTo(new QueuedJobCount(0));
+
     PrinterMoreInfoManufacturer manufacturer =
         printerService.getAttribute(PrinterMoreInfoManufacturer.class);
     assertThat(manufacturer).isNull();
@@ -123,6 +148,30 @@ class VirtualPrintServiceTest {
 
     assertThat(attributes.containsValue(new PrinterName("PrinterName", null))).isTrue();
     assertThat(attributes.containsValue(PrinterState.IDLE)).isTrue();
+    assertThat(attributes.containsValue(new QueuedJobCount(0))).isTrue();
+  }
+
+  @Test
+  void getAttributesReusesSnapshotUntilChanged() {
+    PrintServiceAttributeSet attributes = printerService.getAttributes();
+
+    assertThat(printerService.getAttributes()).isSameAs(attributes);
+    assertThat(printerService.getAttribute(PrinterName.class))
+        .isSameAs(printerService.getAttribute(PrinterName.class));
+
+    printerService.suspend();
+    PrintServiceAttributeSet suspended = printerService.getAttributes();
+    assertThat(suspended).isNotSameAs(attributes);
+    assertThat(suspended.get(PrinterIsAcceptingJobs.class))
+        .isEqualTo(PrinterIsAcceptingJobs.NOT_ACCEPTING_JOBS);
+    assertThat(printerService.getAttributes()).isSameAs(suspended);
+
+    printerService.createPrintJob();
+    PrintServiceAttributeSet processing = printerService.getAttributes();
+    assertThat(processing).isNotSameAs(suspended);
+    assertThat(processing.get(PrinterState.class)).isEqualTo(PrinterState.PROCESSING);
+    assertThat(processing.get(QueuedJobCount.class)).isEqualTo(new QueuedJobCount(1));
+    assertThat(attributes.get(PrinterState.class)).isEqualTo(PrinterState.IDLE);
   }
 
   @Test
@@ -140,32 +189,84 @@ class VirtualPrintServiceTest {
   @Test
   void getDefaultAttributeValue() {
     assertThat(printerService.getDefaultAttributeValue(null)).isNull();
+    assertThat(printerService.getDefaultAttributeValue(Copies.class)).isEqualTo(new Copies(1));
+    assertThat(printerService.getDefaultAttributeValue(PageRanges.class))
+        .isEqualTo(new PageRanges(1, Integer.MAX_VALUE));
+    assertThat(printerService.getDefaultAttributeValue(Fidelity.class))
+        .isEqualTo(Fidelity.FIDELITY_FALSE);
+    assertThat(printerService.getDefaultAttributeValue(Sides.class)).isNull();
   }
 
   @Test
   void getSupportedAttributeValues() {
     assertThat(printerService.getSupportedAttributeValues(null, null, null)).isNull();
+    assertThat(printerService.getSupportedAttributeValues(Copies.class, PRINTABLE, null))
+        .isEqualTo(new CopiesSupported(1, 999));
+    assertThat(printerService.getSupportedAttributeValues(Fidelity.class, null, null))
+        .isEqualTo(new Fidelity[] {Fidelity.FIDELITY_FALSE, Fidelity.FIDELITY_TRUE});
+    assertThat(printerService.getSupportedAttributeValues(JobName.class, null, null))
+        .isInstanceOf(JobName.class);
+    assertThat(printerService.getSupportedAttributeValues(Sides.class, null, null)).isNull();
+    assertThatIllegalArgumentException().isThrownBy(
+        () -> printerService.getSupportedAttributeValues(Copies.class, TEXT_PLAIN, null));
   }
 
   @Test
   void getUnsupportedAttributes() {
     assertThat(printerService.getUnsupportedAttributes(null, null)).isNull();
+    assertThat(printerService.getUnsupportedAttributes(PAGEABLE,
+        new HashPrintRequestAttributeSet(new Copies(2)))).isNull();
+    assertThat(printerService
+        .getUnsupportedAttributes(PAGEABLE, new HashPrintRequestAttributeSet(new Copies(1000)))
+        .toArray()).containsExactly(new Copies(1000));
+    assertThat(printerService.getUnsupportedAttributes(PAGEABLE,
+        new HashAttributeSet(new Attribute[] {new Copies(1000), new PageRanges(2),
+            new JobName("Job", null), Sides.DUPLEX, MediaSizeName.ISO_A4}))
+        .toArray()).containsExactlyInAnyOrder(new Copies(1000), Sides.DUPLEX,
+            MediaSizeName.ISO_A4);
+  }
+
+  @Test
+  void rawFlavorAttributes() {
+    assertThat(VirtualPrintService.unsupportedAttributes(POSTSCRIPT,
+        new HashAttributeSet(new Attribute[] {new Copies(1), new JobName("Job", null)})))
+        .isNull();
+    assertThat(VirtualPrintService.unsupportedAttributes(POSTSCRIPT,
+        new HashAttributeSet(new Attribute[] {new Copies(3), new PageRanges(2)})).toArray())
+        .containsExactlyInAnyOrder(new Copies(3), new PageRanges(2));
+    assertThat(
+        VirtualPrintService.unsupportedAttributes(PRINTABLE, new HashAttributeSet(new Copies(3))))
+        .isNull();
   }
 
   @Test
   void isAttributeCategorySupported() {
     assertThat(printerService.isAttributeCategorySupported(null)).isFalse();
+    assertThat(printerService.isAttributeCategorySupported(Copies.class)).isTrue();
+    assertThat(printerService.isAttributeCategorySupported(PageRanges.class)).isTrue();
+    assertThat(printerService.isAttributeCategorySupported(JobName.class)).isTrue();
+    assertThat(printerService.isAttributeCategorySupported(RequestingUserName.class)).isTrue();
+    assertThat(printerService.isAttributeCategorySupported(Fidelity.class)).isTrue();
+    assertThat(printerService.isAttributeCategorySupported(Sides.class)).isFalse();
   }
 
   @Test
   void isAttributeValueSupported() {
     assertThat(printerService.isAttributeValueSupported(null, null, null)).isFalse();
+    assertThat(printerService.isAttributeValueSupported(new Copies(999), null, null)).isTrue();
+    assertThat(printerService.isAttributeValueSupported(new Copies(1000), null, null)).isFalse();
+    assertThat(printerService.isAttributeValueSupported(new PageRanges("2-3"), PAGEABLE, null))
+        .isTrue();
+    assertThat(printerService.isAttributeValueSupported(Fidelity.FIDELITY_TRUE, null, null))
+        .isTrue();
+    assertThat(printerService.isAttributeValueSupported(Sides.DUPLEX, null, null)).isFalse();
   }
 
   @Test
   void getSupportedAttributeCategories() {
     Class<?>[] categories = printerService.getSupportedAttributeCategories();
-    assertThat(categories).isNotNull().isEmpty();
+    assertThat(categories).containsExactly(Copies.class, PageRanges.class, JobName.class,
+        RequestingUserName.class, Fidelity.class);
   }
 
   @Test
@@ -191,6 +292,36 @@ class VirtualPrintServiceTest {
         .isThrownBy(() -> printerService.removePrintServiceAttributeListener(null));
   }
 
+  @Test
+  void printServiceAttributeListenerCoalescesChanges() throws InterruptedException {
+    BlockingQueue<PrintServiceAttributeEvent> events = new LinkedBlockingQueue<>();
+    PrintServiceAttributeListener listener = events::add;
+    printerService.addPrintServiceAttributeListener(listener);
+
+    for (int i = 0; i < 10; i++) {
+      printerService.createPrintJob();
+    }
+
+    PrintServiceAttributeEvent event = events.poll(5, TimeUnit.SECONDS);
+    assertThat(event).isNotNull();
+    assertThat(event.getPrintService()).isSameAs(printerService);
+    assertThat(event.getAttributes().get(PrinterState.class)).isEqualTo(PrinterState.PROCESSING);
+    assertThat(event.getAttributes().get(QueuedJobCount.class)).isEqualTo(new QueuedJobCount(10));
+    assertThat(event.getAttributes().get(PrinterIsAcceptingJobs.class)).isNull();
+
+    printerService.suspend();
+
+    event = events.poll(5, TimeUnit.SECONDS);
+    assertThat(event).isNotNull();
+    assertThat(event.getAttributes().toArray())
+        .containsExactly(PrinterIsAcceptingJobs.NOT_ACCEPTING_JOBS);
+
+    printerService.removePrintServiceAttributeListener(listener);
+    printerService.activate();
+
+    assertThat(events.poll(500, TimeUnit.MILLISECONDS)).isNull();
+  }
+
   @Test
   void getCanceled() {
     assertThat(printerService.getCanceled()).isZero();
@@ -250,6 +381,138 @@ class VirtualPrintServiceTest {
     verifyNoMoreInteractions(pageable, printable);
   }
 
+  @Test
+  void getSkippedPages() {
+    Set<Integer> renderedPages = ConcurrentHashMap.newKeySet();
+    Printable printable = (graphics, pageFormat, pageIndex) -> {
+      if (pageIndex >= 10) {
+        return Printable.NO_SUCH_PAGE;
+      }
+      renderedPages.add(Integer.valueOf(pageIndex));
+      return Printable.PAGE_EXISTS;
+    };
+    Doc doc = new SimpleDoc(printable, PRINTABLE, null);
+    PrintRequestAttributeSet attributes =
+        new HashPrintRequestAttributeSet(new PageRanges("3-4,8"));
+
+    assertThatNoException()
+        .isThrownBy(() -> printerService.createPrintJob().print(doc, attributes));
+    assertThat(renderedPages).containsExactlyInAnyOrder(2, 3, 7);
+    assertThat(printerService.getSkippedPages()).isEqualTo(5);
+    assertThat(printerService.getCompleted()).isEqualTo(1);
+    assertResetStatistics();
+    assertThat(printerService.getSkippedPages()).isZero();
+  }
+
+  @Test
+  void getRejected() {
+    printerService = new VirtualPrintService("PrinterName",
+        PrinterConfiguration.parse("admission=reject"), removeAction, printService -> {
+          // no action
+        });
+    Doc doc = new SimpleDoc(new TestPage(null, null), PRINTABLE, null);
+    PrintRequestAttributeSet attributes = new HashPrintRequestAttributeSet();
+
+    printerService.suspend();
+    DocPrintJob printerjob = printerService.createPrintJob();
+    assertThatExceptionOfType(PrintException.class)
+        .isThrownBy(() -> printerjob.print(doc, attributes));
+    assertThat(printerService.getRejected()).isEqualTo(1);
+    assertThat(printerService.getFailed()).isEqualTo(1);
+    assertThat(printerService.getRunning()).isZero();
+
+    printerService.activate();
+    assertThatNoException()
+        .isThrownBy(() -> printerService.createPrintJob().print(doc, attributes));
+    assertThat(printerService.getCompleted()).isEqualTo(1);
+    assertResetStatistics();
+    assertThat(printerService.getRejected()).isZero();
+  }
+
+  @Test
+  void rejectCopiesExceedingMemoryBudget() {
+    MemoryBudget memoryBudget = new MemoryBudget(1024);
+    printerService = new VirtualPrintService("PrinterName",
+        PrinterConfiguration.parse("memory=reject"), removeAction, printService -> {
+          // no action
+        }, memoryBudget, null);
+    Doc doc = new SimpleDoc(new TestPage(null, null), PRINTABLE, null);
+    PrintRequestAttributeSet attributes = new HashPrintRequestAttributeSet(new Copies(3));
+
+    VirtualDocPrintJob printerjob = (VirtualDocPrintJob) printerService.createPrintJob();
+    assertThatExceptionOfType(PrintException.class)
+        .isThrownBy(() -> printerjob.print(doc, attributes));
+    assertThat(printerjob.state()).isEqualTo(VirtualDocPrintJob.State.FAILED);
+    assertThat(printerService.getFailed()).isEqualTo(1);
+    assertThat(memoryBudget.rejectedJobs()).isEqualTo(1);
+    assertThat(memoryBudget.used()).isZero();
+  }
+
+  @Test
+  void copiesWithinExhaustedMemoryBudget() {
+    MemoryBudget memoryBudget = new MemoryBudget(OutputSink.BudgetedOutputStream.RESERVE_CHUNK);
+    printerService = new VirtualPrintService("PrinterName", PrinterConfiguration.DEFAULT,
+        removeAction, printService -> {
+          // no action
+        }, memoryBudget, null);
+    Doc doc = new SimpleDoc(new TestPage(null, null), PRINTABLE, null);
+    PrintRequestAttributeSet attributes = new HashPrintRequestAttributeSet(new Copies(2));
+
+    VirtualDocPrintJob printerjob = (VirtualDocPrintJob) printerService.createPrintJob();
+    assertTimeoutPreemptively(Duration.ofSeconds(10),
+        () -> printerjob.print(doc, attributes));
+    assertThat(printerjob.state()).isEqualTo(VirtualDocPrintJob.State.COMPLETED);
+    assertThat(memoryBudget.used()).isZero();
+  }
+
+  @Test
+  void getJobHistory() throws PrintException {
+    Doc doc = new SimpleDoc(new TestPage(null, null), PRINTABLE, null);
+    PrintRequestAttributeSet attributes = new HashPrintRequestAttributeSet();
+
+    assertThat(printerService.getJobHistory()).isEmpty();
+    printerService.createPrintJob().print(doc, attributes);
+    ((CancelablePrintJob) printerService.createPrintJob()).cancel();
+
+    assertThat(printerService.getJobHistory()).hasSize(2);
+    assertThat(printerService.getJobHistory().get(Long.valueOf(0))).satisfies(job -> {
+      assertThat(job.getOutcome()).isEqualTo("COMPLETED");
+      assertThat(job.getFlavor()).isEqualTo(PRINTABLE.toString());
+      assertThat(job.getBytes()).isPositive();
+      assertThat(job.getPages()).isEqualTo(1);
+      assertThat(job.getFinished()).isPositive();
+    });
+    assertThat(printerService.findJobs("canceled", 0, 0)).containsOnlyKeys(Long.valueOf(1));
+    assertThat(printerService.findJobs("", 0, 1)).isEmpty();
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> printerService.findJobs("printing", 0, 0));
+  }
+
+  @Test
+  void getFlavorStatistics() throws PrintException {
+    Doc doc = new SimpleDoc(new TestPage(null, null), PRINTABLE, null);
+    PrintRequestAttributeSet attributes = new HashPrintRequestAttributeSet();
+
+    printerService.createPrintJob().print(doc, attributes);
+    ((CancelablePrintJob) printerService.createPrintJob()).cancel();
+
+    assertThat(printerService.getFlavorStatistics()).containsKeys(PRINTABLE.toString(),
+        PAGEABLE.toString(), FlavorCounters.OTHER);
+    assertThat(printerService.getFlavorStatistics().get(PRINTABLE.toString())).satisfies(flavor -> {
+      assertThat(flavor.getCompleted()).isEqualTo(1);
+      assertThat(flavor.getFailed()).isZero();
+      assertThat(flavor.getBytes()).isPositive();
+      assertThat(flavor.getRenderNanos()).isPositive();
+      assertThat(Arrays.stream(flavor.getLatencyHistogram()).sum()).isEqualTo(1);
+    });
+    assertThat(printerService.getFlavorStatistics().get(FlavorCounters.OTHER).getCanceled())
+        .isEqualTo(1);
+
+    printerService.resetStatistics();
+    assertThat(printerService.getFlavorStatistics().get(PRINTABLE.toString()).getCompleted())
+        .isZero();
+  }
+
   @Test
   void remove() {
     assertThatNoException().isThrownBy(printerService::remove);
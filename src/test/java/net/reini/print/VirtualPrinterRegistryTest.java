@@ -0,0 +1,399 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018-2026 Patrick Reinhart
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.reini.print;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatNullPointerException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import javax.print.DocFlavor;
+import javax.print.PrintService;
+import javax.print.SimpleDoc;
+import javax.print.attribute.HashPrintRequestAttributeSet;
+import javax.print.attribute.PrintRequestAttributeSet;
+import javax.print.attribute.standard.RequestingUserName;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class VirtualPrinterRegistryTest {
+  MBeanServer mbeanServer;
+  VirtualPrinterRegistry registry;
+
+  @BeforeEach
+  void setUp() {
+    mbeanServer = MBeanServerFactory.newMBeanServer();
+    registry = new VirtualPrinterRegistry(mbeanServer);
+  }
+
+  @Test
+  void initialPrintersFromDefinition() throws Exception {
+    assertThat(registry.printServices()).extracting(PrintService::getName)
+        .containsExactly("MyVirtualPrinter");
+    assertThat(mbeanServer
+        .isRegistered(new ObjectName("net.reini:type=virtual-printers,name=MyVirtualPrinter")))
+        .isTrue();
+  }
+
+  @Test
+  void addAndRemovePrinter() throws Exception {
+    registry.addPrinter("Second");
+    registry.addPrinter("Second");
+
+    assertThat(registry.printServices()).extracting(PrintService::getName)
+        .containsExactly("MyVirtualPrinter", "Second");
+    assertThat(registry.printService("Second")).isNotNull()
+        .extracting(PrintService::getName).isEqualTo("Second");
+
+    registry.removePrinter("Second");
+    registry.removePrinter("Unknown");
+
+    assertThat(registry.printService("Second")).isNull();
+    assertThat(registry.printServices()).extracting(PrintService::getName)
+        .containsExactly("MyVirtualPrinter");
+    assertThat(
+        mbeanServer.isRegistered(new ObjectName("net.reini:type=virtual-printers,name=Second")))
+        .isFalse();
+  }
+
+  @Test
+  void addOrRemoveNullPrinter() {
+    assertThatNullPointerException().isThrownBy(() -> registry.addPrinter(null));
+    assertThatNullPointerException().isThrownBy(() -> registry.removePrinter(null));
+  }
+
+  @Test
+  void defaultPrinter() {
+    assertThat(registry.defaultPrintService()).isNull();
+
+    registry.setDefaultPrinterName("Unknown");
+    assertThat(registry.getDefaultPrinterName()).isNull();
+
+    registry.setDefaultPrinterName("MyVirtualPrinter");
+    assertThat(registry.getDefaultPrinterName()).isEqualTo("MyVirtualPrinter");
+    assertThat(registry.defaultPrintService()).isSameAs(registry.printService("MyVirtualPrinter"));
+
+    registry.removePrinter("MyVirtualPrinter");
+    assertThat(registry.getDefaultPrinterName()).isNull();
+    assertThat(registry.defaultPrintService()).isNull();
+  }
+
+  @Test
+  void bulkOperations() throws Exception {
+    long version = registry.getSnapshotVersion();
+
+    BulkOperationResult result =
+        registry.addPrinters(new String[] {"MyVirtualPrinter", "Second", "Third", "Fourth"});
+    assertThat(result.getAdded()).isEqualTo(3);
+    assertThat(result.getRemoved()).isZero();
+    assertThat(result.getUnchanged()).isEqualTo(1);
+    assertThat(result.getDurationNanos()).isPositive();
+    assertThat(registry.printServices()).extracting(PrintService::getName)
+        .containsExactly("MyVirtualPrinter", "Second", "Third", "Fourth");
+    assertThat(registry.getSnapshotVersion()).isEqualTo(version + 1);
+    assertThat(
+        mbeanServer.isRegistered(new ObjectName("net.reini:type=virtual-printers,name=Fourth")))
+        .isTrue();
+
+    result = registry.removePrinters(new String[] {"Second", "Unknown"});
+    assertThat(result.getAdded()).isZero();
+    assertThat(result.getRemoved()).isEqualTo(1);
+    assertThat(result.getUnchanged()).isEqualTo(1);
+    assertThat(registry.printServices()).extracting(PrintService::getName)
+        .containsExactly("MyVirtualPrinter", "Third", "Fourth");
+
+    registry.setDefaultPrinterName("Third");
+    result = registry.replaceAll(new String[] {"Fourth", "Fifth"});
+    assertThat(result.getAdded()).isEqualTo(1);
+    assertThat(result.getRemoved()).isEqualTo(2);
+    assertThat(result.getUnchanged()).isEqualTo(1);
+    assertThat(registry.printServices()).extracting(PrintService::getName)
+        .containsExactly("Fourth", "Fifth");
+    assertThat(registry.getDefaultPrinterName()).isNull();
+    assertThat(
+        mbeanServer.isRegistered(new ObjectName("net.reini:type=virtual-printers,name=Third")))
+        .isFalse();
+  }
+
+  @Test
+  void bulkOperationsRejectNullNames() {
+    assertThatNullPointerException().isThrownBy(() -> registry.addPrinters(null));
+    assertThatNullPointerException()
+        .isThrownBy(() -> registry.addPrinters(new String[] {"Second", null}));
+    assertThat(registry.printService("Second")).isNull();
+  }
+
+  @Test
+  void memoryBudget() throws Exception {
+    MBeanServer server = MBeanServerFactory.createMBeanServer();
+    try {
+      VirtualPrinterRegistry budgetRegistry = new VirtualPrinterRegistry.Builder(server)
+          .memoryBudget(new MemoryBudget(1024 * 1024)).build();
+
+      budgetRegistry.printService("MyVirtualPrinter").createPrintJob().print(
+          new SimpleDoc(new TestPage(null, null), DocFlavor.SERVICE_FORMATTED.PRINTABLE, null),
+          new HashPrintRequestAttributeSet());
+
+      assertThat(budgetRegistry.getMemoryBudget()).isEqualTo(1024 * 1024);
+      assertThat(budgetRegistry.getMemoryUsed()).isZero();
+      assertThat(budgetRegistry.getMemoryHighWaterMark()).isPositive();
+      assertThat(budgetRegistry.getMemoryBlocked()).isZero();
+      assertThat(budgetRegistry.getMemorySpilled()).isZero();
+      assertThat(budgetRegistry.getMemoryRejected()).isZero();
+    } finally {
+      MBeanServerFactory.releaseMBeanServer(server);
+    }
+  }
+
+  @Test
+  void topUsers() throws Exception {
+    PrintRequestAttributeSet attributes = new HashPrintRequestAttributeSet();
+    attributes.add(new RequestingUserName("alice", null));
+    registry.printService("MyVirtualPrinter").createPrintJob()
+        .print(new SimpleDoc(new byte[100], DocFlavor.BYTE_ARRAY.AUTOSENSE, null), attributes);
+
+    assertThat(registry.getTrackedUsers()).isEqualTo(1);
+    assertThat(registry.getEvictedUsers()).isZero();
+    assertThat(registry.getTopUsers(10)).singleElement().satisfies(user -> {
+      assertThat(user.getUser()).isEqualTo("alice");
+      assertThat(user.getJobs()).isEqualTo(1);
+      assertThat(user.getBytes()).isEqualTo(100);
+    });
+    CompositeData[] topUsers = (CompositeData[]) mbeanServer.invoke(
+        new ObjectName("net.reini:type=VirtualPrinters"), "getTopUsers", new Object[] {10},
+        new String[] {int.class.getName()});
+    assertThat(topUsers).extracting(user -> user.get("user")).containsExactly("alice");
+  }
+
+  @Test
+  void snapshotRebuiltOnlyAfterModification() {
+    VirtualPrinterRegistry.Snapshot snapshot = registry.snapshot();
+    long rebuilds = registry.getSnapshotRebuilds();
+
+    assertThat(registry.snapshot()).isSameAs(snapshot);
+    assertThat(registry.getSnapshotVersion()).isEqualTo(snapshot.version);
+    assertThat(registry.getSnapshotRebuilds()).isEqualTo(rebuilds);
+
+    registry.addPrinter("Second");
+    registry.addPrinter("Third");
+    registry.setDefaultPrinterName("Third");
+
+    VirtualPrinterRegistry.Snapshot modified = registry.snapshot();
+    assertThat(modified).isNotSameAs(snapshot);
+    assertThat(modified.version).isGreaterThan(snapshot.version);
+    assertThat(modified.printServices).extracting(PrintService::getName)
+        .containsExactly("MyVirtualPrinter", "Second", "Third");
+    assertThat(modified.defaultPrintService).isSameAs(registry.printService("Third"));
+    assertThat(registry.getSnapshotRebuilds()).isEqualTo(rebuilds + 1);
+    assertThat(registry.snapshot()).isSameAs(modified);
+  }
+
+  @Test
+  void lazyManagementMode() throws Exception {
+    ObjectName objectName = new ObjectName("net.reini:type=virtual-printers,name=Lazy");
+    MBeanServer server = MBeanServerFactory.createMBeanServer();
+    try {
+      VirtualPrinterRegistry lazyRegistry =
+          new VirtualPrinterRegistry.Builder(server).managementMode(ManagementMode.LAZY).build();
+      lazyRegistry.addPrinter("Lazy");
+      assertThat(lazyRegistry.getManagementMode()).isEqualTo("LAZY");
+      assertThat(server.isRegistered(objectName)).isFalse();
+
+      lazyRegistry.printService("Lazy").createPrintJob();
+      assertThat(server.isRegistered(objectName)).isTrue();
+
+      lazyRegistry.removePrinter("Lazy");
+      assertThat(server.isRegistered(objectName)).isFalse();
+    } finally {
+      MBeanServerFactory.releaseMBeanServer(server);
+    }
+  }
+
+  @Test
+  void aggregateManagementMode() throws Exception {
+    MBeanServer server = MBeanServerFactory.createMBeanServer();
+    try {
+      VirtualPrinterRegistry aggregateRegistry = new VirtualPrinterRegistry.Builder(server)
+          .managementMode(ManagementMode.AGGREGATE).build();
+      aggregateRegistry.addPrinter("Aggregate");
+      aggregateRegistry.printService("Aggregate").createPrintJob();
+
+      assertThat(server.queryNames(new ObjectName("net.reini:type=virtual-printers,*"), null))
+          .isEmpty();
+      Map<String, PrinterStatus> printers = aggregateRegistry.getPrinters();
+      assertThat(printers).containsOnlyKeys("MyVirtualPrinter", "Aggregate");
+      PrinterStatus status = printers.get("Aggregate");
+      assertThat(status.getPrinterState()).isEqualTo("processing");
+      assertThat(status.isAcceptingJobs()).isTrue();
+      assertThat(status.getRunning()).isEqualTo(1);
+      assertThat(status.getCompleted()).isZero();
+
+      TabularData printerData = (TabularData) server
+          .getAttribute(new ObjectName("net.reini:type=VirtualPrinters"), "Printers");
+      assertThat(printerData.size()).isEqualTo(2);
+      CompositeData printer =
+          (CompositeData) printerData.get(new Object[] {"Aggregate"}).get("value");
+      assertThat(printer.get("printerState")).isEqualTo("processing");
+      assertThat(printer.get("acceptingJobs")).isEqualTo(Boolean.TRUE);
+      assertThat(printer.get("running")).isEqualTo(1);
+      assertThat(printer.get("completed")).isEqualTo(0L);
+    } finally {
+      MBeanServerFactory.releaseMBeanServer(server);
+    }
+  }
+
+  @Test
+  void reloadDefinitions(@TempDir Path directory) throws Exception {
+    Path definitionFile = directory.resolve("printers");
+    Files.write(definitionFile, List.of("# file printers", "First", "Second"));
+    MBeanServer server = MBeanServerFactory.createMBeanServer();
+    VirtualPrinterRegistry fileRegistry =
+        new VirtualPrinterRegistry.Builder(server).definitionFile(definitionFile).build();
+    try {
+      assertThat(fileRegistry.getDefinitionFile()).isEqualTo(definitionFile.toString());
+      assertThat(fileRegistry.printServices()).extracting(PrintService::getName)
+          .containsExactly("MyVirtualPrinter", "First", "Second");
+      PrintService second = fileRegistry.printService("Second");
+
+      Files.write(definitionFile, List.of("Second", "Third"));
+      BulkOperationResult result = fileRegistry.reloadDefinitions();
+
+      assertThat(result.getAdded()).isEqualTo(1);
+      assertThat(result.getRemoved()).isEqualTo(1);
+      assertThat(fileRegistry.printServices()).extracting(PrintService::getName)
+          .containsExactly("MyVirtualPrinter", "Second", "Third");
+      assertThat(fileRegistry.printService("Second")).isSameAs(second);
+
+      Files.write(definitionFile, List.of("Second; sink=null", "Third"));
+      result = fileRegistry.reloadDefinitions();
+
+      assertThat(result.getAdded()).isEqualTo(1);
+      assertThat(result.getRemoved()).isEqualTo(1);
+      assertThat(fileRegistry.printService("Second")).isNotSameAs(second)
+          .isInstanceOfSatisfying(VirtualPrintService.class, ps -> assertThat(ps.configuration())
+              .isEqualTo(PrinterConfiguration.parse("sink=null")));
+
+      Files.delete(definitionFile);
+      fileRegistry.reloadDefinitions();
+
+      assertThat(fileRegistry.printServices()).extracting(PrintService::getName)
+          .containsExactly("MyVirtualPrinter");
+    } finally {
+      fileRegistry.close();
+      MBeanServerFactory.releaseMBeanServer(server);
+    }
+  }
+
+  @Test
+  void printerDefinitionsWithSettings(@TempDir Path directory) throws Exception {
+    Path definitionFile = directory.resolve("printers");
+    Files.write(definitionFile, List.of("First; sink=null; maxJobs=2",
+        "Second; maxJobs=2; sink=null", "Third;sink=null; maxJobs=2", "Invalid; unknown=setting"));
+    MBeanServer server = MBeanServerFactory.createMBeanServer();
+    VirtualPrinterRegistry fileRegistry =
+        new VirtualPrinterRegistry.Builder(server).definitionFile(definitionFile).build();
+    try {
+      assertThat(fileRegistry.printServices()).extracting(PrintService::getName)
+          .containsExactly("MyVirtualPrinter", "First", "Second", "Third");
+      PrinterConfiguration first =
+          ((VirtualPrintService) fileRegistry.printService("First")).configuration();
+      PrinterConfiguration second =
+          ((VirtualPrintService) fileRegistry.printService("Second")).configuration();
+      PrinterConfiguration third =
+          ((VirtualPrintService) fileRegistry.printService("Third")).configuration();
+
+      assertThat(first.sinkType()).isEqualTo(PrinterConfiguration.SinkType.NULL);
+      assertThat(first.maxConcurrentJobs()).isEqualTo(2);
+      assertThat(second).isEqualTo(first);
+      assertThat(third).isSameAs(first);
+    } finally {
+      fileRegistry.close();
+      MBeanServerFactory.releaseMBeanServer(server);
+    }
+  }
+
+  @Test
+  void reloadDefinitionsWithoutFile() {
+    BulkOperationResult result = registry.reloadDefinitions();
+
+    assertThat(registry.getDefinitionFile()).isNull();
+    assertThat(result.getAdded()).isZero();
+    assertThat(result.getRemoved()).isZero();
+  }
+
+  @Test
+  void watchDefinitions(@TempDir Path directory) throws Exception {
+    Path definitionFile = directory.resolve("printers");
+    Semaphore reloads = new Semaphore(0);
+    PrinterDefinitionWatcher watcher =
+        new PrinterDefinitionWatcher(definitionFile, reloads::release);
+    try (watcher) {
+      Files.write(definitionFile, List.of("First"));
+
+      assertThat(reloads.tryAcquire(30, TimeUnit.SECONDS)).isTrue();
+    }
+  }
+
+  @Test
+  void concurrentModificationWhileIterating() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    CountDownLatch start = new CountDownLatch(1);
+    try {
+      Future<?> writer = executor.submit(() -> {
+        start.await();
+        IntStream.range(0, 1000).forEach(i -> registry.addPrinter("Printer" + i));
+        IntStream.range(0, 1000).forEach(i -> registry.removePrinter("Printer" + i));
+        return null;
+      });
+      Future<?> reader = executor.submit(() -> {
+        start.await();
+        while (!writer.isDone()) {
+          registry.printServices().forEach(PrintService::getName);
+        }
+        return null;
+      });
+      start.countDown();
+      writer.get();
+      reader.get();
+    } finally {
+      executor.shutdownNow();
+    }
+    assertThat(registry.printServices()).extracting(PrintService::getName)
+        .containsExactly("MyVirtualPrinter");
+  }
+}